@@ -0,0 +1,69 @@
+package com.dam.accesodatos.bench;
+
+import com.dam.accesodatos.McpAccesoDatosRa3Application;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arranque del contexto Spring para los benchmarks JMH.
+ *
+ * Sin servidor web y con el log de SQL silenciado: en los benchmarks
+ * queremos medir Hibernate/JPA, no la consola.
+ */
+public final class BenchmarkContexts {
+
+    private static final String[] QUIET_LOGGING = {
+            "logging.level.root=WARN",
+            "logging.level.com.dam.accesodatos=WARN",
+            "logging.level.org.hibernate.SQL=WARN",
+            "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "logging.level.org.springframework.orm.jpa=WARN",
+            "logging.level.org.springframework.transaction=WARN",
+            "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+            "spring.jpa.show-sql=false",
+            "spring.h2.console.enabled=false"
+    };
+
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * Arranca la aplicación con una BD H2 en memoria propia.
+     *
+     * @param extraProperties Propiedades adicionales (formato clave=valor)
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        List<String> properties = new ArrayList<>(Arrays.asList(QUIET_LOGGING));
+        properties.addAll(Arrays.asList(extraProperties));
+        return run(properties);
+    }
+
+    /**
+     * Arranca la aplicación con el log del perfil indicado, sin silenciarlo.
+     *
+     * @param profile         Perfil de Spring ("default" = ninguno)
+     * @param extraProperties Propiedades adicionales (formato clave=valor)
+     */
+    public static ConfigurableApplicationContext startWithProfile(String profile, String... extraProperties) {
+        List<String> properties = new ArrayList<>();
+        if (!"default".equals(profile)) {
+            properties.add("spring.profiles.active=" + profile);
+        }
+        properties.addAll(Arrays.asList(extraProperties));
+        return run(properties);
+    }
+
+    private static ConfigurableApplicationContext run(List<String> properties) {
+        properties.add("spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+
+        // Como argumentos de línea de comandos: tienen prioridad sobre application.yml
+        return new SpringApplicationBuilder(McpAccesoDatosRa3Application.class)
+                .web(WebApplicationType.NONE)
+                .run(properties.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,78 @@
+package com.dam.accesodatos.bench;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Carga de datos para los benchmarks.
+ *
+ * Las filas se generan con INSERT ... SELECT FROM SYSTEM_RANGE (H2), sin
+ * pasar por Hibernate: un millón de NPCs (con sus pedidos e ingredientes)
+ * tardan en torno a un minuto en cargarse.
+ *
+ * Datos generados para N NPCs:
+ * - NPCs 1..N llamados "Npc <id>", activos 3 de cada 4
+ * - Cada 10º NPC tiene PEDIDOS_POR_NPC pedidos con
+ * INGREDIENTES_POR_PEDIDO ingredientes cada uno
+ */
+public final class BenchmarkData {
+
+    public static final int PEDIDOS_POR_NPC = 3;
+    public static final int INGREDIENTES_POR_PEDIDO = 3;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Sustituye los datos de ejemplo (data.sql) por N NPCs generados y deja
+     * las secuencias y la caché de segundo nivel listas para empezar.
+     */
+    public static void seed(ConfigurableApplicationContext context, int npcs) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.execute("DELETE FROM ingredientes");
+        jdbc.execute("DELETE FROM pedidos");
+        jdbc.execute("DELETE FROM npcs");
+
+        jdbc.update("INSERT INTO npcs (id, nombre, activo, created_at, updated_at) "
+                + "SELECT X, 'Npc ' || X, MOD(X, 4) <> 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", npcs);
+        // Pedido p del NPC n (n múltiplo de 10): id = (n / 10 - 1) * PEDIDOS_POR_NPC + p
+        jdbc.update("INSERT INTO pedidos (id, npc_id, comentario, created_at) "
+                + "SELECT X, ((X - 1) / ? + 1) * 10, 'Pedido ' || X, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", PEDIDOS_POR_NPC, npcs / 10 * PEDIDOS_POR_NPC);
+        jdbc.update("INSERT INTO ingredientes (id, pedido_id, nombre, cantidad) "
+                + "SELECT X, (X - 1) / ? + 1, 'Ingrediente ' || MOD(X, 50), MOD(X, 5) + 1 "
+                + "FROM SYSTEM_RANGE(1, ?)", INGREDIENTES_POR_PEDIDO,
+                npcs / 10 * PEDIDOS_POR_NPC * INGREDIENTES_POR_PEDIDO);
+
+        restartSequences(jdbc);
+        jdbc.execute("ANALYZE");
+        evictSecondLevelCache(context);
+    }
+
+    /**
+     * Borra lo que hayan insertado los benchmarks de escritura (todo lo
+     * que queda por encima de los IDs generados por seed()).
+     */
+    public static void deleteInsertedRows(ConfigurableApplicationContext context, int npcs) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        int pedidos = npcs / 10 * PEDIDOS_POR_NPC;
+        jdbc.update("DELETE FROM ingredientes WHERE id > ? OR pedido_id > ?",
+                pedidos * INGREDIENTES_POR_PEDIDO, pedidos);
+        jdbc.update("DELETE FROM pedidos WHERE id > ? OR npc_id > ?", pedidos, npcs);
+        jdbc.update("DELETE FROM npcs WHERE id > ?", npcs);
+        evictSecondLevelCache(context);
+    }
+
+    private static void restartSequences(JdbcTemplate jdbc) {
+        for (String table : new String[] { "npcs", "pedidos", "ingredientes" }) {
+            Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            jdbc.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + (max + 1));
+        }
+    }
+
+    private static void evictSecondLevelCache(ConfigurableApplicationContext context) {
+        context.getBean(EntityManagerFactory.class).getCache().evictAll();
+    }
+}
@@ -0,0 +1,59 @@
+package com.dam.accesodatos.bench;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sentencias SQL ejecutadas durante el benchmark, leídas de las
+ * estadísticas de Hibernate (hibernate.generate_statistics).
+ *
+ * JMH las muestra como resultados secundarios junto al throughput:
+ * - sqlStatements: sentencias preparadas en la iteración
+ * - sqlQueries: consultas HQL/JPQL/SQL ejecutadas en la iteración
+ * - operations: llamadas al método medido en la iteración
+ *
+ * sqlStatements / operations = sentencias por operación.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SqlStatementCounter {
+
+    public long sqlStatements;
+    public long sqlQueries;
+    public long operations;
+
+    private Statistics statistics;
+    private long statementsBefore;
+    private long queriesBefore;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        sqlStatements = 0;
+        sqlQueries = 0;
+        operations = 0;
+    }
+
+    /**
+     * Marca el inicio de una operación.
+     *
+     * @param statistics Estadísticas de la SessionFactory del benchmark
+     */
+    public void begin(Statistics statistics) {
+        this.statistics = statistics;
+        statementsBefore = statistics.getPrepareStatementCount();
+        queriesBefore = statistics.getQueryExecutionCount();
+    }
+
+    /**
+     * Marca el fin de una operación y acumula sus sentencias.
+     */
+    public void end() {
+        sqlStatements += statistics.getPrepareStatementCount() - statementsBefore;
+        sqlQueries += statistics.getQueryExecutionCount() - queriesBefore;
+        operations++;
+    }
+}
@@ -0,0 +1,118 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.Npc;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar la respuesta de find_all_npcs con 1 y 1.000 NPCs:
+ * - hashMapEnvelope: un HashMap por petición, como antes de McpToolResponse
+ * - recordEnvelope: McpToolResponse con un ObjectWriter creado una vez
+ * - recordEnvelopeBlackbird: lo mismo con BlackbirdModule (configuración
+ * actual del servidor, ver McpJacksonConfig)
+ *
+ * Sin BD ni Spring: solo Jackson, escribiendo en un OutputStream que
+ * descarta los bytes.
+ *
+ * NOTA: con 1.000 NPCs casi todo el coste es el de los propios NPCs (sobre
+ * todo las fechas); la diferencia entre sobres se aprecia mejor con 1.
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="McpResponseSerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class McpResponseSerializationBenchmark {
+
+    @Param({ "1", "1000" })
+    public int npcs;
+
+    private final OutputStream out = new DiscardingOutputStream();
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter recordWriter;
+    private ObjectWriter blackbirdRecordWriter;
+    private List<Npc> result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = mapper(false);
+        TypeReference<McpToolResponse<List<Npc>>> type = new TypeReference<>() {
+        };
+        recordWriter = objectMapper.writerFor(type);
+        blackbirdRecordWriter = mapper(true).writerFor(type);
+
+        result = new ArrayList<>(npcs);
+        for (long i = 1; i <= npcs; i++) {
+            Npc npc = new Npc("Npc " + i);
+            npc.setId(i);
+            result.add(npc);
+        }
+    }
+
+    @Benchmark
+    public void hashMapEnvelope() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tool", "find_all_npcs");
+        response.put("result", result);
+        response.put("count", result.size());
+        response.put("status", "success");
+        objectMapper.writeValue(out, response);
+    }
+
+    @Benchmark
+    public void recordEnvelope() throws IOException {
+        recordWriter.writeValue(out, McpToolResponse.success("find_all_npcs", result));
+    }
+
+    @Benchmark
+    public void recordEnvelopeBlackbird() throws IOException {
+        blackbirdRecordWriter.writeValue(out, McpToolResponse.success("find_all_npcs", result));
+    }
+
+    /**
+     * ObjectMapper con la misma configuración que el de Spring Boot
+     * (fechas ISO-8601, módulo JavaTime).
+     */
+    private static ObjectMapper mapper(boolean blackbird) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Descarta los bytes. A diferencia de OutputStream.nullOutputStream(),
+     * sigue aceptando escrituras después de close() (writeValue() cierra el
+     * destino).
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.ra3.HibernateNpcService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el coste de ejecutar find_npc_by_id por las distintas vías:
+ * - Endpoint escrito a mano (McpServerController.findNpcById)
+ * - Endpoint genérico /mcp/tools/{name}/invoke (McpToolDispatcher)
+ * - Solo el despachador (MethodHandle + binders precalculados)
+ * - Reflexión clásica con Method.invoke(), como referencia
+ *
+ * Todas las variantes ejecutan la misma consulta, así que la diferencia
+ * entre ellas es el coste de despacho y del sobre de respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class McpToolDispatchBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private McpServerController controller;
+    private McpToolDispatcher dispatcher;
+    private HibernateNpcService service;
+    private Method findNpcByIdMethod;
+    private Map<String, Object> request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        context = BenchmarkContexts.start();
+        controller = context.getBean(McpServerController.class);
+        dispatcher = context.getBean(McpToolDispatcher.class);
+        service = context.getBean(HibernateNpcService.class);
+        findNpcByIdMethod = HibernateNpcService.class.getMethod("findNpcById", Long.class);
+        request = Map.of("npcId", 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<McpToolResponse<NpcDetalleDto>> handWrittenEndpoint() {
+        return controller.findNpcById(request);
+    }
+
+    @Benchmark
+    public ResponseEntity<McpToolResponse<Object>> genericInvokeEndpoint() {
+        return controller.invokeTool("find_npc_by_id", request);
+    }
+
+    @Benchmark
+    public Object dispatcherOnly() {
+        return dispatcher.invoke("find_npc_by_id", request);
+    }
+
+    @Benchmark
+    public Object reflectionOnly() throws Exception {
+        return findNpcByIdMethod.invoke(service, ((Number) request.get("npcId")).longValue());
+    }
+}
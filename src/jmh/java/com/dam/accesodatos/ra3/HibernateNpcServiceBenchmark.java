@@ -0,0 +1,157 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.bench.SqlStatementCounter;
+import com.dam.accesodatos.model.IngredienteDto;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcCreateDto;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcQueryDto;
+import com.dam.accesodatos.model.PedidoCreateDto;
+import com.dam.accesodatos.model.PedidoDetalleDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones principales de HibernateNpcService contra H2 en memoria con
+ * 1.000, 100.000 y 1.000.000 de NPCs (ver BenchmarkData).
+ *
+ * Resultados:
+ * - Throughput (operaciones por segundo)
+ * - sqlStatements / sqlQueries / operations: sentencias SQL por iteración
+ * (SqlStatementCounter); divididas entre operations dan el coste por llamada
+ * - Con -prof gc: bytes reservados por operación (gc.alloc.rate.norm)
+ *
+ * NOTAS:
+ * - Las lecturas eligen un NPC al azar en cada llamada; la caché de segundo
+ * nivel está activa, como en producción
+ * - Las filas que insertan los benchmarks de escritura se borran al terminar
+ * cada iteración, para que todas empiecen con los mismos datos
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="HibernateNpcServiceBenchmark -prof gc"
+ * ./gradlew jmh -PjmhArgs="HibernateNpcServiceBenchmark.findNpcById -p rows=1000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class HibernateNpcServiceBenchmark {
+
+    private static final int TRANSFER_SIZE = 100;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private Statistics statistics;
+    private NpcQueryDto searchQuery;
+    private PedidoCreateDto pedidoDto;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        BenchmarkData.seed(context, rows);
+
+        // Nombre que coincide con pocas filas (Npc 4242, Npc 42420...),
+        // pero LIKE '%...%' obliga a recorrer la tabla
+        searchQuery = new NpcQueryDto("npc 4242", true);
+        pedidoDto = new PedidoCreateDto("Pedido benchmark",
+                List.of(new IngredienteDto("Sal", 1), new IngredienteDto("Pimienta", 2)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        BenchmarkData.deleteInsertedRows(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // ========== LECTURAS ==========
+
+    @Benchmark
+    public NpcDetalleDto findNpcById(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        NpcDetalleDto npc = service.findNpcById(randomNpcId());
+        sql.end();
+        return npc;
+    }
+
+    @Benchmark
+    public List<NpcDto> searchNpcs(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        List<NpcDto> npcs = service.searchNpcs(searchQuery);
+        sql.end();
+        return npcs;
+    }
+
+    @Benchmark
+    public List<PedidoDetalleDto> findPedidosByNpc(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        List<PedidoDetalleDto> pedidos = service.findPedidosByNpc(randomNpcIdWithPedidos());
+        sql.end();
+        return pedidos;
+    }
+
+    // ========== ESCRITURAS ==========
+
+    @Benchmark
+    public NpcDto createNpc(SqlStatementCounter sql) {
+        NpcCreateDto dto = new NpcCreateDto("Bench " + (sequence++));
+        sql.begin(statistics);
+        NpcDto npc = service.createNpc(dto);
+        sql.end();
+        return npc;
+    }
+
+    @Benchmark
+    public PedidoDetalleDto addPedidoToNpc(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        PedidoDetalleDto pedido = service.addPedidoToNpc(randomNpcId(), pedidoDto);
+        sql.end();
+        return pedido;
+    }
+
+    /**
+     * transferData() con TRANSFER_SIZE NPCs por llamada.
+     */
+    @Benchmark
+    public boolean transferData(SqlStatementCounter sql) {
+        List<Npc> npcs = new ArrayList<>(TRANSFER_SIZE);
+        String prefix = "Bench " + (sequence++) + "-";
+        for (int i = 0; i < TRANSFER_SIZE; i++) {
+            npcs.add(new Npc(prefix + i));
+        }
+        sql.begin(statistics);
+        boolean transferred = service.transferData(npcs);
+        sql.end();
+        return transferred;
+    }
+
+    private long randomNpcId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    private long randomNpcIdWithPedidos() {
+        return ThreadLocalRandom.current().nextLong(1, rows / 10 + 1) * 10;
+    }
+}
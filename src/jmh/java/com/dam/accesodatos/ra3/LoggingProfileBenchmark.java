@@ -0,0 +1,80 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.model.NpcCreateDto;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcQueryDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del log por petición: configuración de desarrollo (application.yml,
+ * todo el SQL con formato y parámetros) frente al perfil prod
+ * (application-prod.yml + AsyncAppender de logback-spring.xml).
+ *
+ * Resultados: latencia media por llamada y, con -prof gc, bytes
+ * reservados por llamada (gc.alloc.rate.norm).
+ *
+ * NOTA: con el perfil "default" el proceso del benchmark escribe todo el SQL
+ * en consola; conviene descartar la salida y leer los resultados de
+ * build/reports/jmh/results.json.
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="LoggingProfileBenchmark -prof gc" > /dev/null
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class LoggingProfileBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({ "default", "prod" })
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private NpcQueryDto searchQuery;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.startWithProfile(profile);
+        service = context.getBean(HibernateNpcService.class);
+        BenchmarkData.seed(context, ROWS);
+        searchQuery = new NpcQueryDto("npc 42", true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        BenchmarkData.deleteInsertedRows(context, ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Una consulta (no cacheable) con un parámetro.
+     */
+    @Benchmark
+    public List<NpcDto> searchNpcs() {
+        return service.searchNpcs(searchQuery);
+    }
+
+    /**
+     * Un INSERT con cinco parámetros enlazados.
+     */
+    @Benchmark
+    public NpcDto createNpc() {
+        return service.createNpc(new NpcCreateDto("Bench " + (sequence++)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.bench.SqlStatementCounter;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.PedidoDetalleDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de find_all_npcs con include=pedidos.ingredientes:
+ * - lazyTraversal: SELECT de NPCs y después npc.getPedidos() y
+ * pedido.getIngredientes() uno a uno, como haría Jackson con open-in-view.
+ * Con @BatchSize(50) en las colecciones son 1 + N/50 + P/50 consultas
+ * (P = pedidos); sin él serían 1 + N + P
+ * - entityGraphs: HibernateNpcService.findAll("pedidos.ingredientes"), con
+ * los grafos Npc.GRAPH_PEDIDOS y Pedido.GRAPH_INGREDIENTES (2 consultas)
+ * - none: HibernateNpcService.findAll("none"), solo las columnas de npcs
+ *
+ * lazyTraversal ignora la caché de segundo nivel: si no, a partir de la
+ * segunda llamada las colecciones saldrían de la caché y no se vería el
+ * coste de las consultas.
+ *
+ * Resultados: latencia media por llamada y sqlStatements / operations
+ * (sentencias por llamada).
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="NpcIncludeBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class NpcIncludeBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+
+        BenchmarkData.seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<NpcDetalleDto> lazyTraversal(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        List<NpcDetalleDto> npcs = readOnlyTx.execute(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+            List<NpcDetalleDto> result = new ArrayList<>();
+            for (Npc npc : entityManager.createQuery("SELECT n FROM Npc n ORDER BY n.id", Npc.class).getResultList()) {
+                List<PedidoDetalleDto> pedidos = new ArrayList<>();
+                for (Pedido pedido : npc.getPedidos()) {
+                    pedidos.add(PedidoDetalleDto.from(pedido));
+                }
+                result.add(NpcDetalleDto.from(npc, pedidos));
+            }
+            return result;
+        });
+        sql.end();
+        return npcs;
+    }
+
+    @Benchmark
+    public List<NpcDetalleDto> entityGraphs(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        List<NpcDetalleDto> npcs = service.findAll("pedidos.ingredientes");
+        sql.end();
+        return npcs;
+    }
+
+    @Benchmark
+    public List<NpcDetalleDto> none(SqlStatementCounter sql) {
+        sql.begin(statistics);
+        List<NpcDetalleDto> npcs = service.findAll("none");
+        sql.end();
+        return npcs;
+    }
+}
@@ -0,0 +1,67 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.repository.NpcRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción masiva: transferData() con 10.000 NPCs en una transacción.
+ *
+ * El resultado se expresa en inserciones por segundo
+ * (@OperationsPerInvocation = nº de NPCs por llamada).
+ *
+ * Sirve para comprobar el efecto de hibernate.jdbc.batch_size: con IDs
+ * IDENTITY Hibernate tiene que lanzar cada INSERT por separado para conocer
+ * el ID; con secuencias (pooled-lo) los INSERT se agrupan en lotes.
+ *
+ * Ejecutar: ./gradlew jmh -PjmhArgs="NpcInsertBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 6, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class NpcInsertBenchmark {
+
+    private static final int NPC_COUNT = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private NpcRepository npcRepository;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        npcRepository = context.getBean(NpcRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTable() {
+        npcRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NPC_COUNT)
+    public boolean transferData10k() {
+        List<Npc> npcs = new ArrayList<>(NPC_COUNT);
+        String prefix = "Bench " + (round++) + "-";
+        for (int i = 0; i < NPC_COUNT; i++) {
+            npcs.add(new Npc(prefix + i));
+        }
+        return service.transferData(npcs);
+    }
+}
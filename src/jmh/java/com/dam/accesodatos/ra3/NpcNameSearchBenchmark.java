@@ -0,0 +1,98 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcQueryDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de NPCs por nombre sin distinguir mayúsculas:
+ * - lowerLike: LOWER(n.nombre) LIKE '%npc 12345%', como hacía searchNpcs()
+ * antes de nombre_normalizado (LOWER() por fila y recorrido de la tabla)
+ * - normalizedContains: searchNpcs("NPC 12345"), LIKE '%...%' sobre
+ * nombre_normalizado (sigue recorriendo la tabla, pero sin LOWER())
+ * - normalizedPrefix: searchNpcs("NPC 12345*"), LIKE 'npc 12345%' por rango
+ * de idx_npcs_nombre_normalizado
+ * - autocomplete: autocompleteNpcs("NPC 12345", 10), el mismo rango
+ * cortado a 10 filas
+ *
+ * Con los datos de BenchmarkData ("Npc 1".."Npc N") los cuatro devuelven
+ * los NPCs 12345, 123450..123459, 1234500..1234599 (10 en autocomplete).
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="NpcNameSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class NpcNameSearchBenchmark {
+
+    private static final String TEXTO = "NPC 12345";
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate readOnlyTx;
+    private NpcQueryDto containsQuery;
+    private NpcQueryDto prefixQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+
+        containsQuery = new NpcQueryDto(TEXTO, null);
+        prefixQuery = new NpcQueryDto(TEXTO + "*", null);
+
+        BenchmarkData.seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<NpcDto> lowerLike() {
+        return readOnlyTx.execute(status -> EntityManagerFactoryUtils
+                .getTransactionalEntityManager(entityManagerFactory)
+                .createQuery("SELECT new com.dam.accesodatos.model.NpcDto(n.id, n.nombre, n.activo, n.createdAt, n.updatedAt) "
+                        + "FROM Npc n WHERE LOWER(n.nombre) LIKE LOWER(:nombre)", NpcDto.class)
+                .setParameter("nombre", "%" + TEXTO + "%")
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<NpcDto> normalizedContains() {
+        return service.searchNpcs(containsQuery);
+    }
+
+    @Benchmark
+    public List<NpcDto> normalizedPrefix() {
+        return service.searchNpcs(prefixQuery);
+    }
+
+    @Benchmark
+    public List<NpcDto> autocomplete() {
+        return service.autocompleteNpcs(TEXTO, 10);
+    }
+}
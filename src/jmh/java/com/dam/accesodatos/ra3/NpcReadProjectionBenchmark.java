@@ -0,0 +1,118 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de leer todos los NPCs (find_all_npcs) según cómo se materializan:
+ * - entities: entidades gestionadas en una transacción de lectura/escritura
+ * (contexto de persistencia + snapshot para el dirty checking + colección
+ * perezosa de pedidos + copia en la caché de segundo nivel)
+ * - entitiesReadOnlyHint: lo mismo con la pista org.hibernate.readOnly (sin
+ * snapshot ni dirty checking al hacer flush)
+ * - entitiesReadOnlyTx: npcRepository.findAll() en una transacción
+ * readOnly, como hacía HibernateNpcService.findAll() antes de la proyección
+ * (Spring marca la sesión como de solo lectura)
+ * - dtoProjection: HibernateNpcService.findAll() actual (SELECT new NpcDto)
+ * - sparseFields: HibernateNpcService.findAll(null, ["id", "nombre"]), solo
+ * esas dos columnas en el SELECT (Tuple con fields)
+ *
+ * Resultados: latencia media por llamada y, con -prof gc, bytes reservados
+ * por llamada (gc.alloc.rate.norm); divididos entre rows dan el coste por
+ * fila.
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="NpcReadProjectionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class NpcReadProjectionBenchmark {
+
+    private static final String ENTITY_JPQL = "SELECT n FROM Npc n ORDER BY n.id";
+    private static final List<String> SPARSE_FIELDS = List.of("id", "nombre");
+
+    @Param({ "1000", "10000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate readWriteTx;
+    private TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        BenchmarkData.seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Npc> entities() {
+        return readWriteTx.execute(status -> entityManager()
+                .createQuery(ENTITY_JPQL, Npc.class)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Npc> entitiesReadOnlyHint() {
+        return readWriteTx.execute(status -> entityManager()
+                .createQuery(ENTITY_JPQL, Npc.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Npc> entitiesReadOnlyTx() {
+        return readOnlyTx.execute(status -> entityManager()
+                .createQuery(ENTITY_JPQL, Npc.class)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<NpcDto> dtoProjection() {
+        return service.findAll();
+    }
+
+    @Benchmark
+    public List<?> sparseFields() {
+        return service.findAll(null, SPARSE_FIELDS);
+    }
+
+    /**
+     * EntityManager de la transacción en curso (el mismo que inyectaría
+     * @PersistenceContext).
+     */
+    private EntityManager entityManager() {
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+    }
+}
@@ -0,0 +1,66 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.bench.BenchmarkContexts;
+import com.dam.accesodatos.bench.BenchmarkData;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.ResultadoBusquedaDto;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda en comentarios de pedidos:
+ * - likeContains: PedidoRepository.findByComentarioContaining(), LIKE
+ * '%...%' que recorre toda la tabla pedidos
+ * - fullText: search_text con la frase "pedido 12345" sobre el índice de
+ * Lucene (TextSearchIndex)
+ *
+ * BenchmarkData inserta con SQL directo, así que setUp() reconstruye el
+ * índice (rebuild_search_index) después de cargar los datos.
+ *
+ * Ejecutar:
+ * ./gradlew jmh -PjmhArgs="TextSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class TextSearchBenchmark {
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private HibernateNpcService service;
+    private PedidoRepository pedidoRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        service = context.getBean(HibernateNpcService.class);
+        pedidoRepository = context.getBean(PedidoRepository.class);
+
+        BenchmarkData.seed(context, rows);
+        service.rebuildSearchIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Pedido> likeContains() {
+        return pedidoRepository.findByComentarioContaining("Pedido 12345");
+    }
+
+    @Benchmark
+    public List<ResultadoBusquedaDto> fullText() {
+        return service.searchText("\"pedido 12345\"", TextSearchIndex.PEDIDO, 20);
+    }
+}
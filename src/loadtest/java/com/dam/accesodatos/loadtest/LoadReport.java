@@ -0,0 +1,94 @@
+package com.dam.accesodatos.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias (HdrHistogram) y errores por herramienta durante la medición.
+ *
+ * Las latencias se guardan en microsegundos, con 3 cifras significativas
+ * y hasta 60 s; en el informe se expresan en milisegundos.
+ */
+public class LoadReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final Map<String, ToolStats> byTool = new ConcurrentHashMap<>();
+
+    /**
+     * Registra una llamada terminada (correcta o con error).
+     */
+    public void record(String tool, long latencyNanos, boolean error) {
+        ToolStats stats = byTool.computeIfAbsent(tool, key -> new ToolStats());
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (error) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Informe listo para serializar a JSON.
+     *
+     * @param config        Parámetros de la ejecución
+     * @param measuredNanos Duración real de la fase de medición
+     */
+    public Map<String, Object> toMap(Map<String, Object> config, long measuredNanos) {
+        double seconds = measuredNanos / 1_000_000_000.0;
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        long totalErrors = 0;
+
+        Map<String, Object> tools = new LinkedHashMap<>();
+        for (String tool : byTool.keySet().stream().sorted().toList()) {
+            ToolStats stats = byTool.get(tool);
+            Histogram latency = stats.latency.copy();
+            long errors = stats.errors.sum();
+            total.add(latency);
+            totalErrors += errors;
+            tools.put(tool, summary(latency, errors, seconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("total", summary(total, totalErrors, seconds));
+        report.put("tools", tools);
+        return report;
+    }
+
+    private Map<String, Object> summary(Histogram latency, long errors, double seconds) {
+        long requests = latency.getTotalCount();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests);
+        summary.put("errors", errors);
+        summary.put("errorRate", requests == 0 ? 0.0 : round((double) errors / requests));
+        summary.put("throughput", round(requests / seconds));
+
+        Map<String, Object> millis = new LinkedHashMap<>();
+        millis.put("mean", round(latency.getMean() / 1000.0));
+        millis.put("p50", percentile(latency, 50.0));
+        millis.put("p90", percentile(latency, 90.0));
+        millis.put("p99", percentile(latency, 99.0));
+        millis.put("p999", percentile(latency, 99.9));
+        millis.put("max", round(latency.getMaxValue() / 1000.0));
+        summary.put("latencyMillis", millis);
+        return summary;
+    }
+
+    private double percentile(Histogram latency, double percentile) {
+        return round(latency.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    private static final class ToolStats {
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,279 @@
+package com.dam.accesodatos.loadtest;
+
+import com.dam.accesodatos.McpAccesoDatosRa3Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Test de carga de extremo a extremo de los endpoints /mcp:
+ * Tomcat → McpServerController → HibernateNpcService → H2 → Jackson.
+ *
+ * FUNCIONAMIENTO:
+ * 1. Arranca la aplicación en un puerto libre (o usa --url si ya está
+ * arrancada en otro sitio)
+ * 2. Carga --npcs NPCs con pedidos por /mcp/transfer_data_bulk/stream y
+ * obtiene sus IDs por /mcp/find_all_npcs/stream
+ * 3. --clients clientes concurrentes (hilos virtuales) lanzan peticiones sin
+ * pausa según la mezcla --mix durante --warmup (sin medir) y --duration
+ * 4. Escribe un informe JSON con throughput, tasa de error y latencias
+ * p50/p90/p99/p999 (HdrHistogram), total y por herramienta
+ *
+ * Los informes de dos commits se pueden comparar con un diff.
+ *
+ * Ejecutar:
+ * ./gradlew loadtest -PloadtestArgs="--mix=read --clients=64 --duration=30s"
+ * ./gradlew loadtest -PloadtestArgs="--mix=mixed --virtual-threads=true"
+ *
+ * Opciones (formato --clave=valor):
+ * - mix: read | write | mixed (por defecto mixed)
+ * - clients: clientes concurrentes (64)
+ * - duration / warmup: duración de la medición y del calentamiento (30s / 10s)
+ * - npcs: NPCs cargados antes de empezar (1000)
+ * - virtual-threads: arranca el servidor con hilos virtuales (false)
+ * - url: servidor ya arrancado (no se arranca ni se cargan datos nuevos)
+ * - report-dir: carpeta del informe (build/reports/loadtest)
+ *
+ * NOTA: con el servidor en el mismo proceso, clientes y servidor compiten
+ * por la CPU; para medir solo el servidor, arrancarlo aparte y usar --url.
+ */
+public class McpLoadTest {
+
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.root=WARN",
+            "--logging.level.com.dam.accesodatos=WARN",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "--logging.level.org.springframework.orm.jpa=WARN",
+            "--logging.level.org.springframework.transaction=WARN",
+            "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+            "--spring.jpa.show-sql=false",
+            "--spring.h2.console.enabled=false"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Map<String, String> options;
+    private final ToolCallMix mix;
+    private final int clients;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int npcs;
+    private final boolean virtualThreads;
+
+    McpLoadTest(Map<String, String> options) {
+        this.options = options;
+        this.mix = ToolCallMix.parse(options.getOrDefault("mix", "mixed"));
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        this.duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        this.warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        this.npcs = Integer.parseInt(options.getOrDefault("npcs", "1000"));
+        this.virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+        if (clients < 1 || npcs < 1) {
+            throw new IllegalArgumentException("clients y npcs deben ser al menos 1");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        new McpLoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("url");
+        try {
+            if (baseUrl == null) {
+                context = startServer();
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                seed(baseUrl);
+            }
+            List<Long> npcIds = npcIds(baseUrl);
+            if (npcIds.isEmpty()) {
+                throw new IllegalStateException("El servidor no tiene NPCs");
+            }
+            System.out.printf("Servidor %s, %d NPCs, mezcla %s, %d clientes%n",
+                    baseUrl, npcIds.size(), mix.name().toLowerCase(), clients);
+
+            runPhase(baseUrl, npcIds, warmup, null);
+            LoadReport report = new LoadReport();
+            long measuredNanos = runPhase(baseUrl, npcIds, duration, report);
+
+            writeReport(report.toMap(config(baseUrl, npcIds.size()), measuredNanos));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // ========== SERVIDOR Y DATOS ==========
+
+    private ConfigurableApplicationContext startServer() {
+        List<String> args = new ArrayList<>(List.of(QUIET_LOGGING));
+        args.add("--server.port=0");
+        args.add("--spring.threads.virtual.enabled=" + virtualThreads);
+        args.add("--spring.datasource.url=jdbc:h2:mem:loadtest" + System.nanoTime()
+                + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        return new SpringApplicationBuilder(McpAccesoDatosRa3Application.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Carga los NPCs de prueba (dos pedidos con dos ingredientes cada uno)
+     * con la importación NDJSON del propio servidor.
+     */
+    private void seed(String baseUrl) throws IOException, InterruptedException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= npcs; i++) {
+            ndjson.append("{\"nombre\":\"Carga ").append(i).append("\",\"activo\":").append(i % 4 != 0)
+                    .append(",\"pedidos\":[")
+                    .append("{\"comentario\":\"Pedido A\",\"ingredientes\":[{\"nombre\":\"Tomate\",\"cantidad\":2},{\"nombre\":\"Cebolla\",\"cantidad\":1}]},")
+                    .append("{\"comentario\":\"Pedido B\",\"ingredientes\":[{\"nombre\":\"Queso\",\"cantidad\":1},{\"nombre\":\"Pan\",\"cantidad\":3}]}")
+                    .append("]}\n");
+        }
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/mcp/transfer_data_bulk/stream?chunkSize=1000"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("\"success\"")) {
+            throw new IllegalStateException("No se pudieron cargar los NPCs: " + response.body());
+        }
+    }
+
+    private List<Long> npcIds(String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/mcp/find_all_npcs/stream"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        List<Long> ids = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    JsonNode npc = objectMapper.readTree(line);
+                    ids.add(npc.get("id").asLong());
+                }
+            }
+        }
+        return ids;
+    }
+
+    // ========== CARGA ==========
+
+    /**
+     * Lanza los clientes durante el tiempo indicado.
+     *
+     * @param report Dónde registrar las llamadas (null = calentamiento)
+     * @return Duración real de la fase en nanosegundos
+     */
+    private long runPhase(String baseUrl, List<Long> npcIds, Duration phase, LoadReport report) {
+        long start = System.nanoTime();
+        long end = start + phase.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        call(baseUrl, npcIds, report);
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void call(String baseUrl, List<Long> npcIds, LoadReport report) {
+        ToolCallMix.Operation operation = mix.next();
+        long npcId = npcIds.get(ThreadLocalRandom.current().nextInt(npcIds.size()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + operation.path()))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(operation.body().apply(npcId)))
+                .build();
+
+        long startNanos = System.nanoTime();
+        boolean error;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            error = response.statusCode() != 200;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (report != null) {
+            report.record(operation.tool(), System.nanoTime() - startNanos, error);
+        }
+    }
+
+    // ========== INFORME ==========
+
+    private Map<String, Object> config(String baseUrl, int seededNpcs) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("timestamp", Instant.now().toString());
+        config.put("url", baseUrl);
+        config.put("mix", mix.name().toLowerCase());
+        config.put("clients", clients);
+        config.put("durationSeconds", duration.toSeconds());
+        config.put("warmupSeconds", warmup.toSeconds());
+        config.put("npcs", seededNpcs);
+        config.put("virtualThreads", options.containsKey("url") ? null : virtualThreads);
+        config.put("javaVersion", Runtime.version().toString());
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    private void writeReport(Map<String, Object> report) throws IOException {
+        Path dir = Path.of(options.getOrDefault("report-dir", "build/reports/loadtest"));
+        Files.createDirectories(dir);
+        String threads = options.containsKey("url") ? "external" : virtualThreads ? "virtual" : "platform";
+        Path file = dir.resolve(mix.name().toLowerCase() + "-" + threads + ".json");
+        objectMapper.writeValue(file.toFile(), report);
+
+        System.out.println(objectMapper.writeValueAsString(report.get("total")));
+        System.out.println("Informe: " + file.toAbsolutePath());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opción no válida (usar --clave=valor): " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,121 @@
+package com.dam.accesodatos.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Mezclas de llamadas a herramientas MCP que reproduce el test de carga.
+ *
+ * Cada operación tiene un peso: en cada petición se elige una operación al
+ * azar con probabilidad proporcional a su peso.
+ *
+ * - read: solo consultas (find_npc_by_id, find_pedidos_by_npc, search_npcs,
+ * count_active_npcs)
+ * - write: solo escrituras (create_npc, add_pedido_to_npc, update_npc)
+ * - mixed: 80 % lecturas y 20 % escrituras
+ */
+public enum ToolCallMix {
+
+    READ(List.of(
+            Operation.findNpcById(40),
+            Operation.findPedidosByNpc(30),
+            Operation.searchNpcs(20),
+            Operation.countActiveNpcs(10))),
+
+    WRITE(List.of(
+            Operation.createNpc(40),
+            Operation.addPedidoToNpc(40),
+            Operation.updateNpc(20))),
+
+    MIXED(List.of(
+            Operation.findNpcById(32),
+            Operation.findPedidosByNpc(24),
+            Operation.searchNpcs(16),
+            Operation.countActiveNpcs(8),
+            Operation.createNpc(8),
+            Operation.addPedidoToNpc(8),
+            Operation.updateNpc(4)));
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    ToolCallMix(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    public List<Operation> operations() {
+        return operations;
+    }
+
+    /**
+     * Elige una operación al azar según los pesos.
+     */
+    public Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            pick -= operation.weight();
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Pesos no válidos");
+    }
+
+    public static ToolCallMix parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("mix debe ser read, write o mixed: " + value);
+        }
+    }
+
+    /**
+     * Una llamada HTTP a una herramienta MCP.
+     *
+     * @param tool   Nombre de la herramienta (para el informe)
+     * @param path   Ruta bajo /mcp
+     * @param weight Peso en la mezcla
+     * @param body   Cuerpo JSON a partir de un ID de NPC existente
+     */
+    public record Operation(String tool, String path, int weight, Function<Long, String> body) {
+
+        static Operation findNpcById(int weight) {
+            return new Operation("find_npc_by_id", "/mcp/find_npc_by_id", weight,
+                    npcId -> "{\"npcId\":" + npcId + "}");
+        }
+
+        static Operation findPedidosByNpc(int weight) {
+            return new Operation("find_pedidos_by_npc", "/mcp/find_pedidos_by_npc", weight,
+                    npcId -> "{\"npcId\":" + npcId + "}");
+        }
+
+        static Operation searchNpcs(int weight) {
+            return new Operation("search_npcs", "/mcp/tools/search_npcs/invoke", weight,
+                    npcId -> "{\"nombre\":\"carga " + npcId % 100 + "\",\"activo\":true}");
+        }
+
+        static Operation countActiveNpcs(int weight) {
+            return new Operation("count_active_npcs", "/mcp/tools/count_active_npcs/invoke", weight,
+                    npcId -> "{}");
+        }
+
+        static Operation createNpc(int weight) {
+            return new Operation("create_npc", "/mcp/create_npc", weight,
+                    npcId -> "{\"nombre\":\"Nuevo " + ThreadLocalRandom.current().nextInt(1_000_000) + "\"}");
+        }
+
+        static Operation addPedidoToNpc(int weight) {
+            return new Operation("add_pedido_to_npc", "/mcp/add_pedido_to_npc", weight,
+                    npcId -> "{\"npcId\":" + npcId + ",\"comentario\":\"Pedido de carga\","
+                            + "\"ingredientes\":[{\"nombre\":\"Sal\",\"cantidad\":1},"
+                            + "{\"nombre\":\"Harina\",\"cantidad\":2}]}");
+        }
+
+        static Operation updateNpc(int weight) {
+            return new Operation("update_npc", "/mcp/tools/update_npc/invoke", weight,
+                    npcId -> "{\"npcId\":" + npcId + ",\"activo\":" + (npcId % 4 != 0) + "}");
+        }
+    }
+}
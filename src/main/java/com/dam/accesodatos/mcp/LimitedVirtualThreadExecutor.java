@@ -0,0 +1,100 @@
+package com.dam.accesodatos.mcp;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor de un hilo virtual por tarea con un máximo de tareas en ejecución
+ * a la vez (Semaphore), equivalente a los pools fijos del modo clásico.
+ *
+ * Dos modos, según lo que hace el pool al que sustituye:
+ * - En espera (mcpToolExecutor, como newFixedThreadPool con su cola): la
+ * tarea se acepta siempre y su hilo virtual espera un permiso antes de
+ * ejecutarse. Esperar no ocupa un hilo del sistema.
+ * - Rechazo (ndjsonImportExecutor, como SynchronousQueue + AbortPolicy): sin
+ * permisos libres, execute() lanza RejectedExecutionException al momento.
+ */
+final class LimitedVirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final boolean rejectWhenBusy;
+
+    LimitedVirtualThreadExecutor(String namePrefix, int maxConcurrency, boolean rejectWhenBusy) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency debe ser al menos 1");
+        }
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 1).factory());
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+        this.rejectWhenBusy = rejectWhenBusy;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!rejectWhenBusy) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    // Cancelada (o shutdownNow) mientras esperaba turno
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                runAndRelease(task);
+            });
+            return;
+        }
+
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Límite de " + maxConcurrency + " tareas en ejecución alcanzado");
+        }
+        try {
+            delegate.execute(() -> runAndRelease(task));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void runAndRelease(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ========== CICLO DE VIDA (delegado) ==========
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
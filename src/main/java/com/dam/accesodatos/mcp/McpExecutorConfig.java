@@ -0,0 +1,75 @@
+package com.dam.accesodatos.mcp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuración del pool de hilos que ejecuta herramientas MCP en paralelo
+ * (lotes JSON-RPC) y del de los escritores de la importación NDJSON.
+ *
+ * NOTA: cada herramienta ocupa una conexión JDBC mientras se ejecuta, así
+ * que no tiene sentido más concurrencia que conexiones tiene el pool Hikari
+ * (10 por defecto).
+ *
+ * HILOS VIRTUALES (spring.threads.virtual.enabled=true):
+ * Tomcat atiende cada petición en un hilo virtual y estos executors crean un
+ * hilo virtual por tarea (LimitedVirtualThreadExecutor). El número de tareas
+ * en ejecución sigue limitado por mcp.rpc.max-concurrency y
+ * mcp.import.max-concurrency; las que esperan turno no ocupan un hilo del
+ * sistema. Además, ConcurrencyLimitingDataSource limita las conexiones en uso
+ * delante del pool Hikari.
+ */
+@Configuration
+public class McpExecutorConfig {
+
+    @Bean(name = "mcpToolExecutor", destroyMethod = "shutdown")
+    public ExecutorService mcpToolExecutor(@Value("${mcp.rpc.max-concurrency:10}") int maxConcurrency,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return new LimitedVirtualThreadExecutor("mcp-tool-vt-", maxConcurrency, false);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mcp-tool-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(maxConcurrency, threadFactory);
+    }
+
+    /**
+     * Hilos escritores de la importación NDJSON (NpcStreamImporter), uno por
+     * importación en curso.
+     *
+     * Separado de mcpToolExecutor: si los lotes JSON-RPC ocupan ese pool, el
+     * escritor se quedaría en su cola y la petición de importación esperando.
+     * Aquí no hay cola: con maxImports importaciones en curso la siguiente se
+     * rechaza al momento, también con hilos virtuales.
+     */
+    @Bean(name = "ndjsonImportExecutor", destroyMethod = "shutdown")
+    public ExecutorService ndjsonImportExecutor(@Value("${mcp.import.max-concurrency:2}") int maxImports,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return new LimitedVirtualThreadExecutor("mcp-import-vt-", maxImports, true);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mcp-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(maxImports, maxImports, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,18 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Respuesta de GET /mcp/health.
+ *
+ * @param cache          Aciertos/fallos de la caché de segundo nivel y de consultas
+ * @param datasource     Conexiones en uso/en espera (null si el DataSource no
+ *                       tiene límite de concurrencia)
+ * @param virtualThreads Hilos virtuales clavados detectados
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record McpHealthResponse(String status, String service, Map<String, Object> cache,
+        Map<String, Object> datasource, Map<String, Object> virtualThreads) {
+}
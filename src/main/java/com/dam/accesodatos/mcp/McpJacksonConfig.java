@@ -0,0 +1,56 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.persistence.Tuple;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de Jackson para las respuestas MCP.
+ *
+ * BlackbirdModule sustituye el acceso por reflexión (Method.invoke en cada
+ * getter) por lambdas generadas con LambdaMetafactory que el JIT puede
+ * incorporar en línea. Es el sucesor de Afterburner para Java 11+.
+ *
+ * NOTA: Spring Boot registra en el ObjectMapper cualquier bean de tipo
+ * Module, así que afecta a MVC, JSON-RPC y al streaming NDJSON.
+ */
+@Configuration
+public class McpJacksonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * Hibernate6Module: Jackson reconoce proxies y colecciones perezosas y
+     * NUNCA los inicializa (FORCE_LAZY_LOADING desactivado).
+     *
+     * Con spring.jpa.open-in-view=false no hay sesión al serializar, así
+     * que una entidad que se colara en una respuesta lanzaría
+     * LazyInitializationException o, peor, con sesión abierta lanzaría
+     * una consulta por colección. Con este módulo:
+     * - Una colección sin cargar se escribe como null
+     * - Un proxy sin cargar se escribe como su ID ({"id": 5})
+     */
+    @Bean
+    public Module hibernate6Module() {
+        Hibernate6Module module = new Hibernate6Module();
+        module.disable(Hibernate6Module.Feature.FORCE_LAZY_LOADING);
+        module.enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+        return module;
+    }
+
+    /**
+     * Serializador de Tuple para los resultados con "fields" (ver
+     * TupleSerializer).
+     */
+    @Bean
+    public Module tupleModule() {
+        return new SimpleModule("TupleModule").addSerializer(Tuple.class, new TupleSerializer());
+    }
+}
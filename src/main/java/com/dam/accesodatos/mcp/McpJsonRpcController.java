@@ -0,0 +1,371 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.ra3.SqlStatementInspector;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Endpoint JSON-RPC 2.0 para herramientas MCP.
+ *
+ * Acepta una petición suelta o un lote (array) de peticiones:
+ *
+ * <pre>
+ * POST /mcp/rpc
+ * [
+ *   {"jsonrpc": "2.0", "id": 1, "method": "tools/call",
+ *    "params": {"name": "find_npc_by_id", "arguments": {"npcId": 1}}},
+ *   {"jsonrpc": "2.0", "id": 2, "method": "tools/call",
+ *    "params": {"name": "find_pedidos_by_npc", "arguments": {"npcId": 1}}}
+ * ]
+ * </pre>
+ *
+ * MODOS DE EJECUCIÓN DE UN LOTE:
+ * - Por defecto: las llamadas se ejecutan en paralelo (pool mcpToolExecutor),
+ * cada una en su propia transacción, y las respuestas se escriben en cuanto
+ * terminan (el orden puede no coincidir con el de la petición; usar el id).
+ * - ?sharedTransaction=true: se ejecutan en orden dentro de UNA transacción
+ * de solo lectura. Las herramientas que modifican datos se rechazan (las
+ * NOT_SUPPORTED, como transfer_data_bulk, se admiten: suspenden esa
+ * transacción y abren las suyas).
+ *
+ * Métodos soportados: tools/list y tools/call.
+ */
+@RestController
+@RequestMapping("/mcp")
+@CrossOrigin(origins = "*")
+public class McpJsonRpcController {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpJsonRpcController.class);
+
+    // Códigos de error definidos por JSON-RPC 2.0
+    static final int PARSE_ERROR = -32700;
+    static final int INVALID_REQUEST = -32600;
+    static final int METHOD_NOT_FOUND = -32601;
+    static final int INVALID_PARAMS = -32602;
+    static final int INTERNAL_ERROR = -32603;
+
+    // Código propio (rango reservado para el servidor: -32000 a -32099)
+    static final int READ_ONLY_VIOLATION = -32001;
+
+    private static final TypeReference<Map<String, Object>> ARGUMENTS_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private McpToolDispatcher toolDispatcher;
+
+    @Autowired
+    private McpToolRegistry toolRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private McpToolMetrics toolMetrics;
+
+    @Autowired
+    private SqlStatementInspector statementInspector;
+
+    @Autowired
+    @Qualifier("mcpToolExecutor")
+    private ExecutorService toolExecutor;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @PostConstruct
+    public void initTransactionTemplates() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Punto de entrada JSON-RPC (petición individual o lote).
+     */
+    @PostMapping(value = "/rpc", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> handle(@RequestBody byte[] body,
+            @RequestParam(name = "sharedTransaction", defaultValue = "false") boolean sharedTransaction) {
+        logger.debug("Petición JSON-RPC recibida");
+
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (IOException e) {
+            payload = null;
+        }
+        if (payload == null || payload.isMissingNode()) {
+            return single(error(NullNode.getInstance(), PARSE_ERROR, "JSON no válido"));
+        }
+
+        // Petición individual: respuesta directa (o 204 si es una notificación)
+        if (!payload.isArray()) {
+            List<JsonNode> responses = new ArrayList<>(1);
+            execute(List.of(payload), sharedTransaction, responses::add);
+            return responses.isEmpty()
+                    ? ResponseEntity.noContent().build()
+                    : single(responses.get(0));
+        }
+
+        List<JsonNode> requests = new ArrayList<>();
+        payload.forEach(requests::add);
+        if (requests.isEmpty()) {
+            return single(error(NullNode.getInstance(), INVALID_REQUEST, "Lote vacío"));
+        }
+
+        // Lote solo de notificaciones: se ejecuta y no se devuelve nada
+        if (requests.stream().allMatch(this::isNotification)) {
+            execute(requests, sharedTransaction, response -> {
+            });
+            return ResponseEntity.noContent().build();
+        }
+
+        // Lote: las respuestas se escriben en streaming según van terminando
+        StreamingResponseBody stream = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                execute(requests, sharedTransaction, response -> {
+                    try {
+                        objectMapper.writeTree(generator, response);
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(stream);
+    }
+
+    private ResponseEntity<StreamingResponseBody> single(JsonNode response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, response));
+    }
+
+    // ========== EJECUCIÓN ==========
+
+    private void execute(List<JsonNode> requests, boolean sharedTransaction, Consumer<JsonNode> sink) {
+        if (sharedTransaction) {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (JsonNode request : requests) {
+                    emit(process(request, true), sink);
+                }
+                // Solo lectura: no hay nada que confirmar
+                status.setRollbackOnly();
+            });
+            return;
+        }
+
+        if (requests.size() == 1) {
+            emit(process(requests.get(0), false), sink);
+            return;
+        }
+
+        // Petición de cada tarea: si una falla sin respuesta, el error
+        // JSON-RPC debe llevar su id (una respuesta por petición con id)
+        CompletionService<JsonNode> completion = new ExecutorCompletionService<>(toolExecutor);
+        Map<Future<JsonNode>, JsonNode> pending = new HashMap<>();
+        for (JsonNode request : requests) {
+            pending.put(completion.submit(() -> process(request, false)), request);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            Future<JsonNode> future;
+            try {
+                future = completion.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Lote JSON-RPC interrumpido", e);
+            }
+            try {
+                emit(future.get(), sink);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Lote JSON-RPC interrumpido", e);
+            } catch (ExecutionException e) {
+                emit(internalError(pending.get(future), e.getCause()), sink);
+            }
+        }
+    }
+
+    /**
+     * Respuesta -32603 para una petición cuyo procesamiento ha fallado fuera
+     * de callTool() (que ya convierte sus errores en respuestas).
+     *
+     * @return respuesta JSON-RPC, o null si es una notificación (sin id)
+     */
+    private JsonNode internalError(JsonNode request, Throwable cause) {
+        logger.error("Error inesperado en lote JSON-RPC", cause);
+        if (isNotification(request)) {
+            return null;
+        }
+        return error(idOf(request), INTERNAL_ERROR, "Error interno: " + cause.getMessage());
+    }
+
+    private void emit(JsonNode response, Consumer<JsonNode> sink) {
+        if (response != null) {
+            sink.accept(response);
+        }
+    }
+
+    /**
+     * Procesa una petición JSON-RPC.
+     *
+     * @return respuesta JSON-RPC, o null si es una notificación (sin id)
+     */
+    private JsonNode process(JsonNode request, boolean insideSharedTransaction) {
+        if (!isValidRequest(request)) {
+            return error(idOf(request), INVALID_REQUEST, "Petición JSON-RPC 2.0 no válida");
+        }
+
+        JsonNode id = idOf(request);
+        JsonNode response = switch (request.get("method").asText()) {
+            case "tools/list" -> result(id, listTools());
+            case "tools/call" -> callTool(id, request.path("params"), insideSharedTransaction);
+            default -> error(id, METHOD_NOT_FOUND, "Método no soportado: " + request.get("method").asText());
+        };
+
+        return request.has("id") ? response : null;
+    }
+
+    private JsonNode callTool(JsonNode id, JsonNode params, boolean insideSharedTransaction) {
+        String toolName = params.path("name").asText(null);
+        if (toolName == null || !toolDispatcher.hasTool(toolName)) {
+            return error(id, INVALID_PARAMS, "Herramienta MCP desconocida: " + toolName);
+        }
+
+        boolean readOnly = toolDispatcher.isReadOnly(toolName);
+        if (insideSharedTransaction && !readOnly) {
+            return error(id, READ_ONLY_VIOLATION,
+                    "La herramienta " + toolName + " modifica datos y no admite transacción compartida de solo lectura");
+        }
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        SqlStatementInspector.Scope sql = statementInspector.openScope(toolName);
+        try {
+            Map<String, Object> arguments = params.hasNonNull("arguments")
+                    ? objectMapper.convertValue(params.get("arguments"), ARGUMENTS_TYPE)
+                    : null;
+
+            // El resultado se convierte a JSON DENTRO de la transacción, como
+            // red de seguridad: las herramientas ya devuelven DTOs completos
+            // (open-in-view está desactivado para los endpoints REST)
+            // NOT_SUPPORTED/NEVER: la herramienta no usa la transacción del
+            // llamante (search_text ni siquiera toca la BD; el importador
+            // abre las suyas), así que no se abre una que solo retendría
+            // una conexión ociosa
+            JsonNode result;
+            if (insideSharedTransaction || !joinsTransaction(toolName)) {
+                result = toolResult(toolName, arguments);
+            } else {
+                TransactionTemplate transaction = readOnly ? readOnlyTransaction : readWriteTransaction;
+                result = transaction.execute(status -> toolResult(toolName, arguments));
+            }
+            failed = false;
+            return result(id, result);
+        } catch (IllegalArgumentException e) {
+            return error(id, INVALID_PARAMS, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error ejecutando herramienta {} por JSON-RPC", toolName, e);
+            return error(id, INTERNAL_ERROR, "Error ejecutando " + toolName + ": " + e.getMessage());
+        } finally {
+            sql.close();
+            toolMetrics.recordCall(toolName, McpToolMetrics.RPC, System.nanoTime() - startNanos, failed);
+            toolMetrics.recordStatements(toolName, McpToolMetrics.RPC, sql.statements());
+        }
+    }
+
+    private boolean joinsTransaction(String toolName) {
+        Propagation propagation = toolDispatcher.getPropagation(toolName);
+        return propagation != Propagation.NOT_SUPPORTED && propagation != Propagation.NEVER;
+    }
+
+    private JsonNode toolResult(String toolName, Map<String, Object> arguments) {
+        Object result = toolDispatcher.invoke(toolName, arguments);
+
+        return objectMapper.valueToTree(McpToolResponse.success(toolName, result));
+    }
+
+    private JsonNode listTools() {
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode tools = result.putArray("tools");
+        for (McpToolRegistry.McpToolInfo tool : toolRegistry.getRegisteredTools()) {
+            tools.addObject()
+                    .put("name", tool.getName())
+                    .put("description", tool.getDescription())
+                    .put("readOnly", toolDispatcher.isReadOnly(tool.getName()));
+        }
+        return result;
+    }
+
+    // ========== UTILIDADES JSON-RPC ==========
+
+    private boolean isValidRequest(JsonNode request) {
+        return request != null
+                && request.isObject()
+                && "2.0".equals(request.path("jsonrpc").asText())
+                && request.path("method").isTextual()
+                && (!request.has("id") || request.get("id").isValueNode());
+    }
+
+    private boolean isNotification(JsonNode request) {
+        return isValidRequest(request) && !request.has("id");
+    }
+
+    private JsonNode idOf(JsonNode request) {
+        JsonNode id = request != null && request.isObject() ? request.get("id") : null;
+        return id != null && id.isValueNode() ? id : NullNode.getInstance();
+    }
+
+    private ObjectNode result(JsonNode id, JsonNode result) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", id);
+        response.set("result", result);
+        return response;
+    }
+
+    private ObjectNode error(JsonNode id, int code, String message) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", id);
+        response.putObject("error")
+                .put("code", code)
+                .put("message", message);
+        return response;
+    }
+}
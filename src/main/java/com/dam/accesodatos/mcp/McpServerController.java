@@ -1,17 +1,32 @@
 package com.dam.accesodatos.mcp;
 
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.dam.accesodatos.ra3.ConcurrencyLimitingDataSource;
+import com.dam.accesodatos.ra3.HibernateCacheMetrics;
 import com.dam.accesodatos.ra3.HibernateNpcService;
 import com.dam.accesodatos.model.*;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Controlador REST que expone las herramientas MCP via HTTP para operaciones
@@ -25,28 +40,82 @@ import java.util.Map;
  * - Listar herramientas Hibernate/JPA disponibles
  * - Ejecutar operaciones ORM específicas con NPCs
  * - Obtener información sobre el servidor MCP
+ *
+ * Las respuestas son records (McpToolResponse, McpToolsResponse,
+ * McpHealthResponse) en lugar de un HashMap por petición.
  */
 @RestController
 @RequestMapping("/mcp")
 @CrossOrigin(origins = "*")
 public class McpServerController {
 
+    /**
+     * NOTA: los logger.debug van dentro de isDebugEnabled(). En el perfil
+     * prod el nivel es INFO y así no se crean los argumentos (autoboxing,
+     * varargs) en cada petición.
+     */
     private static final Logger logger = LoggerFactory.getLogger(McpServerController.class);
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     @Autowired
     private HibernateNpcService hibernateNpcService;
 
     @Autowired
     private McpToolRegistry toolRegistry;
 
+    @Autowired
+    private McpToolDispatcher toolDispatcher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HibernateCacheMetrics cacheMetrics;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    private ObjectWriter npcDtoWriter;
+    private ObjectWriter pedidoDetalleWriter;
+    private ObjectWriter resultWriter;
+
+    /**
+     * Los ObjectWriter del streaming se crean una vez: resuelven el
+     * serializador de cada tipo al arrancar y no en cada petición.
+     *
+     * NOTA: sin FLUSH_AFTER_WRITE_VALUE. Por defecto writeValue() vacía el
+     * buffer tras cada objeto y cada NPC saldría en un trozo HTTP distinto;
+     * así Jackson solo escribe en la respuesta cuando se llena su buffer.
+     */
+    @PostConstruct
+    public void initWriters() {
+        npcDtoWriter = objectMapper.writerFor(NpcDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        pedidoDetalleWriter = objectMapper.writerFor(PedidoDetalleDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Elementos de distinto tipo (NpcDetalleDto o Tuple): el serializador
+        // se resuelve por la clase de cada valor
+        resultWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
     /**
-     * Endpoint de health check
+     * Endpoint de health check (incluye aciertos/fallos de la caché de
+     * segundo nivel y de consultas, conexiones en uso/en espera y, con hilos
+     * virtuales, los hilos clavados detectados)
      */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> getHealth() {
-        Map<String, String> health = new HashMap<>();
-        health.put("status", "UP");
-        health.put("service", "MCP Server RA3 Hibernate/JPA - NPCs");
+    public ResponseEntity<McpHealthResponse> getHealth() {
+        McpHealthResponse health = new McpHealthResponse(
+                "UP",
+                "MCP Server RA3 Hibernate/JPA - NPCs",
+                cacheMetrics.snapshot(),
+                dataSource instanceof ConcurrencyLimitingDataSource guard ? guard.snapshot() : null,
+                pinningMonitor != null ? pinningMonitor.snapshot() : Map.of("enabled", false));
 
         return ResponseEntity.ok(health);
     }
@@ -55,27 +124,46 @@ public class McpServerController {
      * Endpoint para listar todas las herramientas MCP disponibles
      */
     @GetMapping("/tools")
-    public ResponseEntity<Map<String, Object>> getTools() {
-        logger.debug("Solicitadas herramientas MCP Hibernate/JPA disponibles");
-
-        List<McpToolRegistry.McpToolInfo> tools = toolRegistry.getRegisteredTools();
-
-        List<Map<String, String>> toolsList = tools.stream()
-                .map(tool -> {
-                    Map<String, String> toolMap = new HashMap<>();
-                    toolMap.put("name", tool.getName());
-                    toolMap.put("description", tool.getDescription());
-                    return toolMap;
-                })
-                .collect(java.util.stream.Collectors.toList());
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("tools", toolsList);
-        response.put("count", toolsList.size());
-        response.put("server", "MCP Server - RA3 Hibernate/JPA NPCs DAM");
-        response.put("version", "2.0.0");
-
-        return ResponseEntity.ok(response);
+    public ResponseEntity<McpToolsResponse> getTools() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Solicitadas herramientas MCP Hibernate/JPA disponibles");
+        }
+
+        List<McpToolsResponse.Tool> tools = toolRegistry.getRegisteredTools().stream()
+                .map(tool -> new McpToolsResponse.Tool(tool.getName(), tool.getDescription()))
+                .toList();
+
+        return ResponseEntity.ok(new McpToolsResponse(tools, "MCP Server - RA3 Hibernate/JPA NPCs DAM", "2.0.0"));
+    }
+
+    /**
+     * Endpoint genérico: ejecuta cualquier herramienta registrada en
+     * McpToolRegistry a través de McpToolDispatcher.
+     *
+     * Ejemplo: POST /mcp/tools/update_npc/invoke {"npcId": 1, "activo": false}
+     */
+    @PostMapping("/tools/{toolName}/invoke")
+    public ResponseEntity<McpToolResponse<Object>> invokeTool(@PathVariable String toolName,
+            @RequestBody(required = false) Map<String, Object> arguments) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Invocando herramienta MCP genérica");
+        }
+
+        if (!toolDispatcher.hasTool(toolName)) {
+            return ResponseEntity.status(404)
+                    .body(McpToolResponse.error(toolName, "Herramienta MCP desconocida: " + toolName));
+        }
+
+        try {
+            Object result = toolDispatcher.invoke(toolName, arguments);
+
+            return ResponseEntity.ok(McpToolResponse.success(toolName, result));
+        } catch (Exception e) {
+            logger.error("Error ejecutando herramienta {}", toolName, e);
+
+            return ResponseEntity.status(e instanceof IllegalArgumentException ? 400 : 500)
+                    .body(McpToolResponse.error(toolName, "Error ejecutando " + toolName + ": " + e.getMessage()));
+        }
     }
 
     // ========== HIBERNATE/JPA OPERATION ENDPOINTS ==========
@@ -84,27 +172,20 @@ public class McpServerController {
      * Prueba el EntityManager de Hibernate/JPA
      */
     @PostMapping("/test_entity_manager")
-    public ResponseEntity<Map<String, Object>> testEntityManager() {
-        logger.debug("Probando EntityManager");
+    public ResponseEntity<McpToolResponse<String>> testEntityManager() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Probando EntityManager");
+        }
 
         try {
             String result = hibernateNpcService.testEntityManager();
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "test_entity_manager");
-            response.put("result", result);
-            response.put("status", "success");
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(McpToolResponse.success("test_entity_manager", result));
         } catch (Exception e) {
             logger.error("Error probando EntityManager", e);
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error probando EntityManager: " + e.getMessage());
-            error.put("tool", "test_entity_manager");
-            error.put("status", "error");
-
-            return ResponseEntity.status(500).body(error);
+            return ResponseEntity.status(500)
+                    .body(McpToolResponse.error("test_entity_manager", "Error probando EntityManager: " + e.getMessage()));
         }
     }
 
@@ -112,30 +193,23 @@ public class McpServerController {
      * Crea un nuevo NPC usando persist()
      */
     @PostMapping("/create_npc")
-    public ResponseEntity<Map<String, Object>> createNpc(@RequestBody Map<String, String> request) {
-        logger.debug("Creando NPC con Hibernate");
+    public ResponseEntity<McpToolResponse<NpcDto>> createNpc(@RequestBody Map<String, String> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Creando NPC con Hibernate");
+        }
 
         try {
             String nombre = request.get("nombre");
 
             NpcCreateDto dto = new NpcCreateDto(nombre);
-            Npc npc = hibernateNpcService.createNpc(dto);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "create_npc");
-            response.put("result", npc);
-            response.put("status", "success");
+            NpcDto npc = hibernateNpcService.createNpc(dto);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(McpToolResponse.success("create_npc", npc));
         } catch (Exception e) {
             logger.error("Error creando NPC", e);
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error creando NPC: " + e.getMessage());
-            error.put("tool", "create_npc");
-            error.put("status", "error");
-
-            return ResponseEntity.status(500).body(error);
+            return ResponseEntity.status(500)
+                    .body(McpToolResponse.error("create_npc", "Error creando NPC: " + e.getMessage()));
         }
     }
 
@@ -143,95 +217,141 @@ public class McpServerController {
      * Busca un NPC por ID usando find()
      */
     @PostMapping("/find_npc_by_id")
-    public ResponseEntity<Map<String, Object>> findNpcById(@RequestBody Map<String, Object> request) {
-        logger.debug("Buscando NPC por ID");
+    public ResponseEntity<McpToolResponse<NpcDetalleDto>> findNpcById(@RequestBody Map<String, Object> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Buscando NPC por ID");
+        }
 
-        try {
-            Long npcId = ((Number) request.get("npcId")).longValue();
-            Npc npc = hibernateNpcService.findNpcById(npcId);
+        if (!(request.get("npcId") instanceof Number npcId)) {
+            return ResponseEntity.badRequest()
+                    .body(McpToolResponse.error("find_npc_by_id", "Error buscando NPC: npcId es obligatorio"));
+        }
+        Object include = request.get("include");
+        if (include != null && !(include instanceof String)) {
+            return ResponseEntity.badRequest()
+                    .body(McpToolResponse.error("find_npc_by_id", "Error buscando NPC: include debe ser un texto"));
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "find_npc_by_id");
-            response.put("result", npc);
-            response.put("status", "success");
+        try {
+            NpcDetalleDto npc = hibernateNpcService.findNpcById(npcId.longValue(), (String) include);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(McpToolResponse.success("find_npc_by_id", npc));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(McpToolResponse.error("find_npc_by_id", "Error buscando NPC: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("Error buscando NPC", e);
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error buscando NPC: " + e.getMessage());
-            error.put("tool", "find_npc_by_id");
-            error.put("status", "error");
-
-            return ResponseEntity.status(500).body(error);
+            return ResponseEntity.status(500)
+                    .body(McpToolResponse.error("find_npc_by_id", "Error buscando NPC: " + e.getMessage()));
         }
     }
 
     /**
-     * Obtiene todos los NPCs usando JPA Repository
+     * Obtiene todos los NPCs (en streaming, ver McpStreamingResponse).
+     *
+     * Cada NPC se escribe según se lee de la BD: la memoria y el tiempo
+     * hasta el primer byte no dependen del número de NPCs.
+     *
+     * Con "include" (pedidos o pedidos.ingredientes) o "fields" los NPCs se
+     * cargan antes (ver HibernateNpcService.findAll(String, List)) y
+     * después se escriben con el mismo sobre.
      */
     @PostMapping("/find_all_npcs")
-    public ResponseEntity<Map<String, Object>> findAllNpcs() {
-        logger.debug("Obteniendo todos los NPCs");
-
-        try {
-            List<Npc> npcs = hibernateNpcService.findAll();
+    public ResponseEntity<StreamingResponseBody> findAllNpcs(
+            @RequestBody(required = false) Map<String, Object> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Obteniendo todos los NPCs");
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "find_all_npcs");
-            response.put("result", npcs);
-            response.put("count", npcs.size());
-            response.put("status", "success");
+        return streamingNpcs("find_all_npcs", request,
+                hibernateNpcService::streamAllNpcs, hibernateNpcService::findAll);
+    }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error obteniendo NPCs", e);
+    /**
+     * Obtiene todos los NPCs en streaming NDJSON (un objeto JSON por línea).
+     *
+     * La memoria del servidor es constante: cada NPC se escribe en la
+     * respuesta según se lee de la BD (ver HibernateNpcService.streamAllNpcs).
+     */
+    @PostMapping(value = "/find_all_npcs/stream", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllNpcs() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Obteniendo todos los NPCs en streaming NDJSON");
+        }
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error obteniendo NPCs: " + e.getMessage());
-            error.put("tool", "find_all_npcs");
-            error.put("status", "error");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                long total = hibernateNpcService.streamAllNpcs(npc -> {
+                    try {
+                        npcDtoWriter.writeValue(generator, npc);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Streaming NDJSON completado: {} NPCs", total);
+                }
+            }
+        };
 
-            return ResponseEntity.status(500).body(error);
-        }
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
     }
 
     /**
-     * Busca NPCs activos usando JPQL
+     * Importa NPCs con pedidos e ingredientes desde NDJSON en streaming.
+     *
+     * Cada línea es un NpcImportDto. El cuerpo se lee según llega (no se
+     * carga entero en memoria) y se escribe en la BD por bloques de
+     * chunkSize, cada uno en su transacción. Si la BD no da abasto, se deja
+     * de leer la petición (contrapresión).
+     *
+     * Ejemplo:
+     * curl -X POST -H "Content-Type: application/x-ndjson" \
+     *      --data-binary @npcs.ndjson \
+     *      "http://localhost:8083/mcp/transfer_data_bulk/stream?chunkSize=1000"
      */
-    @PostMapping("/find_active_npcs")
-    public ResponseEntity<Map<String, Object>> findActiveNpcs() {
-        logger.debug("Buscando NPCs activos");
+    @PostMapping(value = "/transfer_data_bulk/stream", consumes = NDJSON_VALUE)
+    public ResponseEntity<McpToolResponse<BulkTransferResultDto>> importNpcsNdjson(InputStream body,
+            @RequestParam(name = "chunkSize", defaultValue = "500") int chunkSize) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Importando NPCs desde NDJSON (chunkSize={})", chunkSize);
+        }
 
         try {
-            List<Npc> npcs = hibernateNpcService.findActiveNpcs();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "find_active_npcs");
-            response.put("result", npcs);
-            response.put("count", npcs.size());
-            response.put("status", "success");
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error buscando NPCs activos", e);
+            BulkTransferResultDto result = hibernateNpcService.importNpcsNdjson(body, chunkSize);
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error buscando NPCs activos: " + e.getMessage());
-            error.put("tool", "find_active_npcs");
-            error.put("status", "error");
+            return ResponseEntity.ok(result.error() == null
+                    ? McpToolResponse.success("transfer_data_bulk", result)
+                    : McpToolResponse.partial("transfer_data_bulk", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(McpToolResponse.error("transfer_data_bulk", e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.status(500).body(error);
+    /**
+     * Busca NPCs activos usando JPQL (en streaming)
+     */
+    @PostMapping("/find_active_npcs")
+    public ResponseEntity<StreamingResponseBody> findActiveNpcs(
+            @RequestBody(required = false) Map<String, Object> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Buscando NPCs activos");
         }
+
+        return streamingNpcs("find_active_npcs", request,
+                hibernateNpcService::streamActiveNpcs, hibernateNpcService::findActiveNpcs);
     }
 
     /**
      * Añade un pedido a un NPC
      */
     @PostMapping("/add_pedido_to_npc")
-    public ResponseEntity<Map<String, Object>> addPedidoToNpc(@RequestBody Map<String, Object> request) {
-        logger.debug("Añadiendo pedido a NPC");
+    public ResponseEntity<McpToolResponse<PedidoDetalleDto>> addPedidoToNpc(@RequestBody Map<String, Object> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Añadiendo pedido a NPC");
+        }
 
         try {
             Long npcId = ((Number) request.get("npcId")).longValue();
@@ -252,53 +372,80 @@ public class McpServerController {
                 dto.setIngredientes(ingredientes);
             }
 
-            Pedido pedido = hibernateNpcService.addPedidoToNpc(npcId, dto);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "add_pedido_to_npc");
-            response.put("result", pedido);
-            response.put("status", "success");
+            PedidoDetalleDto pedido = hibernateNpcService.addPedidoToNpc(npcId, dto);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(McpToolResponse.success("add_pedido_to_npc", pedido));
         } catch (Exception e) {
             logger.error("Error añadiendo pedido", e);
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error añadiendo pedido: " + e.getMessage());
-            error.put("tool", "add_pedido_to_npc");
-            error.put("status", "error");
-
-            return ResponseEntity.status(500).body(error);
+            return ResponseEntity.status(500)
+                    .body(McpToolResponse.error("add_pedido_to_npc", "Error añadiendo pedido: " + e.getMessage()));
         }
     }
 
     /**
-     * Obtiene los pedidos de un NPC
+     * Obtiene los pedidos de un NPC con sus ingredientes (en streaming)
      */
     @PostMapping("/find_pedidos_by_npc")
-    public ResponseEntity<Map<String, Object>> findPedidosByNpc(@RequestBody Map<String, Object> request) {
-        logger.debug("Obteniendo pedidos de NPC");
-
-        try {
-            Long npcId = ((Number) request.get("npcId")).longValue();
-            List<Pedido> pedidos = hibernateNpcService.findPedidosByNpc(npcId);
+    public ResponseEntity<StreamingResponseBody> findPedidosByNpc(@RequestBody Map<String, Object> request) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Obteniendo pedidos de NPC");
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("tool", "find_pedidos_by_npc");
-            response.put("result", pedidos);
-            response.put("count", pedidos.size());
-            response.put("status", "success");
+        if (!(request.get("npcId") instanceof Number npcId)) {
+            return streamingError("find_pedidos_by_npc", "Error obteniendo pedidos: npcId es obligatorio");
+        }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error obteniendo pedidos", e);
+        return this.<PedidoDetalleDto>streaming("find_pedidos_by_npc", pedidoDetalleWriter,
+                consumer -> hibernateNpcService.streamPedidosByNpc(npcId.longValue(), consumer));
+    }
 
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error obteniendo pedidos: " + e.getMessage());
-            error.put("tool", "find_pedidos_by_npc");
-            error.put("status", "error");
+    /**
+     * Listado de NPCs: sin include ni fields, en streaming desde la BD; si
+     * no, la lista que devuelve la herramienta (toolMethod), que se calcula
+     * antes de responder para devolver 400 si los argumentos no son válidos.
+     */
+    private ResponseEntity<StreamingResponseBody> streamingNpcs(String tool, Map<String, Object> request,
+            ToLongFunction<Consumer<NpcDto>> stream, BiFunction<String, List<String>, List<?>> toolMethod) {
+        Object includeArg = request != null ? request.get("include") : null;
+        Object fieldsArg = request != null ? request.get("fields") : null;
+        if (includeArg != null && !(includeArg instanceof String)) {
+            return streamingError(tool, "include debe ser un texto");
+        }
+        if (fieldsArg != null && !(fieldsArg instanceof List<?> list && list.stream().allMatch(String.class::isInstance))) {
+            return streamingError(tool, "fields debe ser una lista de textos");
+        }
+        String include = (String) includeArg;
+        @SuppressWarnings("unchecked")
+        List<String> fields = (List<String>) fieldsArg;
 
-            return ResponseEntity.status(500).body(error);
+        List<?> result;
+        try {
+            if (!NpcInclude.parse(include, NpcInclude.NONE).pedidos() && (fields == null || fields.isEmpty())) {
+                return streaming(tool, npcDtoWriter, stream);
+            }
+            result = toolMethod.apply(include, fields);
+        } catch (IllegalArgumentException e) {
+            return streamingError(tool, e.getMessage());
         }
+
+        return this.<Object>streaming(tool, resultWriter, consumer -> {
+            result.forEach(consumer);
+            return result.size();
+        });
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamingError(String tool, String message) {
+        McpToolResponse<Object> error = McpToolResponse.error(tool, message);
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, error));
+    }
+
+    private <T> ResponseEntity<StreamingResponseBody> streaming(String tool, ObjectWriter elementWriter,
+            ToLongFunction<Consumer<T>> source) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new McpStreamingResponse<>(objectMapper, elementWriter, tool, source));
     }
 }
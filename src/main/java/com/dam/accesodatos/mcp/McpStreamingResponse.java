@@ -0,0 +1,95 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Respuesta de una herramienta con el mismo sobre que McpToolResponse,
+ * pero escrita en streaming con JsonGenerator:
+ * {"tool": ..., "result": [ ...elementos... ], "count": N, "status": ...}
+ *
+ * Cada elemento se escribe en la respuesta HTTP según se lee de la BD
+ * (métodos stream* de HibernateNpcService), así que:
+ * - El primer byte sale en cuanto empieza la consulta, no al terminarla
+ * - La memoria no depende del número de filas: ni List con el resultado
+ * ni cuerpo completo en memoria
+ *
+ * ERRORES A MITAD:
+ * La cabecera HTTP (200) ya se ha enviado. Se cierra el array y el sobre
+ * termina con "status": "error" y el mensaje, de modo que el cliente
+ * siempre recibe un JSON válido y puede distinguir un resultado incompleto.
+ *
+ * @param <T> Tipo de cada elemento de result
+ */
+public final class McpStreamingResponse<T> implements StreamingResponseBody {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpStreamingResponse.class);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter elementWriter;
+    private final String tool;
+    private final ToLongFunction<Consumer<T>> source;
+
+    /**
+     * @param elementWriter Writer de T. Debe tener desactivado
+     *                      SerializationFeature.FLUSH_AFTER_WRITE_VALUE: si no,
+     *                      cada elemento vacía el buffer y sale en un trozo
+     *                      HTTP distinto
+     * @param source        Recorre el resultado entregando cada elemento al
+     *                      Consumer y devuelve cuántos ha entregado
+     */
+    public McpStreamingResponse(ObjectMapper objectMapper, ObjectWriter elementWriter, String tool,
+            ToLongFunction<Consumer<T>> source) {
+        this.objectMapper = objectMapper;
+        this.elementWriter = elementWriter;
+        this.tool = tool;
+        this.source = source;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeStringField("tool", tool);
+            generator.writeArrayFieldStart("result");
+            generator.flush();
+
+            long[] written = new long[1];
+            String error = null;
+            try {
+                source.applyAsLong(element -> {
+                    try {
+                        elementWriter.writeValue(generator, element);
+                        written[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // El cliente ha cerrado la conexión: no se puede escribir más
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                logger.error("Error en la respuesta en streaming de {}", tool, e);
+                error = "Error ejecutando " + tool + ": " + e.getMessage();
+            }
+
+            generator.writeEndArray();
+            generator.writeNumberField("count", written[0]);
+            generator.writeStringField("status", error == null ? McpToolResponse.SUCCESS : McpToolResponse.ERROR);
+            if (error != null) {
+                generator.writeStringField("error", error);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
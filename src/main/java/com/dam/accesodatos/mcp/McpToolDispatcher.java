@@ -0,0 +1,266 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.mcp.server.annotation.ToolParam;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Despachador genérico de herramientas MCP.
+ *
+ * Al arrancar, convierte cada Method registrado en McpToolRegistry en un
+ * MethodHandle ya enlazado al servicio, junto con un "binder" precalculado
+ * por parámetro que extrae el argumento del JSON de entrada.
+ *
+ * Así, cada llamada cuesta una búsqueda en un mapa y una invocación directa,
+ * sin reflexión (Method.invoke) ni código específico por endpoint.
+ *
+ * REGLAS DE ENLACE DE ARGUMENTOS:
+ * - Tipos simples (Long, String, Boolean...) y colecciones: se leen de la
+ * clave indicada en @ToolParam (o el nombre del parámetro)
+ * - DTOs: si existe esa clave se convierte su valor; si no, se convierte
+ * el JSON completo (ej: {"npcId": 1, "comentario": "..."} rellena
+ * npcId y el PedidoCreateDto a la vez)
+ */
+@Component
+public class McpToolDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpToolDispatcher.class);
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    @Autowired
+    private McpToolRegistry toolRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Map<String, ToolInvoker> invokers = Collections.emptyMap();
+
+    @PostConstruct
+    public void compileInvokers() {
+        Map<String, ToolInvoker> compiled = new HashMap<>();
+
+        for (McpToolRegistry.McpToolInfo tool : toolRegistry.getRegisteredTools()) {
+            compiled.put(tool.getName(), compile(tool));
+        }
+
+        invokers = Map.copyOf(compiled);
+        logger.info("Despachador MCP: {} herramientas precompiladas con MethodHandle", invokers.size());
+    }
+
+    /**
+     * Indica si existe una herramienta con ese nombre.
+     */
+    public boolean hasTool(String toolName) {
+        return invokers.containsKey(toolName);
+    }
+
+    /**
+     * Indica si la herramienta es de solo lectura, según el @Transactional
+     * de su implementación (método o, en su defecto, clase).
+     *
+     * Las herramientas NOT_SUPPORTED o NEVER también cuentan como de solo
+     * lectura: no escriben en la transacción del llamante (la suspenden o
+     * no admiten ninguna) y gestionan las suyas propias si las necesitan.
+     *
+     * @throws IllegalArgumentException si la herramienta no existe
+     */
+    public boolean isReadOnly(String toolName) {
+        ToolInvoker invoker = invoker(toolName);
+        return invoker.readOnly
+                || invoker.propagation == Propagation.NOT_SUPPORTED
+                || invoker.propagation == Propagation.NEVER;
+    }
+
+    /**
+     * Propagación del @Transactional de la herramienta (REQUIRED si no
+     * declara ninguna).
+     *
+     * @throws IllegalArgumentException si la herramienta no existe
+     */
+    public Propagation getPropagation(String toolName) {
+        return invoker(toolName).propagation;
+    }
+
+    /**
+     * Ejecuta una herramienta MCP a partir de sus argumentos JSON.
+     *
+     * @param toolName  Nombre de la herramienta (ej: "find_npc_by_id")
+     * @param arguments Argumentos JSON ya deserializados (puede ser null)
+     * @return Resultado devuelto por el método del servicio
+     * @throws IllegalArgumentException si la herramienta no existe o faltan
+     *                                  argumentos
+     */
+    public Object invoke(String toolName, Map<String, Object> arguments) {
+        return invoker(toolName).invoke(arguments != null ? arguments : Collections.emptyMap());
+    }
+
+    private ToolInvoker invoker(String toolName) {
+        ToolInvoker invoker = invokers.get(toolName);
+        if (invoker == null) {
+            throw new IllegalArgumentException("Herramienta MCP desconocida: " + toolName);
+        }
+        return invoker;
+    }
+
+    // ========== COMPILACIÓN DE INVOKERS ==========
+
+    private ToolInvoker compile(McpToolRegistry.McpToolInfo tool) {
+        Method method = tool.getMethod();
+
+        try {
+            // unreflect + bindTo: el servicio queda fijado como receptor.
+            // asSpreader + asType: firma uniforme (Object[]) -> Object para invokeExact
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .unreflect(method)
+                    .bindTo(tool.getService())
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKER_TYPE);
+
+            Parameter[] parameters = method.getParameters();
+            ArgumentBinder[] binders = new ArgumentBinder[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                binders[i] = compileBinder(parameters[i]);
+            }
+
+            Transactional transactional = findTransactional(tool);
+            return new ToolInvoker(tool.getName(), handle, binders,
+                    transactional != null && transactional.readOnly(),
+                    transactional != null ? transactional.propagation() : Propagation.REQUIRED);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("No se puede acceder a la herramienta " + tool.getName(), e);
+        }
+    }
+
+    private Transactional findTransactional(McpToolRegistry.McpToolInfo tool) {
+        Class<?> targetClass = AopUtils.getTargetClass(tool.getService());
+        Method implementation = AopUtils.getMostSpecificMethod(tool.getMethod(), targetClass);
+
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(implementation, Transactional.class);
+        if (transactional == null) {
+            transactional = AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class);
+        }
+        return transactional;
+    }
+
+    private ArgumentBinder compileBinder(Parameter parameter) {
+        ToolParam annotation = parameter.getAnnotation(ToolParam.class);
+        String name = annotation != null && !annotation.name().isEmpty() ? annotation.name() : parameter.getName();
+        boolean required = parameter.getType().isPrimitive() || annotation == null || annotation.required();
+
+        JavaType type = objectMapper.getTypeFactory().constructType(parameter.getParameterizedType());
+        Function<Object, Object> converter = converterFor(type);
+
+        if (isBean(type)) {
+            // DTO: valor de su clave si existe, si no el JSON completo
+            return arguments -> converter.apply(arguments.containsKey(name) ? arguments.get(name) : arguments);
+        }
+
+        return arguments -> {
+            Object raw = arguments.get(name);
+            if (raw == null) {
+                if (required) {
+                    throw new IllegalArgumentException("Falta el argumento obligatorio '" + name + "'");
+                }
+                return null;
+            }
+            return converter.apply(raw);
+        };
+    }
+
+    private boolean isBean(JavaType type) {
+        Class<?> raw = type.getRawClass();
+        return !type.isContainerType()
+                && !type.isPrimitive()
+                && !raw.isEnum()
+                && !Number.class.isAssignableFrom(raw)
+                && !CharSequence.class.isAssignableFrom(raw)
+                && raw != Boolean.class
+                && !raw.getName().startsWith("java.");
+    }
+
+    /**
+     * Conversores precalculados. Los tipos más habituales (IDs numéricos y
+     * textos) evitan pasar por ObjectMapper.convertValue().
+     */
+    private Function<Object, Object> converterFor(JavaType type) {
+        Class<?> raw = type.getRawClass();
+
+        if (raw == Long.class || raw == long.class) {
+            return value -> value instanceof Number n ? (Object) n.longValue() : objectMapper.convertValue(value, type);
+        }
+        if (raw == Integer.class || raw == int.class) {
+            return value -> value instanceof Number n ? (Object) n.intValue() : objectMapper.convertValue(value, type);
+        }
+        if (raw == String.class || raw == Boolean.class || raw == boolean.class) {
+            return value -> raw.isInstance(value) || (raw == boolean.class && value instanceof Boolean)
+                    ? value
+                    : objectMapper.convertValue(value, type);
+        }
+        return value -> objectMapper.convertValue(value, type);
+    }
+
+    // ========== TIPOS INTERNOS ==========
+
+    /**
+     * Extrae un argumento del método a partir del JSON de entrada.
+     */
+    @FunctionalInterface
+    private interface ArgumentBinder {
+        Object bind(Map<String, Object> arguments);
+    }
+
+    /**
+     * Herramienta precompilada: MethodHandle enlazado + binders de argumentos.
+     */
+    private static final class ToolInvoker {
+        private final String name;
+        private final MethodHandle handle;
+        private final ArgumentBinder[] binders;
+        private final boolean readOnly;
+        private final Propagation propagation;
+
+        private ToolInvoker(String name, MethodHandle handle, ArgumentBinder[] binders,
+                boolean readOnly, Propagation propagation) {
+            this.name = name;
+            this.handle = handle;
+            this.binders = binders;
+            this.readOnly = readOnly;
+            this.propagation = propagation;
+        }
+
+        private Object invoke(Map<String, Object> arguments) {
+            Object[] args = new Object[binders.length];
+            for (int i = 0; i < binders.length; i++) {
+                args[i] = binders[i].bind(arguments);
+            }
+
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException("Error ejecutando herramienta " + name, t);
+            }
+        }
+    }
+}
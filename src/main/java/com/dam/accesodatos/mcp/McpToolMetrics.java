@@ -0,0 +1,81 @@
+package com.dam.accesodatos.mcp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas Micrometer por herramienta MCP.
+ *
+ * - mcp.tool.calls (Timer): duración de cada llamada. Etiquetas tool,
+ * transport (rest | rpc) y outcome (success | error). El número de errores
+ * es el count con outcome=error.
+ * - mcp.tool.response.size (DistributionSummary, bytes): tamaño de la
+ * respuesta HTTP (solo transport=rest; en JSON-RPC varias llamadas
+ * comparten respuesta).
+ * - mcp.tool.sql.statements (DistributionSummary): sentencias SQL por
+ * llamada (SqlStatementInspector).
+ *
+ * Solo se etiqueta con nombres de herramientas registradas, así el número
+ * de series es fijo.
+ */
+@Component
+public class McpToolMetrics {
+
+    public static final String REST = "rest";
+    public static final String RPC = "rpc";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Micrometer ya reutiliza los meters registrados, pero buscarlos crea
+    // un Meter.Id por llamada; se guardan por clave
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> sizes = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Registra una llamada terminada.
+     */
+    public void recordCall(String tool, String transport, long elapsedNanos, boolean error) {
+        String outcome = error ? "error" : "success";
+        timers.computeIfAbsent(tool + '|' + transport + '|' + outcome, key -> Timer.builder("mcp.tool.calls")
+                .description("Duración de las llamadas a herramientas MCP")
+                .tag("tool", tool)
+                .tag("transport", transport)
+                .tag("outcome", outcome)
+                .register(registry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra el tamaño de una respuesta.
+     */
+    public void recordResponseSize(String tool, String transport, long bytes) {
+        sizes.computeIfAbsent(tool + '|' + transport, key -> DistributionSummary.builder("mcp.tool.response.size")
+                .description("Tamaño de las respuestas de herramientas MCP")
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .tag("transport", transport)
+                .register(registry))
+                .record(bytes);
+    }
+
+    /**
+     * Registra las sentencias SQL ejecutadas en una llamada.
+     */
+    public void recordStatements(String tool, String transport, int count) {
+        statements.computeIfAbsent(tool + '|' + transport, key -> DistributionSummary.builder("mcp.tool.sql.statements")
+                .description("Sentencias SQL por llamada a herramienta MCP")
+                .tag("tool", tool)
+                .tag("transport", transport)
+                .register(registry))
+                .record(count);
+    }
+}
@@ -0,0 +1,178 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.ra3.SqlStatementInspector;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Mide las llamadas REST a herramientas MCP (McpToolMetrics, transport=rest).
+ *
+ * La herramienta se obtiene de la ruta:
+ * - /mcp/{tool} y /mcp/{tool}/stream (endpoints escritos a mano)
+ * - /mcp/tools/{tool}/invoke (endpoint genérico)
+ *
+ * El resto de rutas (/mcp/health, /mcp/rpc...) no se miden aquí. El
+ * tamaño de la respuesta se cuenta al escribirla, sin guardarla en memoria.
+ *
+ * Con respuestas asíncronas (StreamingResponseBody) la medición termina
+ * cuando se completa la respuesta, no al salir del controlador.
+ *
+ * También abre el ámbito de SqlStatementInspector de la llamada (sentencias
+ * SQL y detección de N+1 por herramienta). En respuestas asíncronas solo
+ * cubre la parte ejecutada en el hilo de la petición.
+ */
+@Component
+public class McpToolMetricsFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/mcp/";
+
+    @Autowired
+    private McpToolMetrics toolMetrics;
+
+    @Autowired
+    private McpToolDispatcher toolDispatcher;
+
+    @Autowired
+    private SqlStatementInspector statementInspector;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return toolName(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tool = toolName(request);
+        long startNanos = System.nanoTime();
+        CountingResponse counting = new CountingResponse(response);
+        boolean completed = false;
+        try (SqlStatementInspector.Scope sql = statementInspector.openScope(tool)) {
+            chain.doFilter(request, counting);
+            completed = true;
+            toolMetrics.recordStatements(tool, McpToolMetrics.REST, sql.statements());
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(tool, startNanos, counting, false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        record(tool, startNanos, counting, true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        record(tool, startNanos, counting, true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        // Sin cambios: se sigue midiendo la misma petición
+                    }
+                });
+            } else {
+                record(tool, startNanos, counting, !completed);
+            }
+        }
+    }
+
+    private void record(String tool, long startNanos, CountingResponse response, boolean failed) {
+        boolean error = failed || response.getStatus() >= 400;
+        toolMetrics.recordCall(tool, McpToolMetrics.REST, System.nanoTime() - startNanos, error);
+        toolMetrics.recordResponseSize(tool, McpToolMetrics.REST, response.bytesWritten());
+    }
+
+    /**
+     * Nombre de la herramienta registrada a la que va la petición, o null.
+     */
+    private String toolName(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] segments = path.substring(PREFIX.length()).split("/");
+        String candidate;
+        if (segments.length == 3 && "tools".equals(segments[0]) && "invoke".equals(segments[2])) {
+            candidate = segments[1];
+        } else if (segments.length == 1 || (segments.length == 2 && "stream".equals(segments[1]))) {
+            candidate = segments[0];
+        } else {
+            return null;
+        }
+        return toolDispatcher.hasTool(candidate) ? candidate : null;
+    }
+
+    /**
+     * Respuesta que cuenta los bytes escritos en su OutputStream.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private ServletOutputStream countingStream;
+        private volatile long bytes;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private long bytesWritten() {
+            return bytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (countingStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                countingStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] buffer, int offset, int length) throws IOException {
+                        target.write(buffer, offset, length);
+                        bytes += length;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        target.setWriteListener(listener);
+                    }
+                };
+            }
+            return countingStream;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Collection;
+
+/**
+ * Sobre de respuesta de las herramientas MCP:
+ * {"tool": ..., "result": ..., "count": ..., "status": ..., "error": ...}
+ *
+ * ANTES: cada endpoint creaba un HashMap nuevo y Jackson lo recorría
+ * entrada a entrada, buscando el serializador de cada valor en cada
+ * petición; además el orden de los campos dependía del hash.
+ *
+ * AHORA: un record inmutable. Jackson calcula su serializador una sola vez
+ * (los campos y su orden son fijos) y el esquema de la respuesta queda
+ * documentado en el código. Los campos null no se escriben: una respuesta
+ * correcta no lleva "error" y un error no lleva "result".
+ *
+ * @param <T> Tipo del resultado de la herramienta
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "tool", "result", "count", "status", "error" })
+public record McpToolResponse<T>(String tool, T result, Integer count, String status, String error) {
+
+    public static final String SUCCESS = "success";
+    public static final String PARTIAL = "partial";
+    public static final String ERROR = "error";
+
+    /**
+     * Respuesta correcta. Si el resultado es una colección, incluye count.
+     */
+    public static <T> McpToolResponse<T> success(String tool, T result) {
+        return new McpToolResponse<>(tool, result, countOf(result), SUCCESS, null);
+    }
+
+    /**
+     * Resultado parcial: la herramienta terminó, pero con un error (por
+     * ejemplo una importación detenida a mitad).
+     */
+    public static <T> McpToolResponse<T> partial(String tool, T result) {
+        return new McpToolResponse<>(tool, result, countOf(result), PARTIAL, null);
+    }
+
+    /**
+     * Respuesta de error, sin resultado.
+     */
+    public static <T> McpToolResponse<T> error(String tool, String message) {
+        return new McpToolResponse<>(tool, null, null, ERROR, message);
+    }
+
+    private static Integer countOf(Object result) {
+        return result instanceof Collection<?> collection ? collection.size() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dam.accesodatos.mcp;
+
+import java.util.List;
+
+/**
+ * Respuesta de GET /mcp/tools: herramientas registradas y datos del
+ * servidor.
+ */
+public record McpToolsResponse(List<Tool> tools, int count, String server, String version) {
+
+    public McpToolsResponse(List<Tool> tools, String server, String version) {
+        this(tools, tools.size(), server, version);
+    }
+
+    /**
+     * Herramienta MCP: nombre y descripción para el LLM.
+     */
+    public record Tool(String name, String description) {
+    }
+}
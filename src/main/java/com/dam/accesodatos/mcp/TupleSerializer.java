@@ -0,0 +1,32 @@
+package com.dam.accesodatos.mcp;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+
+import java.io.IOException;
+
+/**
+ * Escribe un jakarta.persistence.Tuple como objeto JSON: una propiedad por
+ * elemento, con su alias como nombre y en el orden del SELECT.
+ *
+ * Lo usan las herramientas con "fields" (ver HibernateNpcService): la fila
+ * va de la BD al JSON sin pasar por una entidad, un DTO ni un Map.
+ */
+public class TupleSerializer extends StdSerializer<Tuple> {
+
+    public TupleSerializer() {
+        super(Tuple.class);
+    }
+
+    @Override
+    public void serialize(Tuple tuple, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(tuple);
+        for (TupleElement<?> element : tuple.getElements()) {
+            provider.defaultSerializeField(element.getAlias(), tuple.get(element), generator);
+        }
+        generator.writeEndObject();
+    }
+}
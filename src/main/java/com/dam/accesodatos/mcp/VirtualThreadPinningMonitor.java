@@ -0,0 +1,129 @@
+package com.dam.accesodatos.mcp;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Detecta hilos virtuales "clavados" (pinned) a su hilo portador.
+ *
+ * Un hilo virtual que se bloquea (E/S, lock, wait) dentro de un bloque
+ * synchronized no puede soltar el hilo portador: mientras tanto ese portador
+ * no atiende a nadie más. Con pocos portadores (uno por núcleo) unas cuantas
+ * esperas así dejan al servidor sin capacidad. En el camino JDBC/Hibernate
+ * es fácil que ocurra (drivers y cachés que usan synchronized).
+ *
+ * Se escucha el evento JFR jdk.VirtualThreadPinned en el propio proceso
+ * (RecordingStream): cada vez que un hilo virtual pasa más de
+ * mcp.virtual-threads.pinned-threshold clavado se registra un aviso con la
+ * pila y se cuenta por el punto (primer método de la aplicación o del
+ * driver) donde ha ocurrido.
+ *
+ * Solo se activa con spring.threads.virtual.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Marcos de pila que se muestran en el log.
+     */
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private RecordingStream recording;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${mcp.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        logger.info("Monitor de hilos virtuales clavados activo (umbral {} ms)", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Contadores para /mcp/health.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", true);
+        snapshot.put("pinnedThresholdMillis", threshold.toMillis());
+        snapshot.put("pinnedEvents", pinnedEvents.sum());
+        Map<String, Long> sites = new LinkedHashMap<>();
+        pinnedBySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> sites.put(entry.getKey(), entry.getValue().sum()));
+        snapshot.put("pinnedBySite", sites);
+        return snapshot;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        pinnedBySite.computeIfAbsent(site(frames), key -> new LongAdder()).increment();
+
+        String thread = event.getThread("eventThread") != null
+                ? event.getThread("eventThread").getJavaName()
+                : "?";
+        logger.warn("Hilo virtual {} clavado {} ms:\n\t{}", thread, event.getDuration().toMillis(),
+                frames.stream()
+                        .limit(LOGGED_FRAMES)
+                        .map(VirtualThreadPinningMonitor::describe)
+                        .collect(Collectors.joining("\n\t")));
+    }
+
+    /**
+     * Primer marco que no es del JDK: donde la aplicación (o el driver, o
+     * Hibernate) ha entrado en el synchronized.
+     */
+    private static String site(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::describe)
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.")
+                        && !frame.startsWith("sun."))
+                .findFirst()
+                .orElse("desconocido");
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
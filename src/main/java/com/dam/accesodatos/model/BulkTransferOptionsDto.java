@@ -0,0 +1,82 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Opciones de la importación masiva de NPCs (transfer_data_bulk).
+ * Todos los campos son opcionales.
+ */
+public class BulkTransferOptionsDto {
+
+    /**
+     * NPCs por bloque: cada bloque se envía a la BD (flush) y se vacía el
+     * contexto de persistencia (clear). Por defecto 500.
+     */
+    private Integer chunkSize;
+
+    /**
+     * true: cada bloque se confirma en su propia transacción (un error solo
+     * afecta a su bloque). false (defecto): todo o nada.
+     */
+    private Boolean commitPerChunk;
+
+    /**
+     * Posición de la lista desde la que continuar (el nextIndex devuelto por
+     * una importación anterior interrumpida). Por defecto 0.
+     */
+    private Integer resumeFrom;
+
+    /**
+     * Forzar (true) o desactivar (false) el uso de StatelessSession. Si no se
+     * indica, se usa cuando ningún NPC trae pedidos (no hay cascada).
+     */
+    private Boolean statelessSession;
+
+    public BulkTransferOptionsDto() {
+    }
+
+    public BulkTransferOptionsDto(Integer chunkSize, Boolean commitPerChunk) {
+        this.chunkSize = chunkSize;
+        this.commitPerChunk = commitPerChunk;
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Boolean getCommitPerChunk() {
+        return commitPerChunk;
+    }
+
+    public void setCommitPerChunk(Boolean commitPerChunk) {
+        this.commitPerChunk = commitPerChunk;
+    }
+
+    public Integer getResumeFrom() {
+        return resumeFrom;
+    }
+
+    public void setResumeFrom(Integer resumeFrom) {
+        this.resumeFrom = resumeFrom;
+    }
+
+    public Boolean getStatelessSession() {
+        return statelessSession;
+    }
+
+    public void setStatelessSession(Boolean statelessSession) {
+        this.statelessSession = statelessSession;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkTransferOptionsDto{" +
+                "chunkSize=" + chunkSize +
+                ", commitPerChunk=" + commitPerChunk +
+                ", resumeFrom=" + resumeFrom +
+                ", statelessSession=" + statelessSession +
+                '}';
+    }
+}
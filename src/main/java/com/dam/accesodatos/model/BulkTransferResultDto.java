@@ -0,0 +1,40 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de NPCs (transfer_data_bulk).
+ *
+ * @param mode            "stateless" (StatelessSession) o "stateful"
+ *                        (EntityManager con cascada)
+ * @param commitPerChunk  Si cada bloque se confirmó por separado
+ * @param total           NPCs recibidos
+ * @param inserted        NPCs insertados en esta llamada
+ * @param failed          NPCs rechazados (validación o error de BD)
+ * @param chunks          Bloques procesados
+ * @param nextIndex       Posición desde la que reanudar (resumeFrom); igual a
+ *                        total si se ha procesado toda la lista
+ * @param elapsedMillis   Duración de la importación
+ * @param rowsPerSecond   NPCs insertados por segundo
+ * @param failedRows      Detalle de los NPCs rechazados (como máximo 1000)
+ * @param error           Motivo por el que se detuvo la importación antes de
+ *                        terminar (null si se procesó toda la entrada)
+ */
+public record BulkTransferResultDto(String mode, boolean commitPerChunk, int total, int inserted, int failed,
+        int chunks, int nextIndex, long elapsedMillis, double rowsPerSecond, List<FailedRow> failedRows,
+        String error) {
+
+    public BulkTransferResultDto {
+        failedRows = failedRows == null ? List.of() : List.copyOf(failedRows);
+    }
+
+    /**
+     * NPC rechazado.
+     *
+     * @param index  Posición en la lista de entrada
+     * @param nombre Nombre del NPC (para identificarlo)
+     * @param error  Motivo del rechazo
+     */
+    public record FailedRow(int index, String nombre, String error) {
+    }
+}
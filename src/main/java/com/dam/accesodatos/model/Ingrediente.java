@@ -2,6 +2,8 @@ package com.dam.accesodatos.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.Objects;
 
@@ -19,16 +21,23 @@ import java.util.Objects;
  * - @ManyToOne: Relación muchos a uno con Pedido
  * - @JoinColumn: Define la columna FK en la tabla ingredientes
  *
+ * BÚSQUEDA POR NOMBRE: nombre_normalizado (LOWER(nombre), generada por la
+ * BD e indexada), igual que en Npc.
+ *
  * NOTA PEDAGÓGICA:
  * Esta es la entidad más simple de la jerarquía. Solo tiene una relación
  * hacia arriba (Pedido) y no tiene colecciones propias.
  */
 @Entity
-@Table(name = "ingredientes")
+@Table(name = "ingredientes", indexes = @Index(name = "idx_ingredientes_nombre_normalizado", columnList = "nombre_normalizado"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingrediente")
 public class Ingrediente {
 
+    // Secuencia con bloques de 50 IDs (permite INSERT en lotes, ver Npc.id)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredientes_seq")
+    @SequenceGenerator(name = "ingredientes_seq", sequenceName = "ingredientes_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -37,6 +46,11 @@ public class Ingrediente {
     @Size(max = 100, message = "El nombre no puede exceder 100 caracteres")
     private String nombre;
 
+    // Columna generada por la BD: solo para consultas (ver Npc.nombreNormalizado)
+    @Column(name = "nombre_normalizado", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(100) GENERATED ALWAYS AS (LOWER(nombre))")
+    private String nombreNormalizado;
+
     @Column(name = "cantidad")
     @Min(value = 1, message = "La cantidad mínima es 1")
     private Integer cantidad;
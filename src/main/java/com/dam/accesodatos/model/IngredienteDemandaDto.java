@@ -0,0 +1,16 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Demanda total de un ingrediente (fila de la herramienta ingredient_demand).
+ *
+ * NOTA PEDAGÓGICA:
+ * Se construye con una "constructor expression" sobre una consulta
+ * agregada: SELECT new ...(i.nombre, SUM(i.cantidad), COUNT(DISTINCT p.id))
+ * ... GROUP BY i.nombre. En JPQL, SUM de un entero devuelve Long.
+ *
+ * @param nombre        Nombre del ingrediente
+ * @param cantidadTotal Suma de cantidad en todos los pedidos
+ * @param pedidos       Número de pedidos distintos que lo incluyen
+ */
+public record IngredienteDemandaDto(String nombre, Long cantidadTotal, Long pedidos) {
+}
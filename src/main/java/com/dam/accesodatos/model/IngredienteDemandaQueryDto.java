@@ -0,0 +1,70 @@
+package com.dam.accesodatos.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con los filtros opcionales de la herramienta ingredient_demand
+ *
+ * - activo: solo pedidos de NPCs activos (true) o inactivos (false)
+ * - desde / hasta: rango de Pedido.createdAt (desde incluido, hasta excluido)
+ * - limit: número máximo de ingredientes (los de mayor cantidad total)
+ */
+public class IngredienteDemandaQueryDto {
+
+    private Boolean activo;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private Integer limit;
+
+    public IngredienteDemandaQueryDto() {
+    }
+
+    public IngredienteDemandaQueryDto(Boolean activo, LocalDateTime desde, LocalDateTime hasta, Integer limit) {
+        this.activo = activo;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.limit = limit;
+    }
+
+    public Boolean getActivo() {
+        return activo;
+    }
+
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    public void setDesde(LocalDateTime desde) {
+        this.desde = desde;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "IngredienteDemandaQueryDto{" +
+                "activo=" + activo +
+                ", desde=" + desde +
+                ", hasta=" + hasta +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO inmutable de lectura para ingredientes.
+ *
+ * A diferencia de IngredienteDto (usado para crear), incluye el id y se
+ * construye directamente desde una proyección JPQL, sin entidades.
+ */
+public record IngredienteDetalleDto(Long id, String nombre, Integer cantidad) {
+}
@@ -2,6 +2,10 @@ package com.dam.accesodatos.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,7 +28,7 @@ import java.util.Objects;
  * - @Entity: Marca la clase como entidad JPA gestionada por Hibernate
  * - @Table: Mapea explícitamente a la tabla 'npcs' de la BD
  * - @Id: Marca el campo 'id' como clave primaria
- * - @GeneratedValue: El ID es autogenerado por la BD (IDENTITY strategy)
+ * - @GeneratedValue: El ID sale de la secuencia npcs_seq (SEQUENCE strategy)
  * - @Column: Mapeo explícito de campos a columnas con restricciones
  * - @OneToMany: Relación uno a muchos con Pedido (un NPC tiene muchos pedidos)
  * - @NotBlank: Validaciones de Bean Validation
@@ -36,13 +40,51 @@ import java.util.Objects;
  * NOTA PEDAGÓGICA:
  * El constructor sin argumentos es OBLIGATORIO para JPA. Hibernate lo usa
  * para crear instancias mediante reflection al recuperar datos de la BD.
+ *
+ * CACHÉ DE SEGUNDO NIVEL:
+ * - @Cacheable + @Cache: los NPCs se guardan en la región "npc" y find()
+ * no vuelve a la BD mientras la entrada siga en caché
+ * - READ_WRITE: Hibernate bloquea la entrada mientras se actualiza, así que
+ * nunca se leen datos a medio confirmar
+ *
+ * BÚSQUEDA POR NOMBRE SIN DISTINGUIR MAYÚSCULAS:
+ * - LOWER(nombre) LIKE ... no puede usar idx_npcs_nombre: la BD calcula
+ * LOWER() fila a fila y recorre toda la tabla
+ * - nombre_normalizado es una columna generada por la BD (LOWER(nombre))
+ * con su propio índice; un LIKE 'prefijo%' sobre ella es un recorrido por
+ * rango del índice
+ *
+ * GRAFO DE ENTIDAD (@NamedEntityGraph):
+ * - GRAPH_PEDIDOS: la consulta que lo usa como fetchgraph trae cada NPC con
+ * sus pedidos en un solo JOIN, en vez de una consulta por NPC al recorrer
+ * getPedidos()
  */
 @Entity
-@Table(name = "npcs")
+@Table(name = "npcs", indexes = @Index(name = "idx_npcs_nombre_normalizado", columnList = "nombre_normalizado"))
+@NamedEntityGraph(name = Npc.GRAPH_PEDIDOS, attributeNodes = @NamedAttributeNode("pedidos"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "npc")
 public class Npc {
 
+    /**
+     * Grafo con los pedidos del NPC (ver NpcInclude).
+     */
+    public static final String GRAPH_PEDIDOS = "Npc.pedidos";
+
+    /**
+     * ID generado con secuencia y optimizador pooled-lo.
+     *
+     * NOTA PEDAGÓGICA:
+     * - Con IDENTITY, Hibernate necesita ejecutar cada INSERT en el momento
+     * para conocer el ID, por lo que hibernate.jdbc.batch_size no tiene efecto
+     * - Con SEQUENCE y allocationSize = 50, Hibernate pide un valor a la
+     * secuencia cada 50 inserciones y asigna los IDs en memoria, así que los
+     * INSERT se pueden enviar agrupados en lotes (JDBC batching)
+     * - La secuencia debe tener INCREMENT BY 50 (ver schema.sql)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "npcs_seq")
+    @SequenceGenerator(name = "npcs_seq", sequenceName = "npcs_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -51,6 +93,19 @@ public class Npc {
     @Size(min = 2, max = 50, message = "El nombre debe tener entre 2 y 50 caracteres")
     private String nombre;
 
+    /**
+     * nombre en minúsculas, calculado por la BD (columna generada).
+     *
+     * NOTA: solo se usa en consultas (JPQL/Criteria). Hibernate nunca la
+     * escribe (insertable/updatable = false) y no tiene getter: en una
+     * entidad recién creada o modificada su valor no está actualizado.
+     * columnDefinition repite la definición de schema.sql para los tests,
+     * que generan el esquema con ddl-auto.
+     */
+    @Column(name = "nombre_normalizado", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(50) GENERATED ALWAYS AS (LOWER(nombre))")
+    private String nombreNormalizado;
+
     @Column(name = "activo")
     private Boolean activo;
 
@@ -72,6 +127,9 @@ public class Npc {
      * BD
      * - fetch = FetchType.LAZY: Los pedidos se cargan bajo demanda (mejor
      * rendimiento)
+     * - @BatchSize(size = 50): al inicializar los pedidos de un NPC, Hibernate
+     * carga también los de hasta 49 NPCs más del contexto de persistencia en
+     * la misma consulta (IN), en vez de una consulta por NPC (N+1)
      *
      * DIFERENCIAS vs RA2 (JDBC):
      * - RA2: JOIN manual con SQL, iterar ResultSet, crear objetos manualmente
@@ -79,6 +137,8 @@ public class Npc {
      * lista
      */
     @OneToMany(mappedBy = "npc", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "npc-pedidos")
+    @BatchSize(size = 50)
     private List<Pedido> pedidos = new ArrayList<>();
 
     // ===== CONSTRUCTOR SIN ARGUMENTOS (OBLIGATORIO PARA JPA) =====
@@ -191,13 +251,19 @@ public class Npc {
 
     // ===== TOSTRING =====
 
+    /**
+     * NOTA: pedidos.size() sobre la colección perezosa sin cargar lanzaría
+     * un SELECT de todos los pedidos solo para escribir un log. Si no está
+     * cargada se muestra "?"; para contar sin cargarla, ver
+     * PedidoRepository.countByNpcId() o la herramienta npc_summary.
+     */
     @Override
     public String toString() {
         return "Npc{" +
                 "id=" + id +
                 ", nombre='" + nombre + '\'' +
                 ", activo=" + activo +
-                ", numeroPedidos=" + (pedidos != null ? pedidos.size() : 0) +
+                ", numeroPedidos=" + (pedidos == null ? 0 : Hibernate.isInitialized(pedidos) ? pedidos.size() : "?") +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 '}';
@@ -0,0 +1,46 @@
+package com.dam.accesodatos.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO inmutable de lectura de un NPC con sus pedidos e ingredientes.
+ *
+ * Lo devuelven find_npc_by_id y, con include distinto de none,
+ * find_all_npcs y find_active_npcs. Se rellena entero dentro de la
+ * transacción del servicio, con un plan de carga explícito (ver NpcInclude).
+ *
+ * pedidos es null (y no aparece en el JSON) si no se han pedido: así no se
+ * confunde con un NPC sin pedidos.
+ *
+ * NOTA PEDAGÓGICA:
+ * Con open-in-view desactivado, al serializar la respuesta ya no hay
+ * sesión de Hibernate. Si el controlador devolviera la entidad Npc,
+ * Jackson se encontraría la colección perezosa de pedidos sin cargar; con
+ * este DTO todo lo que se serializa ya está en memoria.
+ */
+public record NpcDetalleDto(Long id, String nombre, Boolean activo, LocalDateTime createdAt,
+        LocalDateTime updatedAt, @JsonInclude(JsonInclude.Include.NON_NULL) List<PedidoDetalleDto> pedidos) {
+
+    public NpcDetalleDto {
+        pedidos = pedidos == null ? null : List.copyOf(pedidos);
+    }
+
+    /**
+     * Copia los campos simples de la entidad Npc y añade los pedidos ya
+     * cargados, o null si no se incluyen (no toca npc.getPedidos()).
+     */
+    public static NpcDetalleDto from(Npc npc, List<PedidoDetalleDto> pedidos) {
+        return new NpcDetalleDto(npc.getId(), npc.getNombre(), npc.getActivo(), npc.getCreatedAt(),
+                npc.getUpdatedAt(), pedidos);
+    }
+
+    /**
+     * NPC sin pedidos (include=none).
+     */
+    public static NpcDetalleDto from(NpcDto npc) {
+        return new NpcDetalleDto(npc.id(), npc.nombre(), npc.activo(), npc.createdAt(), npc.updatedAt(), null);
+    }
+}
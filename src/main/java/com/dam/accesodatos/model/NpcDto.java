@@ -0,0 +1,23 @@
+package com.dam.accesodatos.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO inmutable de lectura para NPCs (solo columnas de la tabla npcs).
+ *
+ * Se usa en los listados grandes: no arrastra la colección perezosa de
+ * pedidos, así que serializarlo nunca dispara consultas adicionales.
+ *
+ * NOTA PEDAGÓGICA:
+ * JPQL puede construirlo directamente con una "constructor expression":
+ * SELECT new com.dam.accesodatos.model.NpcDto(n.id, n.nombre, ...) FROM Npc n
+ */
+public record NpcDto(Long id, String nombre, Boolean activo, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    /**
+     * Copia los campos simples de una entidad Npc.
+     */
+    public static NpcDto from(Npc npc) {
+        return new NpcDto(npc.getId(), npc.getNombre(), npc.getActivo(), npc.getCreatedAt(), npc.getUpdatedAt());
+    }
+}
@@ -0,0 +1,42 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * Una línea de la importación NDJSON: un NPC con sus pedidos e ingredientes.
+ *
+ * Ejemplo:
+ * {"nombre": "Chef Marco", "pedidos": [{"comentario": "Sopa",
+ *   "ingredientes": [{"nombre": "Tomate", "cantidad": 2}]}]}
+ *
+ * @param nombre  Nombre del NPC
+ * @param activo  Si está activo (por defecto true)
+ * @param pedidos Pedidos del NPC (opcional)
+ */
+public record NpcImportDto(String nombre, Boolean activo, List<PedidoCreateDto> pedidos) {
+
+    /**
+     * Construye el grafo de entidades manteniendo la bidireccionalidad
+     * (npc.addPedido / pedido.addIngrediente), igual que addPedidoToNpc().
+     */
+    public Npc toEntity() {
+        Npc npc = new Npc(nombre);
+        if (activo != null) {
+            npc.setActivo(activo);
+        }
+        if (pedidos != null) {
+            for (PedidoCreateDto pedidoDto : pedidos) {
+                Pedido pedido = new Pedido();
+                pedido.setComentario(pedidoDto.getComentario());
+                if (pedidoDto.getIngredientes() != null) {
+                    for (IngredienteDto ingDto : pedidoDto.getIngredientes()) {
+                        pedido.addIngrediente(new Ingrediente(ingDto.getNombre(),
+                                ingDto.getCantidad() != null ? ingDto.getCantidad() : 1));
+                    }
+                }
+                npc.addPedido(pedido);
+            }
+        }
+        return npc;
+    }
+}
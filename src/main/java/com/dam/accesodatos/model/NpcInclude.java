@@ -0,0 +1,58 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Profundidad de carga de los NPCs en find_npc_by_id, find_all_npcs y
+ * find_active_npcs (argumento "include").
+ *
+ * - none: solo las columnas de npcs
+ * - pedidos: el NPC con sus pedidos (sin ingredientes)
+ * - pedidos.ingredientes: el NPC con sus pedidos y los ingredientes de cada uno
+ *
+ * NOTA PEDAGÓGICA:
+ * Cada nivel se carga con un número fijo de consultas, no una por NPC o
+ * por pedido: en los listados, el grafo Npc.GRAPH_PEDIDOS trae los NPCs
+ * con sus pedidos y el grafo Pedido.GRAPH_INGREDIENTES los ingredientes de
+ * todos esos pedidos.
+ */
+public enum NpcInclude {
+
+    NONE("none"),
+    PEDIDOS("pedidos"),
+    PEDIDOS_INGREDIENTES("pedidos.ingredientes");
+
+    private final String value;
+
+    NpcInclude(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public boolean pedidos() {
+        return this != NONE;
+    }
+
+    public boolean ingredientes() {
+        return this == PEDIDOS_INGREDIENTES;
+    }
+
+    /**
+     * @param value        Valor del argumento include (puede ser null)
+     * @param defaultValue Profundidad si no se indica
+     * @throws IllegalArgumentException si el valor no es uno de los admitidos
+     */
+    public static NpcInclude parse(String value, NpcInclude defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        for (NpcInclude include : values()) {
+            if (include.value.equals(value)) {
+                return include;
+            }
+        }
+        throw new IllegalArgumentException(
+                "include no válido: " + value + " (admitidos: none, pedidos, pedidos.ingredientes)");
+    }
+}
@@ -0,0 +1,13 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * Página de NPCs obtenida con paginación por cursor (keyset).
+ *
+ * @param items      NPCs de la página, ordenados por id
+ * @param nextCursor Cursor opaco para pedir la página siguiente (null si es la
+ *                   última)
+ */
+public record NpcPageDto(List<NpcDto> items, String nextCursor) {
+}
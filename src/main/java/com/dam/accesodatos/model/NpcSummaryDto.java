@@ -0,0 +1,17 @@
+package com.dam.accesodatos.model;
+
+/**
+ * Resumen de un NPC: cuántos pedidos e ingredientes tiene.
+ *
+ * NOTA PEDAGÓGICA:
+ * Se calcula con una consulta de agregación (COUNT ... GROUP BY) en la BD,
+ * sin cargar las colecciones Npc.pedidos ni Pedido.ingredientes: solo
+ * viajan los números.
+ *
+ * @param id           ID del NPC
+ * @param nombre       Nombre del NPC
+ * @param pedidos      Número de pedidos del NPC
+ * @param ingredientes Número de ingredientes sumando todos sus pedidos
+ */
+public record NpcSummaryDto(Long id, String nombre, Long pedidos, Long ingredientes) {
+}
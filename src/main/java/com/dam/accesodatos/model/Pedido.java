@@ -2,6 +2,10 @@ package com.dam.accesodatos.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -30,10 +34,20 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "pedidos")
+@NamedEntityGraph(name = Pedido.GRAPH_INGREDIENTES, attributeNodes = @NamedAttributeNode("ingredientes"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pedido")
 public class Pedido {
 
+    /**
+     * Grafo con los ingredientes del pedido (ver NpcInclude).
+     */
+    public static final String GRAPH_INGREDIENTES = "Pedido.ingredientes";
+
+    // Secuencia con bloques de 50 IDs (permite INSERT en lotes, ver Npc.id)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -69,8 +83,12 @@ public class Pedido {
      * - mappedBy = "pedido": El campo 'pedido' en Ingrediente es el dueño
      * - cascade = CascadeType.ALL: Operaciones se propagan a ingredientes
      * - orphanRemoval = true: Ingredientes huérfanos se eliminan de la BD
+     * - @BatchSize(size = 50): los ingredientes de hasta 50 pedidos del
+     * contexto de persistencia se cargan en una sola consulta
      */
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pedido-ingredientes")
+    @BatchSize(size = 50)
     private List<Ingrediente> ingredientes = new ArrayList<>();
 
     // ===== CONSTRUCTOR SIN ARGUMENTOS (OBLIGATORIO PARA JPA) =====
@@ -175,13 +193,17 @@ public class Pedido {
 
     // ===== TOSTRING =====
 
+    /**
+     * NOTA: igual que en Npc, no inicializa la colección perezosa de
+     * ingredientes (ver IngredienteRepository.countByPedidoId()).
+     */
     @Override
     public String toString() {
         return "Pedido{" +
                 "id=" + id +
                 ", comentario='" + comentario + '\'' +
                 ", npcId=" + (npc != null ? npc.getId() : null) +
-                ", numeroIngredientes=" + (ingredientes != null ? ingredientes.size() : 0) +
+                ", numeroIngredientes=" + (ingredientes == null ? 0 : Hibernate.isInitialized(ingredientes) ? ingredientes.size() : "?") +
                 ", createdAt=" + createdAt +
                 '}';
     }
@@ -0,0 +1,58 @@
+package com.dam.accesodatos.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO inmutable de lectura para pedidos con sus ingredientes.
+ *
+ * NOTA PEDAGÓGICA:
+ * Se rellena con proyecciones JPQL (SELECT new ...) en lugar de entidades
+ * Pedido. Así, al serializar a JSON no hay colecciones perezosas que
+ * Jackson pueda inicializar una a una (problema N+1).
+ *
+ * ingredientes es null (y no aparece en el JSON) con include=pedidos.
+ */
+public record PedidoDetalleDto(Long id, String comentario, LocalDateTime createdAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<IngredienteDetalleDto> ingredientes) {
+
+    public PedidoDetalleDto {
+        ingredientes = ingredientes == null ? null : List.copyOf(ingredientes);
+    }
+
+    /**
+     * Constructor para proyecciones JPQL: los ingredientes se añaden después
+     * con withIngredientes().
+     */
+    public PedidoDetalleDto(Long id, String comentario, LocalDateTime createdAt) {
+        this(id, comentario, createdAt, List.of());
+    }
+
+    /**
+     * Copia un Pedido recién creado (sus ingredientes están en memoria, no
+     * son una colección perezosa pendiente de cargar).
+     */
+    public static PedidoDetalleDto from(Pedido pedido) {
+        return from(pedido, true);
+    }
+
+    /**
+     * Copia un Pedido con sus ingredientes ya cargados o, si ingredientes es
+     * false, sin tocar la colección (queda a null).
+     */
+    public static PedidoDetalleDto from(Pedido pedido, boolean ingredientes) {
+        List<IngredienteDetalleDto> detalle = !ingredientes ? null : pedido.getIngredientes().stream()
+                .map(i -> new IngredienteDetalleDto(i.getId(), i.getNombre(), i.getCantidad()))
+                .toList();
+        return new PedidoDetalleDto(pedido.getId(), pedido.getComentario(), pedido.getCreatedAt(), detalle);
+    }
+
+    /**
+     * Copia del pedido con la lista de ingredientes indicada.
+     */
+    public PedidoDetalleDto withIngredientes(List<IngredienteDetalleDto> ingredientes) {
+        return new PedidoDetalleDto(id, comentario, createdAt, ingredientes);
+    }
+}
@@ -0,0 +1,26 @@
+package com.dam.accesodatos.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de la herramienta search_text (búsqueda de texto completo).
+ *
+ * Cada resultado es un documento del índice: un NPC (su nombre), un pedido
+ * (su comentario) o un ingrediente (su nombre). Los campos salen del propio
+ * índice, sin consultar la BD.
+ *
+ * @param tipo     npc, pedido o ingrediente
+ * @param id       ID de la entidad
+ * @param npcId    NPC del pedido (solo en pedidos)
+ * @param pedidoId Pedido del ingrediente (solo en ingredientes)
+ * @param texto    Texto indexado (nombre o comentario)
+ * @param score    Relevancia (BM25): mayor es mejor
+ */
+public record ResultadoBusquedaDto(
+        String tipo,
+        Long id,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long npcId,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long pedidoId,
+        String texto,
+        float score) {
+}
@@ -0,0 +1,111 @@
+package com.dam.accesodatos.ra3;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource que limita cuántas conexiones pueden estar en uso a la vez.
+ *
+ * Se coloca delante del pool Hikari: cada getConnection() necesita un
+ * permiso de un Semaphore, que se devuelve al cerrar la conexión.
+ *
+ * ¿POR QUÉ, SI HIKARI YA TIENE UN MÁXIMO DE CONEXIONES?
+ * Con hilos virtuales puede haber miles de peticiones simultáneas. Sin este
+ * límite todas acaban esperando dentro de Hikari hasta su connectionTimeout
+ * (30 s). Aquí esperan en un Semaphore (que no bloquea el hilo portador) con
+ * un tiempo máximo propio más corto, y si no hay hueco se falla rápido con
+ * SQLTransientConnectionException en lugar de acumular peticiones.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    public ConcurrencyLimitingDataSource(DataSource target, int maxConcurrency, Duration acquireTimeout) {
+        super(target);
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency debe ser al menos 1");
+        }
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int inUse() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Estado actual del límite (para /mcp/health).
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("maxConcurrency", maxConcurrency);
+        snapshot.put("inUse", inUse());
+        snapshot.put("waiting", waiting());
+        snapshot.put("rejected", rejected());
+        return snapshot;
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new SQLTransientConnectionException("No hay conexiones libres: " + maxConcurrency
+                        + " en uso y se agotó la espera de " + Duration.ofNanos(acquireTimeoutNanos).toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    /**
+     * Envuelve la conexión para devolver el permiso en el primer close().
+     */
+    private Connection guard(Connection connection) {
+        return new PermitReleasingConnection(connection, permits);
+    }
+}
@@ -0,0 +1,42 @@
+package com.dam.accesodatos.ra3;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Coloca ConcurrencyLimitingDataSource delante del DataSource de Spring Boot
+ * (Hikari).
+ *
+ * Configuración (mcp.datasource.*):
+ * - max-concurrency: conexiones en uso a la vez (por defecto, el tamaño
+ * máximo del pool Hikari)
+ * - acquire-timeout: espera máxima por una conexión antes de fallar
+ */
+@Configuration
+public class DataSourceGuardConfig {
+
+    private static final int DEFAULT_HIKARI_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor dataSourceConcurrencyGuard(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size",
+                        Integer.class, DEFAULT_HIKARI_POOL_SIZE);
+                int maxConcurrency = environment.getProperty("mcp.datasource.max-concurrency", Integer.class, poolSize);
+                Duration acquireTimeout = environment.getProperty("mcp.datasource.acquire-timeout",
+                        Duration.class, Duration.ofSeconds(5));
+                return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+}
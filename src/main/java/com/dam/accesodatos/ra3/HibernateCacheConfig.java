@@ -0,0 +1,96 @@
+package com.dam.accesodatos.ra3;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Caché de segundo nivel de Hibernate (JCache + Caffeine, en memoria).
+ *
+ * NOTA PEDAGÓGICA:
+ * - Caché de primer nivel: el contexto de persistencia (EntityManager). Vive
+ * lo que dura la transacción.
+ * - Caché de segundo nivel: compartida por todas las sesiones. Un find() de
+ * un NPC ya leído no vuelve a la BD aunque sea en otra petición.
+ * - Caché de consultas: guarda los IDs resultado de una consulta JPQL marcada
+ * como cacheable. Hibernate la invalida sola cuando se modifica alguna de
+ * las tablas implicadas.
+ *
+ * Las regiones se crean aquí de forma programática para poder aplicar el
+ * TTL y tamaño de mcp.cache.* a cada una, y el CacheManager resultante se
+ * entrega a Hibernate mediante un HibernatePropertiesCustomizer.
+ */
+@Configuration
+@EnableConfigurationProperties(HibernateCacheProperties.class)
+public class HibernateCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(HibernateCacheConfig.class);
+
+    // Regiones de entidades y colecciones (ver @Cache en el modelo)
+    public static final String NPC_REGION = "npc";
+    public static final String NPC_PEDIDOS_REGION = "npc-pedidos";
+    public static final String PEDIDO_REGION = "pedido";
+    public static final String PEDIDO_INGREDIENTES_REGION = "pedido-ingredientes";
+    public static final String INGREDIENTE_REGION = "ingrediente";
+
+    // Región de la caché de consultas sobre NPCs y la región por defecto
+    // (consultas cacheables sin región propia)
+    public static final String NPC_QUERY_REGION = "npc-queries";
+
+    // Región de la herramienta ingredient_demand (una entrada por combinación
+    // de filtros)
+    public static final String INGREDIENT_DEMAND_QUERY_REGION = "ingredient-demand-queries";
+    public static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+
+    // Región interna de Hibernate con la última modificación de cada tabla.
+    // No debe expirar antes que las consultas cacheadas que dependen de ella.
+    public static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private static final String[] REGIONS = {
+            NPC_REGION, NPC_PEDIDOS_REGION, PEDIDO_REGION, PEDIDO_INGREDIENTES_REGION,
+            INGREDIENTE_REGION, NPC_QUERY_REGION, INGREDIENT_DEMAND_QUERY_REGION, DEFAULT_QUERY_REGION,
+            TIMESTAMPS_REGION
+    };
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(HibernateCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+
+        // URI propia: cada contexto de Spring (tests, benchmarks) tiene sus cachés
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("mcp-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (String region : REGIONS) {
+            Duration ttl = TIMESTAMPS_REGION.equals(region) ? Duration.ZERO : properties.ttlOf(region);
+            long maxSize = TIMESTAMPS_REGION.equals(region) ? Long.MAX_VALUE : properties.maxSizeOf(region);
+
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setStoreByValue(false); // Hibernate ya guarda copias desensambladas
+            configuration.setMaximumSize(maxSize == Long.MAX_VALUE ? OptionalLong.empty() : OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(ttl.isZero() ? OptionalLong.empty() : OptionalLong.of(ttl.toNanos()));
+            cacheManager.createCache(region, configuration);
+
+            logger.debug("Región de caché {}: ttl={}, maxSize={}", region, ttl, maxSize);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
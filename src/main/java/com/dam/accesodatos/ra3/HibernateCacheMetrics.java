@@ -0,0 +1,63 @@
+package com.dam.accesodatos.ra3;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contadores de aciertos/fallos de la caché de segundo nivel y de consultas.
+ *
+ * Se leen de org.hibernate.stat.Statistics, por lo que requieren
+ * hibernate.generate_statistics=true (activado en application.yml).
+ */
+@Component
+public class HibernateCacheMetrics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Resumen de la caché para el endpoint /mcp/health.
+     *
+     * @return Mapa con totales de segundo nivel, de consultas y por región
+     */
+    public Map<String, Object> snapshot() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("statisticsEnabled", stats.isStatisticsEnabled());
+        cache.put("secondLevel", counters(stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(), stats.getSecondLevelCachePutCount()));
+        cache.put("query", counters(stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = stats.getCacheRegionStatistics(region);
+            if (regionStats != null) {
+                Map<String, Object> counters = counters(regionStats.getHitCount(),
+                        regionStats.getMissCount(), regionStats.getPutCount());
+                counters.put("size", regionStats.getElementCountInMemory());
+                regions.put(region, counters);
+            }
+        }
+        cache.put("regions", regions);
+        return cache;
+    }
+
+    private Map<String, Object> counters(long hits, long misses, long puts) {
+        Map<String, Object> counters = new LinkedHashMap<>();
+        counters.put("hits", hits);
+        counters.put("misses", misses);
+        counters.put("puts", puts);
+        long total = hits + misses;
+        counters.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        return counters;
+    }
+}
@@ -0,0 +1,58 @@
+package com.dam.accesodatos.ra3;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuración de las regiones de la caché de segundo nivel (mcp.cache.*).
+ *
+ * Cada región tiene su propio TTL (tiempo desde que se escribe la entrada)
+ * y tamaño máximo (nº de entradas). Si una región no indica alguno de los
+ * dos valores, se usan default-ttl y default-max-size.
+ *
+ * Ejemplo en application.yml:
+ * <pre>
+ * mcp:
+ *   cache:
+ *     default-ttl: 10m
+ *     default-max-size: 10000
+ *     regions:
+ *       npc:
+ *         ttl: 30m
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "mcp.cache")
+public record HibernateCacheProperties(
+        @DefaultValue("10m") Duration defaultTtl,
+        @DefaultValue("10000") long defaultMaxSize,
+        Map<String, Region> regions) {
+
+    public HibernateCacheProperties {
+        regions = regions == null ? Map.of() : Map.copyOf(regions);
+    }
+
+    /**
+     * Configuración de una región. Un TTL de 0 desactiva la expiración.
+     */
+    public record Region(Duration ttl, Long maxSize) {
+    }
+
+    /**
+     * TTL efectivo de una región (el suyo o el de por defecto).
+     */
+    public Duration ttlOf(String region) {
+        Region config = regions.get(region);
+        return config != null && config.ttl() != null ? config.ttl() : defaultTtl;
+    }
+
+    /**
+     * Tamaño máximo efectivo de una región (el suyo o el de por defecto).
+     */
+    public long maxSizeOf(String region) {
+        Region config = regions.get(region);
+        return config != null && config.maxSize() != null ? config.maxSize() : defaultMaxSize;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dam.accesodatos.ra3;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.StatisticsSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Métricas Micrometer de la capa de persistencia.
+ *
+ * - mcp.jpa.query (Timer) y mcp.jpa.query.rows (DistributionSummary): tiempo
+ * de ejecución y filas devueltas por cada consulta JPQL/HQL/SQL, etiquetadas
+ * con la herramienta y un hash corto de la consulta (QueryTimingStatistics).
+ * Se obtienen de las estadísticas de Hibernate (generate_statistics), que ya
+ * avisan de cada consulta ejecutada.
+ * NOTA: Hibernate solo las registra para getResultList()/getSingleResult();
+ * las consultas recorridas con getResultStream() (respuestas en streaming)
+ * no aparecen aquí, pero sí en mcp.tool.calls.
+ * - mcp.jpa.flush.entities / mcp.jpa.flush.collections: tamaño del contexto
+ * de persistencia en cada flush (el de commit incluido). Un valor alto
+ * indica transacciones que cargan demasiadas entidades.
+ * - mcp.datasource.connections.*: estado de ConcurrencyLimitingDataSource.
+ *
+ * La espera por conexión del pool Hikari (hikaricp.connections.acquire) y
+ * las métricas generales de Hibernate (hibernate.*) las registra Spring
+ * Boot.
+ */
+@Configuration
+public class HibernateMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryMetricsStatisticsCustomizer(MeterRegistry registry,
+            SqlStatementInspector statementInspector,
+            @Value("${mcp.metrics.jpa-query-max-tags:500}") int maxQueries) {
+        // StatisticsImpl es lo que Hibernate usa sin stats.factory: se
+        // envuelve (no se extiende) y se accede solo por el SPI
+        StatisticsFactory factory = sessionFactory -> new QueryTimingStatistics(
+                new StatisticsImpl(sessionFactory), registry, statementInspector, maxQueries);
+        return properties -> properties.put(StatisticsSettings.STATS_BUILDER, factory);
+    }
+
+    /**
+     * El listener se registra una sola vez en Hibernate; cada registro de
+     * Micrometer que se enlaza solo añade sus medidores.
+     */
+    @Bean
+    public FlushSizeMetrics persistenceContextMetrics(EntityManagerFactory entityManagerFactory) {
+        FlushSizeMetrics metrics = new FlushSizeMetrics();
+        // Se añade después del listener por defecto, que es el que calcula
+        // los totales del evento
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.FLUSH, metrics);
+        return metrics;
+    }
+
+    @Bean
+    public MeterBinder dataSourceGuardMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof ConcurrencyLimitingDataSource guard)) {
+                return;
+            }
+            Gauge.builder("mcp.datasource.connections.in-use", guard, g -> g.inUse())
+                    .description("Conexiones en uso (ConcurrencyLimitingDataSource)")
+                    .register(registry);
+            Gauge.builder("mcp.datasource.connections.waiting", guard, g -> g.waiting())
+                    .description("Peticiones esperando conexión")
+                    .register(registry);
+            FunctionCounter.builder("mcp.datasource.connections.rejected", guard, g -> g.rejected())
+                    .description("Peticiones rechazadas por agotar la espera")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Tamaño del contexto de persistencia en cada flush, registrado en todos
+     * los MeterRegistry enlazados.
+     */
+    static final class FlushSizeMetrics implements MeterBinder, FlushEventListener {
+
+        private final List<DistributionSummary> entities = new CopyOnWriteArrayList<>();
+        private final List<DistributionSummary> collections = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            entities.add(DistributionSummary.builder("mcp.jpa.flush.entities")
+                    .description("Entidades en el contexto de persistencia al hacer flush")
+                    .register(registry));
+            collections.add(DistributionSummary.builder("mcp.jpa.flush.collections")
+                    .description("Colecciones en el contexto de persistencia al hacer flush")
+                    .register(registry));
+        }
+
+        @Override
+        public void onFlush(FlushEvent event) {
+            for (DistributionSummary summary : entities) {
+                summary.record(event.getNumberOfEntitiesProcessed());
+            }
+            for (DistributionSummary summary : collections) {
+                summary.record(event.getNumberOfCollectionsProcessed());
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.dam.accesodatos.ra3;
 
+import com.dam.accesodatos.model.BulkTransferOptionsDto;
+import com.dam.accesodatos.model.BulkTransferResultDto;
+import com.dam.accesodatos.model.IngredienteDemandaDto;
+import com.dam.accesodatos.model.IngredienteDemandaQueryDto;
 import com.dam.accesodatos.model.Npc;
-import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcPageDto;
+import com.dam.accesodatos.model.NpcSummaryDto;
+import com.dam.accesodatos.model.PedidoDetalleDto;
 import com.dam.accesodatos.model.NpcCreateDto;
 import com.dam.accesodatos.model.NpcUpdateDto;
 import com.dam.accesodatos.model.NpcQueryDto;
 import com.dam.accesodatos.model.PedidoCreateDto;
+import com.dam.accesodatos.model.ResultadoBusquedaDto;
 import org.springframework.ai.mcp.server.annotation.Tool;
+import org.springframework.ai.mcp.server.annotation.ToolParam;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface de servicio para operaciones Hibernate/JPA con NPCs
@@ -32,6 +44,14 @@ import java.util.List;
  * - CE3.g: Gestión de transacciones (1 método)
  *
  * Total: 11 métodos (7 ejemplos + 4 TODOs para estudiantes)
+ *
+ * RESULTADOS: DTOs, NO ENTIDADES
+ * Con spring.jpa.open-in-view=false la sesión de Hibernate se cierra al
+ * terminar cada método del servicio. Por eso las herramientas devuelven
+ * DTOs ya completos (NpcDto, NpcDetalleDto, PedidoDetalleDto...), creados
+ * dentro de la transacción con un plan de carga explícito: al serializar
+ * la respuesta no queda ninguna colección perezosa por cargar y la
+ * conexión JDBC ya se ha devuelto al pool.
  */
 public interface HibernateNpcService {
 
@@ -84,7 +104,7 @@ public interface HibernateNpcService {
      * @throws RuntimeException si hay error
      */
     @Tool(name = "create_npc", description = "Persiste un nuevo NPC usando EntityManager.persist() y @Transactional")
-    Npc createNpc(NpcCreateDto dto);
+    NpcDto createNpc(NpcCreateDto dto);
 
     /**
      * CE3.e: Busca un NPC por su ID usando EntityManager.find()
@@ -104,12 +124,49 @@ public interface HibernateNpcService {
      * rs.getString()
      * - RA3: entityManager.find(Npc.class, id), mapeo automático por Hibernate
      *
-     * @param id ID del NPC a buscar
-     * @return NPC encontrado o null si no existe
+     * PLAN DE CARGA según include (máximo 3 consultas, 0 si el NPC está en
+     * la caché de segundo nivel y no se piden pedidos):
+     * 1. entityManager.find(Npc.class, id)
+     * 2. pedidos: pedidos del NPC proyectados a PedidoDetalleDto
+     * 3. pedidos.ingredientes: ingredientes de esos pedidos con
+     * WHERE pedido_id IN (...)
+     *
+     * @param id      ID del NPC a buscar
+     * @param include none, pedidos o pedidos.ingredientes (por defecto)
+     * @return NPC con lo indicado en include, o null si no existe
+     * @throws IllegalArgumentException si include no es válido
      * @throws RuntimeException si hay error de BD
      */
-    @Tool(name = "find_npc_by_id", description = "Busca un NPC por ID usando EntityManager.find()")
-    Npc findNpcById(Long id);
+    @Tool(name = "find_npc_by_id", description = "Busca un NPC por ID usando EntityManager.find() (include: none, pedidos o pedidos.ingredientes)")
+    NpcDetalleDto findNpcById(
+            @ToolParam(name = "npcId", description = "ID del NPC") Long id,
+            @ToolParam(name = "include", description = "none, pedidos o pedidos.ingredientes (por defecto)", required = false) String include);
+
+    /**
+     * findNpcById() con include=pedidos.ingredientes.
+     */
+    NpcDetalleDto findNpcById(Long id);
+
+    /**
+     * CE3.e: Busca varios NPCs por ID en una sola operación
+     *
+     * Implementación:
+     * - Session.byMultipleIds(Npc.class) (MultiIdentifierLoadAccess de Hibernate)
+     * - Primero se consulta el contexto de persistencia y la caché de segundo
+     * nivel; solo los IDs que falten se piden a la BD con un SELECT ... IN (...)
+     * - El resultado respeta el orden de los IDs recibidos y contiene null en
+     * las posiciones de IDs que no existen
+     *
+     * DIFERENCIAS vs findNpcById():
+     * - findNpcById(): N llamadas = N SELECT
+     * - findNpcsByIds(): N IDs = 1 SELECT por lote (o ninguno si están en caché)
+     *
+     * @param ids IDs de los NPCs a buscar
+     * @return Lista con un elemento por ID (null si no existe), sin pedidos
+     * @throws IllegalArgumentException si algún ID es null
+     */
+    @Tool(name = "find_npcs_by_ids", description = "Busca varios NPCs por ID en una sola consulta (MultiIdentifierLoadAccess)")
+    List<NpcDto> findNpcsByIds(@ToolParam(name = "npcIds", description = "IDs de los NPCs") List<Long> ids);
 
     /**
      * CE3.e: Actualiza un NPC existente usando EntityManager.merge()
@@ -131,11 +188,11 @@ public interface HibernateNpcService {
      *
      * @param id  ID del NPC a actualizar
      * @param dto DTO con datos a actualizar (campos opcionales)
-     * @return NPC actualizado
+     * @return NPC actualizado (sin pedidos)
      * @throws RuntimeException si el NPC no existe o hay error
      */
     @Tool(name = "update_npc", description = "Actualiza un NPC existente usando EntityManager.merge() y @Transactional")
-    Npc updateNpc(Long id, NpcUpdateDto dto);
+    NpcDto updateNpc(@ToolParam(name = "npcId", description = "ID del NPC") Long id, NpcUpdateDto dto);
 
     /**
      * CE3.e: Elimina un NPC usando EntityManager.remove()
@@ -160,7 +217,7 @@ public interface HibernateNpcService {
      * @throws RuntimeException si hay error de BD
      */
     @Tool(name = "delete_npc", description = "Elimina un NPC usando EntityManager.remove() y @Transactional")
-    boolean deleteNpc(Long id);
+    boolean deleteNpc(@ToolParam(name = "npcId", description = "ID del NPC") Long id);
 
     /**
      * CE3.e: Obtiene todos los NPCs usando Spring Data JPA Repository
@@ -177,11 +234,123 @@ public interface HibernateNpcService {
      * - RA2: SELECT * FROM npcs, while(rs.next()), mapeo manual
      * - RA3: npcRepository.findAll(), todo automático
      *
+     * NOTA: devuelve NpcDto (npcRepository.findAllDtos()), no entidades Npc:
+     * la herramienta es de solo lectura y no necesita contexto de
+     * persistencia ni la colección perezosa de pedidos.
+     *
+     * Es find_all_npcs con include=none, ver findAll(String).
+     *
      * @return Lista de todos los NPCs
      * @throws RuntimeException si hay error
      */
-    @Tool(name = "find_all_npcs", description = "Obtiene todos los NPCs usando JPA Repository.findAll()")
-    List<Npc> findAll();
+    List<NpcDto> findAll();
+
+    /**
+     * Todos los NPCs ordenados por ID, con la profundidad indicada en
+     * include (find_all_npcs sin fields).
+     *
+     * PLAN DE CARGA (fijo, no depende del número de NPCs ni de pedidos):
+     * - none: findAll(), 1 consulta (proyección a NpcDto)
+     * - pedidos: 1 consulta con el grafo Npc.GRAPH_PEDIDOS (JOIN de pedidos)
+     * - pedidos.ingredientes: la anterior + 1 consulta con el grafo
+     * Pedido.GRAPH_INGREDIENTES para los pedidos de esos mismos NPCs
+     *
+     * Sin los grafos, recorrer npc.getPedidos() y pedido.getIngredientes()
+     * serían 1 + N/50 + P/50 consultas (P = pedidos; @BatchSize en las
+     * colecciones), y 1 + N + P sin @BatchSize.
+     *
+     * @param include none (por defecto), pedidos o pedidos.ingredientes
+     * @return NPCs con pedidos a null si include=none
+     * @throws IllegalArgumentException si include no es válido
+     */
+    List<NpcDetalleDto> findAll(String include);
+
+    /**
+     * Herramienta find_all_npcs: findAll(String) o, con fields, solo las
+     * columnas pedidas.
+     *
+     * FIELDS (conjunto de campos disperso):
+     * Los nombres se validan contra el metamodelo de Npc (atributos básicos:
+     * id, nombre, activo...) y se compilan en un CriteriaQuery<Tuple> con
+     * multiselect() de solo esos atributos: la BD lee y envía solo esas
+     * columnas y cada fila es un Tuple que se serializa tal cual (sin
+     * entidad ni DTO, ver TupleSerializer).
+     *
+     * @param include none (por defecto), pedidos o pedidos.ingredientes
+     * @param fields  Atributos de Npc a devolver (vacío = todos)
+     * @return List<NpcDetalleDto>, o List<Tuple> si se indica fields
+     * @throws IllegalArgumentException si include o algún campo no son
+     *                                  válidos, o si se combinan fields e
+     *                                  include con pedidos
+     */
+    @Tool(name = "find_all_npcs", description = "Obtiene todos los NPCs (include: none, pedidos o pedidos.ingredientes; fields: solo esos campos)")
+    List<?> findAll(
+            @ToolParam(name = "include", description = "none (por defecto), pedidos o pedidos.ingredientes", required = false) String include,
+            @ToolParam(name = "fields", description = "Campos de cada NPC, p. ej. [\"id\", \"nombre\"]", required = false) List<String> fields);
+
+    /**
+     * CE3.f: Obtiene NPCs paginados por cursor (keyset pagination)
+     *
+     * Implementación:
+     * - JPQL: SELECT ... FROM Npc n WHERE n.id > :ultimoId ORDER BY n.id
+     * - setMaxResults(limit + 1) para saber si hay más páginas
+     * - El cursor es opaco para el cliente (codifica el último id devuelto)
+     *
+     * DIFERENCIAS vs OFFSET/LIMIT:
+     * - OFFSET obliga a la BD a recorrer y descartar todas las filas anteriores
+     * - Keyset salta directamente al id siguiente usando la clave primaria
+     *
+     * @param cursor Cursor devuelto por la página anterior (null = primera)
+     * @param limit  Tamaño de página (por defecto 100, máximo 1000)
+     * @return Página con los NPCs y el cursor de la siguiente
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Tool(name = "find_npcs_page", description = "Obtiene NPCs paginados por cursor (keyset sobre id)")
+    NpcPageDto findNpcsPage(
+            @ToolParam(name = "cursor", description = "Cursor de la página anterior", required = false) String cursor,
+            @ToolParam(name = "limit", description = "Tamaño de página", required = false) Integer limit);
+
+    /**
+     * CE3.f: Recorre todos los NPCs en streaming, con memoria constante
+     *
+     * Implementación:
+     * - TypedQuery.getResultStream() (ScrollableResults de Hibernate)
+     * - Proyección a NpcDto: no se crean entidades, así que ni el contexto de
+     * persistencia ni la caché de segundo nivel crecen con las filas
+     *
+     * NO es una herramienta @Tool: la usa el endpoint NDJSON del controlador.
+     *
+     * @param consumer Recibe cada NPC según se lee de la BD
+     * @return Número de NPCs recorridos
+     */
+    long streamAllNpcs(Consumer<NpcDto> consumer);
+
+    /**
+     * CE3.f: Recorre los NPCs activos en streaming, ordenados por nombre
+     *
+     * Igual que streamAllNpcs(), pero solo los activos y por nombre.
+     *
+     * NO es una herramienta @Tool: la usa el endpoint find_active_npcs.
+     *
+     * @param consumer Recibe cada NPC según se lee de la BD
+     * @return Número de NPCs recorridos
+     */
+    long streamActiveNpcs(Consumer<NpcDto> consumer);
+
+    /**
+     * CE3.f: Recorre los pedidos de un NPC con sus ingredientes en streaming
+     *
+     * Los pedidos se leen de la BD según se recorren y los ingredientes se
+     * cargan por bloques (WHERE pedido_id IN (...)), así que la memoria no
+     * depende del número de pedidos: 1 consulta + 1 por cada bloque.
+     *
+     * NO es una herramienta @Tool: la usa el endpoint find_pedidos_by_npc.
+     *
+     * @param npcId    ID del NPC
+     * @param consumer Recibe cada pedido con sus ingredientes
+     * @return Número de pedidos recorridos
+     */
+    long streamPedidosByNpc(Long npcId, Consumer<PedidoDetalleDto> consumer);
 
     // ========== OPERACIONES DE PEDIDOS ==========
 
@@ -192,7 +361,7 @@ public interface HibernateNpcService {
      * - Buscar NPC existente
      * - Crear Pedido desde DTO
      * - Usar npc.addPedido(pedido) para mantener bidireccionalidad
-     * - Los ingredientes se crean en cascada si vienen en el DTO
+     * - entityManager.persist(pedido): los ingredientes se crean en cascada
      * - Anotar con @Transactional
      *
      * NOTA PEDAGÓGICA:
@@ -201,20 +370,62 @@ public interface HibernateNpcService {
      *
      * @param npcId ID del NPC
      * @param dto   DTO con datos del pedido e ingredientes
-     * @return Pedido creado con ingredientes
+     * @return Pedido creado con sus ingredientes (con IDs)
      * @throws RuntimeException si el NPC no existe
      */
     @Tool(name = "add_pedido_to_npc", description = "Añade un pedido con ingredientes a un NPC")
-    Pedido addPedidoToNpc(Long npcId, PedidoCreateDto dto);
+    PedidoDetalleDto addPedidoToNpc(@ToolParam(name = "npcId", description = "ID del NPC") Long npcId, PedidoCreateDto dto);
 
     /**
      * CE3.f: Obtiene los pedidos de un NPC usando JPQL
      *
+     * Implementación (máximo 2 consultas, sin importar cuántos pedidos haya):
+     * 1. Proyección de los pedidos del NPC a PedidoDetalleDto
+     * 2. Ingredientes de TODOS esos pedidos con WHERE pedido_id IN (...)
+     *
+     * NOTA PEDAGÓGICA:
+     * Devolver entidades Pedido provocaba el problema N+1: Jackson recorría
+     * la colección perezosa de ingredientes de cada pedido, lanzando una
+     * consulta por pedido al serializar la respuesta.
+     *
+     * @param npcId ID del NPC
+     * @return Lista de pedidos del NPC con sus ingredientes
+     */
+    @Tool(name = "find_pedidos_by_npc", description = "Obtiene los pedidos de un NPC con sus ingredientes (2 consultas)")
+    List<PedidoDetalleDto> findPedidosByNpc(@ToolParam(name = "npcId", description = "ID del NPC") Long npcId);
+
+    /**
+     * CE3.f: Cuenta los pedidos de un NPC sin cargarlos
+     *
+     * Implementación:
+     * - pedidoRepository.countByNpcId(): SELECT COUNT(p) ... WHERE p.npc.id = ?
+     *
+     * NOTA PEDAGÓGICA:
+     * npc.getPedidos().size() también da el número, pero inicializa la
+     * colección perezosa: lee todos los pedidos de la BD para contarlos.
+     *
      * @param npcId ID del NPC
-     * @return Lista de pedidos del NPC
+     * @return Número de pedidos del NPC (0 si no existe)
+     * @throws IllegalArgumentException si npcId es null
+     */
+    @Tool(name = "count_pedidos_by_npc", description = "Cuenta los pedidos de un NPC con COUNT, sin cargarlos")
+    long countPedidosByNpc(@ToolParam(name = "npcId", description = "ID del NPC") Long npcId);
+
+    /**
+     * CE3.f: Resumen de pedidos e ingredientes por NPC
+     *
+     * Implementación:
+     * - Una sola consulta JPQL con LEFT JOIN, COUNT y GROUP BY (ver
+     * NpcRepository.findSummaries())
+     * - No se carga ninguna colección (Npc.pedidos, Pedido.ingredientes)
+     *
+     * @param npcIds IDs de los NPCs (null o vacío = todos)
+     * @return Un resumen por NPC, ordenados por ID
+     * @throws IllegalArgumentException si algún ID es null
      */
-    @Tool(name = "find_pedidos_by_npc", description = "Obtiene los pedidos de un NPC")
-    List<Pedido> findPedidosByNpc(Long npcId);
+    @Tool(name = "npc_summary", description = "Número de pedidos e ingredientes por NPC (una consulta COUNT/GROUP BY)")
+    List<NpcSummaryDto> npcSummary(
+            @ToolParam(name = "npcIds", description = "IDs de los NPCs (vacío = todos)", required = false) List<Long> npcIds);
 
     // ========== CE3.f: Consultas JPQL/HQL ==========
 
@@ -234,11 +445,42 @@ public interface HibernateNpcService {
      * - RA2: SQL "SELECT * FROM npcs WHERE activo = true"
      * - RA3: JPQL "SELECT n FROM Npc n WHERE n.activo = true"
      *
+     * NOTA: devuelve NpcDto (constructor expression en JPQL) en lugar de
+     * entidades Npc.
+     *
+     * Es find_active_npcs con include=none, ver findActiveNpcs(String).
+     *
      * @return Lista de NPCs activos
      * @throws RuntimeException si hay error
      */
-    @Tool(name = "find_active_npcs", description = "Busca NPCs activos usando JPQL")
-    List<Npc> findActiveNpcs();
+    List<NpcDto> findActiveNpcs();
+
+    /**
+     * NPCs activos ordenados por nombre, con la profundidad indicada en
+     * include (find_active_npcs sin fields; mismo plan de carga que
+     * findAll(String)).
+     *
+     * @param include none (por defecto), pedidos o pedidos.ingredientes
+     * @return NPCs activos con pedidos a null si include=none
+     * @throws IllegalArgumentException si include no es válido
+     */
+    List<NpcDetalleDto> findActiveNpcs(String include);
+
+    /**
+     * Herramienta find_active_npcs: findActiveNpcs(String) o, con fields,
+     * solo las columnas pedidas (igual que findAll(String, List)).
+     *
+     * @param include none (por defecto), pedidos o pedidos.ingredientes
+     * @param fields  Atributos de Npc a devolver (vacío = todos)
+     * @return List<NpcDetalleDto>, o List<Tuple> si se indica fields
+     * @throws IllegalArgumentException si include o algún campo no son
+     *                                  válidos, o si se combinan fields e
+     *                                  include con pedidos
+     */
+    @Tool(name = "find_active_npcs", description = "Busca NPCs activos usando JPQL (include: none, pedidos o pedidos.ingredientes; fields: solo esos campos)")
+    List<?> findActiveNpcs(
+            @ToolParam(name = "include", description = "none (por defecto), pedidos o pedidos.ingredientes", required = false) String include,
+            @ToolParam(name = "fields", description = "Campos de cada NPC, p. ej. [\"id\", \"nombre\"]", required = false) List<String> fields);
 
     /**
      * CE3.f: Busca NPCs con filtros dinámicos usando JPQL
@@ -260,12 +502,100 @@ public interface HibernateNpcService {
      * - RA2: StringBuilder para construir SQL dinámico
      * - RA3: JPQL con parámetros nombrados
      *
+     * NOTA: devuelve NpcDto (constructor expression en JPQL) en lugar de
+     * entidades Npc.
+     *
+     * BÚSQUEDA POR NOMBRE (sobre nombreNormalizado, sin LOWER() por fila):
+     * - "chef": contiene el texto (LIKE '%chef%', recorre toda la tabla)
+     * - "chef*": empieza por el texto (LIKE 'chef%', recorrido por rango de
+     * idx_npcs_nombre_normalizado)
+     *
      * @param query DTO con filtros opcionales
      * @return Lista de NPCs que cumplen los criterios
      * @throws RuntimeException si hay error
      */
-    @Tool(name = "search_npcs", description = "Busca NPCs con filtros dinámicos usando JPQL")
-    List<Npc> searchNpcs(NpcQueryDto query);
+    @Tool(name = "search_npcs", description = "Busca NPCs con filtros dinámicos usando JPQL (nombre: contiene; \"texto*\": empieza por)")
+    List<NpcDto> searchNpcs(NpcQueryDto query);
+
+    /**
+     * CE3.f: NPCs cuyo nombre empieza por un texto, para autocompletar
+     *
+     * Implementación:
+     * - WHERE n.nombreNormalizado LIKE 'prefijo%' ORDER BY n.nombreNormalizado
+     * - El índice idx_npcs_nombre_normalizado resuelve a la vez el filtro y
+     * el orden: con setMaxResults() la BD lee solo las primeras filas del
+     * rango
+     * - Los comodines del prefijo (%, _) se escapan: se buscan literalmente
+     *
+     * @param prefijo Comienzo del nombre (sin distinguir mayúsculas)
+     * @param limit   Máximo de resultados (por defecto 10, máximo 100)
+     * @return NPCs ordenados por nombre
+     * @throws IllegalArgumentException si el prefijo está vacío
+     */
+    @Tool(name = "autocomplete_npcs", description = "NPCs cuyo nombre empieza por un texto, sin distinguir mayúsculas (recorrido por rango del índice)")
+    List<NpcDto> autocompleteNpcs(
+            @ToolParam(name = "prefijo", description = "Comienzo del nombre") String prefijo,
+            @ToolParam(name = "limit", description = "Máximo de resultados", required = false) Integer limit);
+
+    /**
+     * CE3.f: Demanda total de cada ingrediente en todos los pedidos
+     *
+     * Implementación:
+     * - Una consulta JPQL agregada: Ingrediente → Pedido → Npc con
+     * SUM(i.cantidad) y GROUP BY i.nombre, ordenada por cantidad total
+     * - Filtros opcionales (se añaden al WHERE solo si vienen): activo del
+     * NPC y rango de Pedido.createdAt
+     * - limit: top-K con setMaxResults() (por defecto 100, máximo 1000)
+     * - Caché de consultas: Hibernate la invalida al modificar npcs, pedidos
+     * o ingredientes
+     *
+     * DIFERENCIA vs find_pedidos_by_npc NPC a NPC:
+     * - Antes: una llamada por NPC y la suma en el cliente
+     * - Ahora: la BD agrupa y suma; solo viaja una fila por ingrediente
+     *
+     * @param query Filtros opcionales (activo, desde, hasta, limit)
+     * @return Ingredientes ordenados por cantidad total descendente
+     * @throws IllegalArgumentException si desde no es anterior a hasta
+     */
+    @Tool(name = "ingredient_demand", description = "Cantidad total por ingrediente en todos los pedidos (SUM + GROUP BY, filtros activo/desde/hasta, top-K)")
+    List<IngredienteDemandaDto> ingredientDemand(IngredienteDemandaQueryDto query);
+
+    /**
+     * CE3.f: Búsqueda de texto completo en nombres de NPCs e ingredientes y
+     * comentarios de pedidos (ver TextSearchIndex)
+     *
+     * A diferencia de LIKE '%texto%' (recorre la tabla y no ordena por
+     * relevancia), consulta un índice invertido de Lucene que se mantiene al
+     * día con listeners post-commit de Hibernate.
+     *
+     * Sintaxis de la consulta:
+     * - sopa tomate: documentos con las dos palabras
+     * - "sopa de tomate": la frase exacta
+     * - sopa OR crema, sopa -fría, tomat*: alternativas, exclusión, prefijo
+     * - Sin distinguir mayúsculas ni tildes
+     *
+     * @param query Consulta
+     * @param tipo  npc, pedido o ingrediente (null = todos)
+     * @param limit Máximo de resultados (por defecto 20, máximo 100)
+     * @return Resultados ordenados por relevancia (score BM25)
+     * @throws IllegalArgumentException si la consulta o el tipo no son válidos
+     */
+    @Tool(name = "search_text", description = "Búsqueda de texto completo (Lucene) en comentarios de pedidos y nombres de NPCs e ingredientes, ordenada por relevancia")
+    List<ResultadoBusquedaDto> searchText(
+            @ToolParam(name = "query", description = "Palabras, \"frase exacta\", OR, -excluir, prefijo*") String query,
+            @ToolParam(name = "tipo", description = "npc, pedido o ingrediente (por defecto, todos)", required = false) String tipo,
+            @ToolParam(name = "limit", description = "Máximo de resultados", required = false) Integer limit);
+
+    /**
+     * Reconstruye el índice de texto completo desde la BD.
+     *
+     * Necesario tras cambios que no pasan por Hibernate (SQL directo); se
+     * ejecuta también al arrancar la aplicación.
+     *
+     * @return Documentos en el índice
+     */
+    @Tool(name = "rebuild_search_index", description = "Reconstruye desde la BD el índice de texto completo de search_text")
+    long rebuildSearchIndex();
 
     // ========== CE3.g: Gestión de Transacciones ==========
 
@@ -298,7 +628,43 @@ public interface HibernateNpcService {
      * @throws RuntimeException si hay error y se hace rollback
      */
     @Tool(name = "transfer_data", description = "Inserta múltiples NPCs en una transacción usando @Transactional")
-    boolean transferData(List<Npc> npcs);
+    boolean transferData(@ToolParam(name = "npcs", description = "NPCs a insertar") List<Npc> npcs);
+
+    /**
+     * CE3.g: Importación masiva de NPCs por bloques.
+     *
+     * A diferencia de transferData(), no acumula todos los NPCs en el contexto
+     * de persistencia: hace flush() + clear() cada chunkSize NPCs. Opciones:
+     * - chunkSize: NPCs por bloque (defecto 500)
+     * - commitPerChunk: una transacción por bloque; los bloques con error se
+     * reintentan fila a fila y las filas erróneas se informan en failedRows
+     * - resumeFrom: continuar una importación interrumpida (nextIndex)
+     * - statelessSession: usar StatelessSession (por defecto, si ningún NPC
+     * trae pedidos)
+     *
+     * @param npcs    NPCs a insertar
+     * @param options Opciones de la importación (opcional)
+     * @return Resumen con insertados, rechazados, filas/s y punto de reanudación
+     */
+    @Tool(name = "transfer_data_bulk", description = "Importación masiva de NPCs por bloques (flush/clear, commit por bloque, StatelessSession)")
+    BulkTransferResultDto transferDataBulk(
+            @ToolParam(name = "npcs", description = "NPCs a insertar") List<Npc> npcs,
+            @ToolParam(name = "options", description = "chunkSize, commitPerChunk, resumeFrom, statelessSession", required = false) BulkTransferOptionsDto options);
+
+    /**
+     * Importa NPCs con sus pedidos e ingredientes desde NDJSON en streaming
+     * (un NpcImportDto por línea), confirmando cada bloque por separado.
+     *
+     * No es una herramienta MCP: la usa el endpoint
+     * POST /mcp/transfer_data_bulk/stream, que pasa el cuerpo de la petición
+     * sin leerlo entero en memoria.
+     *
+     * @param input     Cuerpo NDJSON
+     * @param chunkSize NPCs por bloque/transacción
+     * @return Resumen de la importación (incluye error y nextIndex si se
+     *         detuvo antes de terminar)
+     */
+    BulkTransferResultDto importNpcsNdjson(InputStream input, int chunkSize);
 
     /**
      * CE3.f: Ejecuta consulta COUNT de NPCs activos usando JPQL
@@ -1,15 +1,31 @@
 package com.dam.accesodatos.ra3;
 
 import com.dam.accesodatos.model.*;
+import com.dam.accesodatos.repository.IngredienteRepository;
 import com.dam.accesodatos.repository.NpcRepository;
 import com.dam.accesodatos.repository.PedidoRepository;
 import jakarta.persistence.*;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio Hibernate/JPA para gestión de NPCs
@@ -39,6 +55,46 @@ import java.util.*;
 @Transactional(readOnly = true) // Transacciones de solo lectura por defecto
 public class HibernateNpcServiceImpl implements HibernateNpcService {
 
+    /**
+     * Máximo de IDs por SELECT ... IN (...) en búsquedas múltiples.
+     */
+    private static final int MULTI_LOAD_BATCH_SIZE = 100;
+
+    /**
+     * Tamaños de página para paginación por cursor.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String CURSOR_PREFIX = "npc:";
+
+    /**
+     * Filas leídas por viaje a la BD al recorrer en streaming.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Top-K por defecto y máximo de ingredient_demand.
+     */
+    private static final int DEFAULT_DEMAND_LIMIT = 100;
+    private static final int MAX_DEMAND_LIMIT = 1000;
+
+    /**
+     * Resultados por defecto y máximo de autocomplete_npcs.
+     */
+    private static final int DEFAULT_AUTOCOMPLETE_LIMIT = 10;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 100;
+
+    /**
+     * Sufijo de search_npcs que convierte la búsqueda en "empieza por".
+     */
+    private static final String PREFIX_WILDCARD = "*";
+
+    /**
+     * SELECT de la proyección a NpcDto (solo columnas de npcs, sin entidades).
+     */
+    private static final String NPC_DTO_SELECT =
+            "SELECT new com.dam.accesodatos.model.NpcDto(n.id, n.nombre, n.activo, n.createdAt, n.updatedAt) ";
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -48,6 +104,18 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
     @Autowired
     private PedidoRepository pedidoRepository;
 
+    @Autowired
+    private IngredienteRepository ingredienteRepository;
+
+    @Autowired
+    private NpcBulkImporter bulkImporter;
+
+    @Autowired
+    private NpcStreamImporter streamImporter;
+
+    @Autowired
+    private TextSearchIndex textSearchIndex;
+
     // ========== CE3.a: Configuración y Conexión ORM ==========
 
     /**
@@ -95,7 +163,7 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      */
     @Override
     @Transactional // ← CRÍTICO: Modifica BD, necesita transacción
-    public Npc createNpc(NpcCreateDto dto) {
+    public NpcDto createNpc(NpcCreateDto dto) {
         // Crear entidad desde DTO
         Npc npc = new Npc();
         npc.setNombre(dto.getNombre());
@@ -111,7 +179,7 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
 
         // Al finalizar el método, Spring hace commit automáticamente
         // Hibernate ejecuta el INSERT y setea el ID generado
-        return npc; // El ID ya está seteado
+        return NpcDto.from(npc); // El ID ya está seteado
     }
 
     /**
@@ -125,15 +193,78 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      * - RA3: entityManager.find(Npc.class, id), todo automático
      *
      * NOTA: find() retorna null si no existe (no lanza excepción)
+     *
+     * NOTA PEDAGÓGICA (open-in-view desactivado):
+     * El resultado se construye entero aquí, dentro de la transacción. Los
+     * pedidos no se leen de npc.getPedidos() (colección perezosa que el
+     * controlador ya no podría inicializar) sino con findPedidosByNpc(),
+     * que los trae proyectados junto con sus ingredientes.
      */
     @Override
-    public Npc findNpcById(Long id) {
+    public NpcDetalleDto findNpcById(Long id, String include) {
+        NpcInclude nivel = NpcInclude.parse(include, NpcInclude.PEDIDOS_INGREDIENTES);
+        Npc npc = loadNpc(id);
+        if (npc == null) {
+            return null;
+        }
+
+        List<PedidoDetalleDto> pedidos = switch (nivel) {
+            case NONE -> null;
+            case PEDIDOS -> pedidoRepository.findDetalleByNpcId(id).stream()
+                    .map(pedido -> pedido.withIngredientes(null))
+                    .toList();
+            case PEDIDOS_INGREDIENTES -> findPedidosByNpc(id);
+        };
+        return NpcDetalleDto.from(npc, pedidos);
+    }
+
+    @Override
+    public NpcDetalleDto findNpcById(Long id) {
+        return findNpcById(id, null);
+    }
+
+    /**
+     * Entidad Npc gestionada, para las operaciones que la modifican.
+     */
+    private Npc loadNpc(Long id) {
         // find() es la forma más directa de buscar por ID
         // Hibernate genera: SELECT ... FROM npcs WHERE id = ?
         // y mapea automáticamente las columnas a los atributos de Npc
         return entityManager.find(Npc.class, id);
     }
 
+    /**
+     * Búsqueda múltiple por ID con MultiIdentifierLoadAccess.
+     *
+     * Hibernate resuelve primero los IDs ya presentes en el contexto de
+     * persistencia (y en la caché de segundo nivel si está activa) y solo
+     * lanza SELECT ... WHERE id IN (...) para los que falten, en lotes de
+     * MULTI_LOAD_BATCH_SIZE.
+     */
+    @Override
+    public List<NpcDto> findNpcsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("La lista de IDs no puede contener null");
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        List<Npc> npcs = session.byMultipleIds(Npc.class)
+                .enableSessionCheck(true)   // Reutiliza entidades ya cargadas
+                .enableOrderedReturn(true)  // Mismo orden que ids, null si no existe
+                .with(CacheMode.NORMAL)     // Lee/escribe en la caché de 2º nivel
+                .withBatchSize(MULTI_LOAD_BATCH_SIZE)
+                .multiLoad(ids);
+
+        List<NpcDto> result = new ArrayList<>(npcs.size());
+        for (Npc npc : npcs) {
+            result.add(npc == null ? null : NpcDto.from(npc));
+        }
+        return result;
+    }
+
     /**
      * ✅ EJEMPLO IMPLEMENTADO 4/7: UPDATE con merge()
      *
@@ -150,9 +281,9 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      */
     @Override
     @Transactional // ← Modifica BD
-    public Npc updateNpc(Long id, NpcUpdateDto dto) {
+    public NpcDto updateNpc(Long id, NpcUpdateDto dto) {
         // 1. Buscar entidad existente
-        Npc existing = findNpcById(id);
+        Npc existing = loadNpc(id);
         if (existing == null) {
             throw new RuntimeException("No se encontró NPC con ID " + id);
         }
@@ -168,7 +299,7 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
 
         // 3. merge() actualiza la entidad
         // Hibernate detecta qué campos cambiaron y genera UPDATE solo de esos campos
-        return entityManager.merge(existing);
+        return NpcDto.from(entityManager.merge(existing));
         // Al finalizar, Spring hace commit y Hibernate ejecuta el UPDATE
     }
 
@@ -178,7 +309,7 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
         // TODO CE3.e: Implementar deleteNpc()
         //
         // Guía de implementación:
-        // 1. Buscar NPC: Npc npc = findNpcById(id);
+        // 1. Buscar NPC: Npc npc = loadNpc(id);
         //
         // 2. Verificar si existe:
         // if (npc == null) return false;
@@ -198,7 +329,7 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
         // - RA2: DELETE FROM npcs WHERE id = ?
         // - RA3: entityManager.remove(npc)
 
-        Npc npc = findNpcById(id);
+        Npc npc = loadNpc(id);
         if (npc == null) {
             return false;
         }
@@ -216,13 +347,159 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      * DIFERENCIAS vs RA2 (JDBC):
      * - RA2: while(rs.next()) { mapResultSetToNpc(rs); }
      * - RA3: npcRepository.findAll(), todo automático
+     *
+     * NOTA DE RENDIMIENTO:
+     * npcRepository.findAll() devolvía entidades gestionadas: cada NPC
+     * ocupaba su entrada en el contexto de persistencia, su snapshot para
+     * el dirty checking, una colección perezosa de pedidos y una copia en
+     * la caché de segundo nivel, solo para serializar 5 campos. La
+     * proyección a NpcDto lee las mismas columnas sin nada de eso.
      */
     @Override
-    public List<Npc> findAll() {
-        // Spring Data JPA genera automáticamente:
-        // SELECT n FROM Npc n
-        // y mapea resultados a List<Npc>
-        return npcRepository.findAll();
+    public List<NpcDto> findAll() {
+        // Spring Data JPA ejecuta la @Query del repositorio:
+        // SELECT new ...NpcDto(n.id, ...) FROM Npc n ORDER BY n.id
+        return npcRepository.findAllDtos();
+    }
+
+    @Override
+    public List<NpcDetalleDto> findAll(String include) {
+        NpcInclude nivel = NpcInclude.parse(include, NpcInclude.NONE);
+        if (!nivel.pedidos()) {
+            return findAll().stream().map(NpcDetalleDto::from).toList();
+        }
+        return findWithGraph("", "ORDER BY n.id", nivel);
+    }
+
+    @Override
+    public List<?> findAll(String include, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return findAll(include);
+        }
+        return findNpcFields(include, fields, false);
+    }
+
+    /**
+     * Paginación por cursor (keyset) sobre la clave primaria.
+     *
+     * Se pide una fila más de las necesarias: si llega, hay página siguiente
+     * y su cursor apunta al último id devuelto.
+     */
+    @Override
+    public NpcPageDto findNpcsPage(String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long afterId = decodeCursor(cursor);
+
+        String jpql = NPC_DTO_SELECT + "FROM Npc n WHERE n.id > :afterId ORDER BY n.id";
+        List<NpcDto> rows = entityManager.createQuery(jpql, NpcDto.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+
+        if (rows.size() <= pageSize) {
+            return new NpcPageDto(rows, null);
+        }
+        List<NpcDto> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new NpcPageDto(items, encodeCursor(items.get(pageSize - 1).id()));
+    }
+
+    /**
+     * Streaming con memoria constante.
+     *
+     * getResultStream() usa ScrollableResults: Hibernate no materializa la
+     * lista completa. Es una proyección a NpcDto, no entidades: nada entra en
+     * el contexto de persistencia ni en la caché de segundo nivel de Npc, así
+     * que no hace falta clear() para que la memoria no crezca con las filas.
+     */
+    @Override
+    public long streamAllNpcs(Consumer<NpcDto> consumer) {
+        TypedQuery<NpcDto> query = entityManager.createQuery(NPC_DTO_SELECT + "FROM Npc n ORDER BY n.id", NpcDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+
+        long count = 0;
+        try (Stream<NpcDto> npcs = query.getResultStream()) {
+            Iterator<NpcDto> iterator = npcs.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Proyección a NpcDto recorrida con getResultStream(): los DTO no quedan
+     * en el contexto de persistencia, así que no hace falta clear().
+     */
+    @Override
+    public long streamActiveNpcs(Consumer<NpcDto> consumer) {
+        String jpql = NPC_DTO_SELECT + "FROM Npc n WHERE n.activo = true ORDER BY n.nombre";
+        TypedQuery<NpcDto> query = entityManager.createQuery(jpql, NpcDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+
+        long count = 0;
+        try (Stream<NpcDto> npcs = query.getResultStream()) {
+            Iterator<NpcDto> iterator = npcs.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Los pedidos se acumulan en bloques de MULTI_LOAD_BATCH_SIZE; cada
+     * bloque se completa con sus ingredientes (withIngredientes) y se
+     * entrega antes de leer el siguiente.
+     */
+    @Override
+    public long streamPedidosByNpc(Long npcId, Consumer<PedidoDetalleDto> consumer) {
+        if (npcId == null) {
+            throw new IllegalArgumentException("El ID del NPC es obligatorio");
+        }
+        String jpql = "SELECT new com.dam.accesodatos.model.PedidoDetalleDto(p.id, p.comentario, p.createdAt) "
+                + "FROM Pedido p WHERE p.npc.id = :npcId ORDER BY p.id";
+        TypedQuery<PedidoDetalleDto> query = entityManager.createQuery(jpql, PedidoDetalleDto.class)
+                .setParameter("npcId", npcId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+
+        long count = 0;
+        List<PedidoDetalleDto> batch = new ArrayList<>(MULTI_LOAD_BATCH_SIZE);
+        try (Stream<PedidoDetalleDto> pedidos = query.getResultStream()) {
+            Iterator<PedidoDetalleDto> iterator = pedidos.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == MULTI_LOAD_BATCH_SIZE) {
+                    withIngredientes(batch).forEach(consumer);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        withIngredientes(batch).forEach(consumer);
+        return count + batch.size();
+    }
+
+    private String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor, e);
+        }
+        if (!decoded.startsWith(CURSOR_PREFIX) || !decoded.substring(CURSOR_PREFIX.length()).matches("\\d+")) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor);
+        }
+        return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
     }
 
     // ========== OPERACIONES DE PEDIDOS ==========
@@ -236,12 +513,14 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      * - Al usar npc.addPedido(), mantenemos la bidireccionalidad
      * - Los ingredientes se guardan automáticamente por cascade = ALL
      * - No hay que hacer INSERT manual de ingredientes
+     * - persist(pedido) en lugar de merge(npc): merge() devuelve copias
+     * gestionadas y el pedido original se quedaba sin ID
      */
     @Override
     @Transactional
-    public Pedido addPedidoToNpc(Long npcId, PedidoCreateDto dto) {
+    public PedidoDetalleDto addPedidoToNpc(Long npcId, PedidoCreateDto dto) {
         // 1. Buscar NPC
-        Npc npc = findNpcById(npcId);
+        Npc npc = loadNpc(npcId);
         if (npc == null) {
             throw new RuntimeException("No se encontró NPC con ID " + npcId);
         }
@@ -264,18 +543,70 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
         // 4. Añadir pedido al NPC (mantiene bidireccionalidad)
         npc.addPedido(pedido);
 
-        // 5. merge() propaga cambios al pedido e ingredientes por cascade
-        entityManager.merge(npc);
+        // 5. persist() guarda el pedido y, por cascade, sus ingredientes
+        // Los IDs salen de las secuencias al hacer persist(), sin esperar al flush
+        entityManager.persist(pedido);
 
-        return pedido;
+        return PedidoDetalleDto.from(pedido);
     }
 
     /**
-     * Obtiene los pedidos de un NPC.
+     * Obtiene los pedidos de un NPC en 2 consultas como máximo.
+     *
+     * 1. Pedidos proyectados a DTO (sin entidades ni colecciones perezosas)
+     * 2. Ingredientes de todos esos pedidos con una consulta IN
      */
     @Override
-    public List<Pedido> findPedidosByNpc(Long npcId) {
-        return pedidoRepository.findByNpcId(npcId);
+    public List<PedidoDetalleDto> findPedidosByNpc(Long npcId) {
+        List<PedidoDetalleDto> pedidos = pedidoRepository.findDetalleByNpcId(npcId);
+        return withIngredientes(pedidos);
+    }
+
+    @Override
+    public long countPedidosByNpc(Long npcId) {
+        if (npcId == null) {
+            throw new IllegalArgumentException("El ID del NPC es obligatorio");
+        }
+        return pedidoRepository.countByNpcId(npcId);
+    }
+
+    /**
+     * Una consulta de agregación para todos los NPCs pedidos. Para un único
+     * NPC, countPedidosByNpc() da el número de pedidos con un COUNT simple.
+     */
+    @Override
+    public List<NpcSummaryDto> npcSummary(List<Long> npcIds) {
+        if (npcIds == null || npcIds.isEmpty()) {
+            return npcRepository.findSummaries();
+        }
+        if (npcIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("La lista de IDs no puede contener null");
+        }
+        return npcRepository.findSummariesByIds(npcIds);
+    }
+
+    /**
+     * Completa los pedidos con sus ingredientes usando una única consulta
+     * WHERE pedido_id IN (...).
+     */
+    private List<PedidoDetalleDto> withIngredientes(List<PedidoDetalleDto> pedidos) {
+        if (pedidos.isEmpty()) {
+            return pedidos;
+        }
+
+        List<Long> pedidoIds = pedidos.stream().map(PedidoDetalleDto::id).toList();
+        Map<Long, List<IngredienteDetalleDto>> ingredientesPorPedido = new HashMap<>();
+        for (Object[] row : ingredienteRepository.findDetalleByPedidoIds(pedidoIds)) {
+            ingredientesPorPedido
+                    .computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new IngredienteDetalleDto((Long) row[1], (String) row[2], (Integer) row[3]));
+        }
+
+        List<PedidoDetalleDto> result = new ArrayList<>(pedidos.size());
+        for (PedidoDetalleDto pedido : pedidos) {
+            result.add(pedido.withIngredientes(ingredientesPorPedido.getOrDefault(pedido.id(), List.of())));
+        }
+        return result;
     }
 
     // ========== CE3.f: Consultas JPQL ==========
@@ -294,21 +625,151 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
      * - Incorrecto: "FROM npcs n" (tabla), "n.activo_flag" (columna)
      */
     @Override
-    public List<Npc> findActiveNpcs() {
+    public List<NpcDto> findActiveNpcs() {
         // JPQL: Query language orientado a objetos
         // - Npc (entidad) en lugar de npcs (tabla)
         // - n.activo (atributo) en lugar de activo (columna)
-        String jpql = "SELECT n FROM Npc n WHERE n.activo = true ORDER BY n.nombre";
+        // - SELECT new ...NpcDto(...): proyección, Hibernate no crea entidades
+        // gestionadas (ni snapshot ni colección perezosa de pedidos)
+        String jpql = NPC_DTO_SELECT + "FROM Npc n WHERE n.activo = true ORDER BY n.nombre";
 
         // TypedQuery garantiza type-safety
-        TypedQuery<Npc> query = entityManager.createQuery(jpql, Npc.class);
+        TypedQuery<NpcDto> query = entityManager.createQuery(jpql, NpcDto.class);
+
+        // Caché de consultas: se guardan las filas del resultado (no IDs de
+        // entidades). Hibernate la invalida sola cuando cambia la tabla npcs.
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, HibernateCacheConfig.NPC_QUERY_REGION);
 
-        // getResultList() retorna List<Npc>
+        // getResultList() retorna List<NpcDto>
         return query.getResultList();
     }
 
     @Override
-    public List<Npc> searchNpcs(NpcQueryDto queryDto) {
+    public List<NpcDetalleDto> findActiveNpcs(String include) {
+        NpcInclude nivel = NpcInclude.parse(include, NpcInclude.NONE);
+        if (!nivel.pedidos()) {
+            return findActiveNpcs().stream().map(NpcDetalleDto::from).toList();
+        }
+        return findWithGraph("WHERE n.activo = true ", "ORDER BY n.nombre", nivel);
+    }
+
+    @Override
+    public List<?> findActiveNpcs(String include, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return findActiveNpcs(include);
+        }
+        return findNpcFields(include, fields, true);
+    }
+
+    /**
+     * Solo los atributos de Npc indicados en fields, con Criteria API:
+     * SELECT n.id AS id, n.nombre AS nombre FROM Npc n ... (multiselect)
+     *
+     * Cada fila es un Tuple con un elemento por campo (el alias es el
+     * nombre del atributo): Hibernate no crea entidades ni hace falta un DTO
+     * por cada combinación de campos.
+     */
+    private List<Tuple> findNpcFields(String include, List<String> fields, boolean soloActivos) {
+        if (NpcInclude.parse(include, NpcInclude.NONE).pedidos()) {
+            throw new IllegalArgumentException("fields no se puede combinar con include=" + include);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Npc> npc = query.from(Npc.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : validNpcFields(fields)) {
+            selections.add(npc.get(field).alias(field));
+        }
+        query.multiselect(selections);
+
+        if (soloActivos) {
+            query.where(cb.isTrue(npc.get("activo")));
+            query.orderBy(cb.asc(npc.get("nombre")));
+        } else {
+            query.orderBy(cb.asc(npc.get("id")));
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Comprueba fields contra el metamodelo: solo atributos básicos de Npc
+     * (no la colección de pedidos). Quita repetidos y conserva el orden.
+     */
+    private Set<String> validNpcFields(List<String> fields) {
+        EntityType<Npc> type = entityManager.getMetamodel().entity(Npc.class);
+        Set<String> valid = new LinkedHashSet<>();
+        for (String field : fields) {
+            Attribute<? super Npc, ?> attribute = field == null ? null : type.getAttributes().stream()
+                    .filter(a -> a.getName().equals(field))
+                    .findFirst()
+                    .orElse(null);
+            if (attribute == null || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                throw new IllegalArgumentException("Campo no válido: " + field + " (admitidos: " + basicNpcFields(type) + ")");
+            }
+            valid.add(field);
+        }
+        return valid;
+    }
+
+    private static List<String> basicNpcFields(EntityType<Npc> type) {
+        return type.getAttributes().stream()
+                .filter(a -> a.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                .map(Attribute::getName)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * NPCs con sus pedidos (grafo Npc.GRAPH_PEDIDOS) y, si include lo pide,
+     * los ingredientes de esos pedidos (grafo Pedido.GRAPH_INGREDIENTES).
+     *
+     * Son 1 o 2 consultas tengan los NPCs los pedidos que tengan:
+     * 1. SELECT n FROM Npc n ... con JOIN de pedidos
+     * 2. SELECT p FROM Pedido p JOIN p.npc n ... con JOIN de ingredientes
+     *
+     * La segunda repite el filtro de la primera en lugar de pasar los IDs,
+     * así que el número de parámetros no crece con los NPCs. Es la idea de
+     * FetchMode.SUBSELECT, pero escrita a mano: el mapeo no la usa.
+     *
+     * NOTA: las colecciones llevan @BatchSize, que sí pasa IDs en bloques de
+     * 50; solo entra en juego cuando se recorren sin estos grafos.
+     *
+     * Los pedidos que devuelve la segunda consulta son las mismas instancias
+     * que ya están en npc.getPedidos() (contexto de persistencia), así que
+     * solo se usa para inicializar sus ingredientes.
+     *
+     * @param where Condición sobre el alias n ("" para todos los NPCs)
+     */
+    private List<NpcDetalleDto> findWithGraph(String where, String orderBy, NpcInclude include) {
+        List<Npc> npcs = entityManager.createQuery("SELECT n FROM Npc n " + where + orderBy, Npc.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph(Npc.GRAPH_PEDIDOS))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+
+        if (include.ingredientes() && !npcs.isEmpty()) {
+            entityManager.createQuery("SELECT p FROM Pedido p JOIN p.npc n " + where, Pedido.class)
+                    .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph(Pedido.GRAPH_INGREDIENTES))
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultList();
+        }
+
+        List<NpcDetalleDto> result = new ArrayList<>(npcs.size());
+        for (Npc npc : npcs) {
+            List<PedidoDetalleDto> pedidos = new ArrayList<>(npc.getPedidos().size());
+            for (Pedido pedido : npc.getPedidos()) {
+                pedidos.add(PedidoDetalleDto.from(pedido, include.ingredientes()));
+            }
+            pedidos.sort(Comparator.comparing(PedidoDetalleDto::id));
+            result.add(NpcDetalleDto.from(npc, pedidos));
+        }
+        return result;
+    }
+
+    @Override
+    public List<NpcDto> searchNpcs(NpcQueryDto queryDto) {
         // TODO CE3.f: Implementar searchNpcs() con JPQL dinámico
         //
         // VERSIÓN SIMPLIFICADA: Usa JPQL en lugar de Criteria API
@@ -340,18 +801,30 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
         //
         // VENTAJA vs RA2: Parámetros nombrados evitan SQL injection
 
-        StringBuilder jpql = new StringBuilder("SELECT n FROM Npc n WHERE 1=1");
+        // Proyección a NpcDto en lugar de "SELECT n": resultado de solo lectura
+        // Nombre ya normalizado en Java: la BD compara con nombre_normalizado
+        // sin calcular LOWER() fila a fila. Los % y _ del usuario se escapan:
+        // solo cuentan como comodines los que añadimos aquí
+        String nombre = null;
         if (queryDto.getNombre() != null) {
-            jpql.append(" AND LOWER(n.nombre) LIKE LOWER(:nombre)");
+            nombre = queryDto.getNombre().toLowerCase(Locale.ROOT);
+            nombre = nombre.endsWith(PREFIX_WILDCARD)
+                    ? escapeLike(nombre.substring(0, nombre.length() - PREFIX_WILDCARD.length())) + "%"
+                    : "%" + escapeLike(nombre) + "%";
+        }
+
+        StringBuilder jpql = new StringBuilder(NPC_DTO_SELECT).append("FROM Npc n WHERE 1=1");
+        if (nombre != null) {
+            jpql.append(" AND n.nombreNormalizado LIKE :nombre ESCAPE '\\'");
         }
         if (queryDto.getActivo() != null) {
             jpql.append(" AND n.activo = :activo");
         }
 
-        TypedQuery<Npc> query = entityManager.createQuery(jpql.toString(), Npc.class);
+        TypedQuery<NpcDto> query = entityManager.createQuery(jpql.toString(), NpcDto.class);
 
-        if (queryDto.getNombre() != null) {
-            query.setParameter("nombre", "%" + queryDto.getNombre() + "%");
+        if (nombre != null) {
+            query.setParameter("nombre", nombre);
         }
         if (queryDto.getActivo() != null) {
             query.setParameter("activo", queryDto.getActivo());
@@ -360,6 +833,112 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
 
     }
 
+    @Override
+    public List<NpcDto> autocompleteNpcs(String prefijo, Integer limit) {
+        if (prefijo == null || prefijo.isBlank()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+        int maxResults = limit == null ? DEFAULT_AUTOCOMPLETE_LIMIT
+                : Math.max(1, Math.min(limit, MAX_AUTOCOMPLETE_LIMIT));
+
+        // El índice da las filas ya ordenadas: la BD para tras maxResults
+        return entityManager.createQuery(NPC_DTO_SELECT
+                        + "FROM Npc n WHERE n.nombreNormalizado LIKE :prefijo ESCAPE '\\' "
+                        + "ORDER BY n.nombreNormalizado, n.id", NpcDto.class)
+                .setParameter("prefijo", escapeLike(prefijo.toLowerCase(Locale.ROOT)) + "%")
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    /**
+     * Escapa los comodines de LIKE (%, _) y el propio carácter de escape.
+     */
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Solo lee el índice de Lucene: no necesita transacción ni conexión.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ResultadoBusquedaDto> searchText(String query, String tipo, Integer limit) {
+        return textSearchIndex.search(query, tipo, limit);
+    }
+
+    /**
+     * Recorre las tres tablas con proyecciones en streaming (sin entidades
+     * en el contexto de persistencia) y vuelve a llenar el índice.
+     */
+    @Override
+    public long rebuildSearchIndex() {
+        return textSearchIndex.rebuild(loader -> {
+            forEachRow("SELECT n.id, n.nombre FROM Npc n",
+                    row -> loader.indexNpc((Long) row[0], (String) row[1]));
+            forEachRow("SELECT p.id, p.npc.id, p.comentario FROM Pedido p",
+                    row -> loader.indexPedido((Long) row[0], (Long) row[1], (String) row[2]));
+            forEachRow("SELECT i.id, i.pedido.id, i.nombre FROM Ingrediente i",
+                    row -> loader.indexIngrediente((Long) row[0], (Long) row[1], (String) row[2]));
+        });
+    }
+
+    private void forEachRow(String jpql, Consumer<Object[]> consumer) {
+        try (Stream<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * JPQL dinámico como searchNpcs(), pero agregado: la BD suma y agrupa
+     * y el top-K se aplica con setMaxResults() (LIMIT en SQL).
+     *
+     * NOTA: la caché de consultas guarda una entrada por combinación de
+     * parámetros. Las inserciones con StatelessSession (transfer_data_bulk)
+     * no la invalidan, pero solo crean NPCs sin pedidos, que no cambian el
+     * resultado.
+     */
+    @Override
+    public List<IngredienteDemandaDto> ingredientDemand(IngredienteDemandaQueryDto queryDto) {
+        IngredienteDemandaQueryDto filters = queryDto != null ? queryDto : new IngredienteDemandaQueryDto();
+        if (filters.getDesde() != null && filters.getHasta() != null
+                && !filters.getDesde().isBefore(filters.getHasta())) {
+            throw new IllegalArgumentException("desde debe ser anterior a hasta");
+        }
+        int limit = filters.getLimit() == null ? DEFAULT_DEMAND_LIMIT
+                : Math.max(1, Math.min(filters.getLimit(), MAX_DEMAND_LIMIT));
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.dam.accesodatos.model.IngredienteDemandaDto(i.nombre, SUM(i.cantidad), COUNT(DISTINCT p.id)) "
+                        + "FROM Ingrediente i JOIN i.pedido p JOIN p.npc n WHERE 1=1");
+        if (filters.getActivo() != null) {
+            jpql.append(" AND n.activo = :activo");
+        }
+        if (filters.getDesde() != null) {
+            jpql.append(" AND p.createdAt >= :desde");
+        }
+        if (filters.getHasta() != null) {
+            jpql.append(" AND p.createdAt < :hasta");
+        }
+        jpql.append(" GROUP BY i.nombre ORDER BY SUM(i.cantidad) DESC, i.nombre");
+
+        TypedQuery<IngredienteDemandaDto> query = entityManager.createQuery(jpql.toString(), IngredienteDemandaDto.class);
+        if (filters.getActivo() != null) {
+            query.setParameter("activo", filters.getActivo());
+        }
+        if (filters.getDesde() != null) {
+            query.setParameter("desde", filters.getDesde());
+        }
+        if (filters.getHasta() != null) {
+            query.setParameter("hasta", filters.getHasta());
+        }
+        query.setMaxResults(limit);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, HibernateCacheConfig.INGREDIENT_DEMAND_QUERY_REGION);
+        return query.getResultList();
+    }
+
     @Override
     public long countActiveNpcs() {
         // TODO CE3.f: Implementar countActiveNpcs()
@@ -380,6 +959,8 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
 
         String jpql = "SELECT COUNT(n) FROM Npc n WHERE n.activo = true";
         TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        query.setHint(HibernateHints.HINT_CACHE_REGION, HibernateCacheConfig.NPC_QUERY_REGION);
         return query.getSingleResult();
 
     }
@@ -414,10 +995,38 @@ public class HibernateNpcServiceImpl implements HibernateNpcService {
         // - No necesitas rollback() manual en catch
         // - Spring lo hace automáticamente según el resultado del método
 
+        // Carga masiva: no volcar los NPCs nuevos en la caché de segundo nivel
+        // (desplazarían a los NPCs consultados habitualmente). Afecta al resto
+        // de la transacción, que termina al salir de este método.
+        entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+
+        // Con IDs de secuencia, los INSERT se envían en lotes de
+        // hibernate.jdbc.batch_size al hacer flush
         for (Npc npc : npcs) {
             entityManager.persist(npc);
         }
         return true;
     }
 
+    /**
+     * Importación masiva por bloques (ver NpcBulkImporter).
+     *
+     * NOT_SUPPORTED: el importador gestiona sus propias transacciones (una
+     * en total o una por bloque), así que se suspende la del llamante.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkTransferResultDto transferDataBulk(List<Npc> npcs, BulkTransferOptionsDto options) {
+        return bulkImporter.importNpcs(npcs, options);
+    }
+
+    /**
+     * Importación NDJSON en streaming (ver NpcStreamImporter).
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkTransferResultDto importNpcsNdjson(InputStream input, int chunkSize) {
+        return streamImporter.importNdjson(input, chunkSize);
+    }
+
 }
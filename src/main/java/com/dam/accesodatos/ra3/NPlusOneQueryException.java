@@ -0,0 +1,13 @@
+package com.dam.accesodatos.ra3;
+
+/**
+ * Se lanza en modo fail-fast (mcp.sql.fail-fast=true) cuando una misma
+ * consulta SELECT se repite más veces de lo permitido dentro de una llamada:
+ * el patrón típico de N+1 (una consulta por cada elemento de una lista).
+ */
+public class NPlusOneQueryException extends RuntimeException {
+
+    public NPlusOneQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,300 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.BulkTransferOptionsDto;
+import com.dam.accesodatos.model.BulkTransferResultDto;
+import com.dam.accesodatos.model.BulkTransferResultDto.FailedRow;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de NPCs por bloques (transfer_data_bulk).
+ *
+ * PROBLEMA de transferData(): todos los NPCs se quedan en el contexto de
+ * persistencia hasta el commit, así que con cientos de miles de filas la
+ * memoria crece sin límite.
+ *
+ * SOLUCIÓN:
+ * - Bloques de chunkSize NPCs: tras cada bloque flush() (INSERT en lotes
+ * JDBC) y clear() (se liberan las entidades ya escritas)
+ * - commitPerChunk: cada bloque en su propia transacción. Si un bloque
+ * falla, se reintenta fila a fila para aislar las filas erróneas, y
+ * nextIndex indica desde dónde reanudar si la importación se interrumpe
+ * - StatelessSession: si ningún NPC trae pedidos no hace falta cascada ni
+ * contexto de persistencia, y se insertan directamente (sin caché, sin
+ * eventos, sin dirty checking)
+ *
+ * NOTA: las filas se validan con Bean Validation antes de escribirlas;
+ * StatelessSession no dispara la validación automática de Hibernate.
+ * Tampoco dispara los listeners post-commit del índice de texto completo:
+ * los NPCs insertados por esa vía se indexan aquí tras el commit.
+ */
+@Component
+public class NpcBulkImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NpcBulkImporter.class);
+
+    static final int DEFAULT_CHUNK_SIZE = 500;
+    static final int MAX_CHUNK_SIZE = 10_000;
+    static final int MAX_REPORTED_FAILURES = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TextSearchIndex textSearchIndex;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Importa los NPCs según las opciones indicadas.
+     *
+     * @throws IllegalArgumentException si las opciones no son válidas
+     * @throws RuntimeException         si falla la importación en modo todo o
+     *                                  nada (se hace rollback de todo)
+     */
+    public BulkTransferResultDto importNpcs(List<Npc> npcs, BulkTransferOptionsDto options) {
+        if (npcs == null) {
+            throw new IllegalArgumentException("La lista de NPCs es obligatoria");
+        }
+        BulkTransferOptionsDto opts = options != null ? options : new BulkTransferOptionsDto();
+
+        int chunkSize = opts.getChunkSize() != null ? opts.getChunkSize() : DEFAULT_CHUNK_SIZE;
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize debe estar entre 1 y " + MAX_CHUNK_SIZE);
+        }
+        int start = opts.getResumeFrom() != null ? opts.getResumeFrom() : 0;
+        if (start < 0 || start > npcs.size()) {
+            throw new IllegalArgumentException("resumeFrom debe estar entre 0 y " + npcs.size());
+        }
+        boolean commitPerChunk = Boolean.TRUE.equals(opts.getCommitPerChunk());
+        boolean stateless = useStatelessSession(npcs.subList(start, npcs.size()), opts.getStatelessSession());
+
+        Progress progress = new Progress(start);
+        long startNanos = System.nanoTime();
+
+        if (commitPerChunk) {
+            for (int from = start; from < npcs.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, npcs.size());
+                writeChunkInOwnTransaction(npcs, from, to, stateless, chunkSize, progress);
+                progress.nextIndex = to;
+            }
+        } else {
+            // Todo o nada: una transacción, pero flush + clear por bloque
+            inTransaction(stateless, chunkSize, writer -> {
+                for (int from = start; from < npcs.size(); from += chunkSize) {
+                    int to = Math.min(from + chunkSize, npcs.size());
+                    List<Npc> valid = validChunk(npcs, from, to, progress, new ArrayList<>());
+                    writer.accept(valid);
+                    progress.inserted += valid.size();
+                    progress.chunks++;
+                }
+            });
+            progress.nextIndex = npcs.size();
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        BulkTransferResultDto result = new BulkTransferResultDto(
+                stateless ? "stateless" : "stateful",
+                commitPerChunk,
+                npcs.size(),
+                progress.inserted,
+                progress.failed,
+                progress.chunks,
+                progress.nextIndex,
+                elapsedNanos / 1_000_000,
+                elapsedNanos == 0 ? 0.0 : progress.inserted * 1_000_000_000.0 / elapsedNanos,
+                progress.failedRows,
+                null);
+
+        logger.info("Importación masiva: {} insertados, {} rechazados, {} bloques, {} filas/s ({})",
+                result.inserted(), result.failed(), result.chunks(), Math.round(result.rowsPerSecond()), result.mode());
+        return result;
+    }
+
+    // ========== ESCRITURA POR BLOQUES ==========
+
+    private void writeChunkInOwnTransaction(List<Npc> npcs, int from, int to, boolean stateless, int chunkSize,
+            Progress progress) {
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Npc> valid = validChunk(npcs, from, to, progress, validIndexes);
+        progress.chunks++;
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            inTransaction(stateless, chunkSize, writer -> writer.accept(valid));
+            progress.inserted += valid.size();
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Bloque [{}, {}) fallido, reintentando fila a fila: {}", from, to, e.getMessage());
+        }
+
+        // Reintento fila a fila: solo se pierden las filas que fallan
+        for (int index : validIndexes) {
+            Npc npc = npcs.get(index);
+            resetIds(npc);
+            try {
+                inTransaction(stateless, 1, writer -> writer.accept(List.of(npc)));
+                progress.inserted++;
+            } catch (RuntimeException e) {
+                progress.fail(index, npc, rootMessage(e));
+            }
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción nueva, entregándole una función
+     * que escribe un bloque de NPCs.
+     */
+    private void inTransaction(boolean stateless, int batchSize, Consumer<Consumer<List<Npc>>> work) {
+        if (stateless) {
+            SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                session.setJdbcBatchSize(batchSize);
+                Transaction transaction = session.beginTransaction();
+                List<Npc> inserted = new ArrayList<>();
+                try {
+                    work.accept(chunk -> {
+                        chunk.forEach(session::insert);
+                        inserted.addAll(chunk);
+                    });
+                    transaction.commit();
+                    textSearchIndex.indexAll(inserted);
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+            }
+            return;
+        }
+
+        newTransaction.executeWithoutResult(status -> {
+            // Los NPCs importados no se vuelcan en la caché de segundo nivel
+            entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+            work.accept(chunk -> {
+                chunk.forEach(entityManager::persist);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        });
+    }
+
+    // ========== VALIDACIÓN ==========
+
+    private boolean useStatelessSession(List<Npc> npcs, Boolean requested) {
+        boolean withoutPedidos = npcs.stream().allMatch(npc -> npc.getPedidos() == null || npc.getPedidos().isEmpty());
+        if (Boolean.TRUE.equals(requested) && !withoutPedidos) {
+            throw new IllegalArgumentException("StatelessSession no hace cascada: hay NPCs con pedidos");
+        }
+        return requested != null ? requested : withoutPedidos;
+    }
+
+    /**
+     * NPCs válidos del bloque [from, to). Los no válidos se anotan como
+     * rechazados; las posiciones de los válidos se añaden a validIndexes.
+     */
+    private List<Npc> validChunk(List<Npc> npcs, int from, int to, Progress progress, List<Integer> validIndexes) {
+        List<Npc> valid = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Npc npc = npcs.get(i);
+            if (npc == null) {
+                progress.fail(i, null, "NPC nulo");
+                continue;
+            }
+            Set<ConstraintViolation<Npc>> violations = validator.validate(npc);
+            if (violations.isEmpty()) {
+                valid.add(npc);
+                validIndexes.add(i);
+            } else {
+                progress.fail(i, npc, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Tras un rollback los NPCs conservan el ID asignado por la secuencia;
+     * hay que quitarlo para que persist() los trate como nuevos.
+     */
+    private void resetIds(Npc npc) {
+        npc.setId(null);
+        if (npc.getPedidos() != null) {
+            for (Pedido pedido : npc.getPedidos()) {
+                pedido.setId(null);
+                if (pedido.getIngredientes() != null) {
+                    pedido.getIngredientes().forEach(ingrediente -> ingrediente.setId(null));
+                }
+            }
+        }
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    /**
+     * Contadores de la importación en curso.
+     */
+    private static final class Progress {
+        private int inserted;
+        private int failed;
+        private int chunks;
+        private int nextIndex;
+        private final List<FailedRow> failedRows = new ArrayList<>();
+
+        private Progress(int start) {
+            this.nextIndex = start;
+        }
+
+        private void fail(int index, Npc npc, String error) {
+            failed++;
+            if (failedRows.size() < MAX_REPORTED_FAILURES) {
+                failedRows.add(new FailedRow(index, npc != null ? npc.getNombre() : null, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.BulkTransferOptionsDto;
+import com.dam.accesodatos.model.BulkTransferResultDto;
+import com.dam.accesodatos.model.BulkTransferResultDto.FailedRow;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcImportDto;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación de NPCs (con pedidos e ingredientes) desde un cuerpo NDJSON
+ * en streaming: un NpcImportDto por línea.
+ *
+ * FUNCIONAMIENTO:
+ * - El hilo de la petición lee la entrada con JsonParser/MappingIterator:
+ * cada línea se convierte en un grafo de entidades sin cargar el cuerpo
+ * completo en memoria
+ * - Las entidades se agrupan en bloques y se dejan en una cola ACOTADA
+ * - Un hilo escritor toma los bloques de la cola y los confirma con
+ * NpcBulkImporter (una transacción por bloque)
+ *
+ * CONTRAPRESIÓN (back-pressure):
+ * Si la BD va más lenta que la red, la cola se llena y el lector se bloquea;
+ * al dejar de leer, TCP frena al cliente. En memoria nunca hay más de
+ * QUEUE_CAPACITY + 1 bloques, sea cual sea el tamaño de la entrada.
+ *
+ * PLAZOS (el hilo de la petición nunca espera indefinidamente):
+ * - El escritor corre en su propio executor (ndjsonImportExecutor), no en
+ * el de las herramientas: un lote JSON-RPC que ocupe ese pool no puede
+ * dejarlo en cola
+ * - Si el escritor no arranca en writer-start-timeout, o no saca un bloque
+ * de la cola en enqueue-timeout, la importación se detiene con error y
+ * nextIndex indica desde dónde reintentar
+ */
+@Component
+public class NpcStreamImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NpcStreamImporter.class);
+
+    /**
+     * Bloques en espera de escritura.
+     */
+    static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * Cada cuánto comprueba el lector si el escritor ha fallado mientras
+     * espera hueco en la cola.
+     */
+    private static final long OFFER_TIMEOUT_MS = 200;
+
+    /**
+     * Espera máxima a que el escritor empiece (mcp.import.writer-start-timeout).
+     */
+    @Value("${mcp.import.writer-start-timeout:5s}")
+    private Duration writerStartTimeout;
+
+    /**
+     * Espera máxima por hueco en la cola, es decir, a que el escritor termine
+     * el bloque en curso (mcp.import.enqueue-timeout).
+     */
+    @Value("${mcp.import.enqueue-timeout:60s}")
+    private Duration enqueueTimeout;
+
+    /**
+     * Marca de fin de entrada para el hilo escritor.
+     */
+    private static final Chunk END = new Chunk(-1, List.of());
+
+    @Autowired
+    private NpcBulkImporter bulkImporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("ndjsonImportExecutor")
+    private ExecutorService writerExecutor;
+
+    /**
+     * Importa todos los NPCs de la entrada NDJSON.
+     *
+     * Si una línea no es JSON válido, la importación se detiene: los bloques
+     * anteriores quedan confirmados y el resultado indica el error y la
+     * línea (nextIndex) desde la que reintentar.
+     *
+     * @param input     Cuerpo NDJSON
+     * @param chunkSize NPCs por bloque/transacción
+     * @return Resumen de la importación
+     */
+    public BulkTransferResultDto importNdjson(InputStream input, int chunkSize) {
+        if (chunkSize < 1 || chunkSize > NpcBulkImporter.MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize debe estar entre 1 y " + NpcBulkImporter.MAX_CHUNK_SIZE);
+        }
+
+        long startNanos = System.nanoTime();
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Totals totals = new Totals();
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> writer;
+        try {
+            writer = writerExecutor.submit(() -> {
+                started.countDown();
+                writeChunks(queue, chunkSize, totals);
+            });
+        } catch (RejectedExecutionException e) {
+            return result(totals, 0, startNanos, "No hay hilo escritor disponible: demasiadas importaciones a la vez");
+        }
+        if (!awaitStart(started)) {
+            writer.cancel(true);
+            return result(totals, 0, startNanos,
+                    "El escritor no ha arrancado en " + writerStartTimeout.toMillis() + " ms");
+        }
+
+        int lines = 0;
+        String error = null;
+        ObjectReader reader = objectMapper.readerFor(NpcImportDto.class);
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+                MappingIterator<NpcImportDto> iterator = reader.readValues(parser)) {
+            List<Npc> current = new ArrayList<>(chunkSize);
+            int firstIndex = 0;
+            while (iterator.hasNextValue()) {
+                NpcImportDto dto = iterator.nextValue();
+                current.add(dto != null ? dto.toEntity() : null);
+                lines++;
+                if (current.size() == chunkSize) {
+                    enqueue(queue, new Chunk(firstIndex, current), writer);
+                    current = new ArrayList<>(chunkSize);
+                    firstIndex = lines;
+                }
+            }
+            if (!current.isEmpty()) {
+                enqueue(queue, new Chunk(firstIndex, current), writer);
+            }
+        } catch (IOException | RuntimeException e) {
+            error = "Línea " + (lines + 1) + ": " + e.getMessage();
+            logger.warn("Importación NDJSON detenida en la línea {}: {}", lines + 1, e.getMessage());
+        } finally {
+            finish(queue, writer);
+        }
+
+        return result(totals, lines, startNanos, error);
+    }
+
+    private BulkTransferResultDto result(Totals totals, int lines, long startNanos, String error) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        // Si el escritor se canceló por plazo puede seguir escribiendo:
+        // copia coherente de los totales
+        synchronized (totals) {
+            return new BulkTransferResultDto(
+                    totals.mode(),
+                    true,
+                    lines,
+                    totals.inserted,
+                    totals.failed,
+                    totals.chunks,
+                    totals.nextIndex,
+                    elapsedNanos / 1_000_000,
+                    elapsedNanos == 0 ? 0.0 : totals.inserted * 1_000_000_000.0 / elapsedNanos,
+                    List.copyOf(totals.failedRows),
+                    totals.error != null ? totals.error : error);
+        }
+    }
+
+    // ========== PRODUCTOR ==========
+
+    private boolean awaitStart(CountDownLatch started) {
+        try {
+            return started.await(writerStartTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void enqueue(BlockingQueue<Chunk> queue, Chunk chunk, Future<?> writer) {
+        long deadline = System.nanoTime() + enqueueTimeout.toNanos();
+        try {
+            // Bloquea mientras la cola esté llena (contrapresión), pero sin
+            // quedarse colgado si el escritor ya ha terminado o no avanza
+            while (!queue.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    throw new IllegalStateException("El escritor se ha detenido");
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("El escritor no ha avanzado en "
+                            + enqueueTimeout.toMillis() + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        }
+    }
+
+    private void finish(BlockingQueue<Chunk> queue, Future<?> writer) {
+        long deadline = System.nanoTime() + enqueueTimeout.toNanos();
+        try {
+            while (!writer.isDone() && !queue.offer(END, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() - deadline > 0) {
+                    logger.error("El escritor de la importación NDJSON no avanza: se cancela");
+                    writer.cancel(true);
+                    return;
+                }
+            }
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+        } catch (ExecutionException e) {
+            logger.error("Error en el escritor de la importación NDJSON", e.getCause());
+        }
+    }
+
+    // ========== CONSUMIDOR ==========
+
+    private void writeChunks(BlockingQueue<Chunk> queue, int chunkSize, Totals totals) {
+        try {
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk == END) {
+                    return;
+                }
+                BulkTransferResultDto result = bulkImporter.importNpcs(chunk.npcs(),
+                        new BulkTransferOptionsDto(chunkSize, true));
+                synchronized (totals) {
+                    totals.add(chunk.firstIndex(), result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            synchronized (totals) {
+                totals.error = "Error escribiendo en la BD: " + e.getMessage();
+            }
+            throw e;
+        }
+    }
+
+    // ========== TIPOS INTERNOS ==========
+
+    /**
+     * Bloque de NPCs y su posición (línea) en la entrada.
+     */
+    private record Chunk(int firstIndex, List<Npc> npcs) {
+    }
+
+    /**
+     * Totales acumulados por el escritor. Se escriben y se leen con el
+     * monitor del propio objeto: el lector puede leerlos sin writer.get()
+     * si el escritor se ha cancelado por plazo.
+     */
+    private static final class Totals {
+        private int inserted;
+        private int failed;
+        private int chunks;
+        private int nextIndex;
+        private boolean stateless;
+        private boolean stateful;
+        private String error;
+        private final List<FailedRow> failedRows = new ArrayList<>();
+
+        private void add(int firstIndex, BulkTransferResultDto result) {
+            inserted += result.inserted();
+            failed += result.failed();
+            chunks += result.chunks();
+            nextIndex = firstIndex + result.nextIndex();
+            stateless |= "stateless".equals(result.mode());
+            stateful |= "stateful".equals(result.mode());
+            for (FailedRow row : result.failedRows()) {
+                if (failedRows.size() < NpcBulkImporter.MAX_REPORTED_FAILURES) {
+                    failedRows.add(new FailedRow(firstIndex + row.index(), row.nombre(), row.error()));
+                }
+            }
+        }
+
+        private String mode() {
+            if (stateless && stateful) {
+                return "mixed";
+            }
+            return stateless ? "stateless" : "stateful";
+        }
+    }
+}
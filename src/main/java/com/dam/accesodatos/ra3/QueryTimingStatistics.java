@@ -0,0 +1,602 @@
+package com.dam.accesodatos.ra3;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.NaturalIdStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas de Hibernate que además registran cada consulta en
+ * Micrometer (mcp.jpa.query y mcp.jpa.query.rows).
+ *
+ * Implementa el SPI StatisticsImplementor (hibernate.stats.factory) y
+ * delega todo en las estadísticas por defecto; solo queryExecuted() añade
+ * el registro en Micrometer.
+ *
+ * ETIQUETAS (acotadas):
+ * - tool: ámbito de SqlStatementInspector (herramienta MCP o, fuera de
+ * ellas, la transacción Spring); "none" si no hay ninguno
+ * - query: hash corto (8 hex) de la consulta. El texto no sirve de
+ * etiqueta: el JPQL dinámico (ordenaciones de fields, searchNpcs...) genera
+ * consultas distintas sin límite. La correspondencia hash → consulta se
+ * escribe una vez en el log (DEBUG)
+ *
+ * Como mucho se registran maxQueries pares (tool, query); a partir de ahí
+ * las consultas nuevas se agrupan en query="other".
+ *
+ * NOTA: StatisticsImplementor es Serializable por herencia, pero Hibernate
+ * no serializa las estadísticas; el registro y los medidores no lo son.
+ */
+@SuppressWarnings("serial")
+final class QueryTimingStatistics implements StatisticsImplementor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryTimingStatistics.class);
+
+    static final String OTHER = "other";
+    private static final String NO_SCOPE = "none";
+
+    private final StatisticsImplementor delegate;
+    private final MeterRegistry registry;
+    private final SqlStatementInspector statementInspector;
+    private final int maxQueries;
+    private final Map<String, QueryMeters> meters = new ConcurrentHashMap<>();
+
+    QueryTimingStatistics(StatisticsImplementor delegate, MeterRegistry registry,
+            SqlStatementInspector statementInspector, int maxQueries) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.statementInspector = statementInspector;
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        delegate.queryExecuted(hql, rows, time);
+        if (hql == null) {
+            return;
+        }
+        String tool = statementInspector.currentScopeName();
+        QueryMeters query = meters(tool != null ? tool : NO_SCOPE, hql);
+        query.timer.record(time, TimeUnit.MILLISECONDS);
+        query.rows.record(rows);
+    }
+
+    /**
+     * Pares (tool, query) con métricas registradas (para tests).
+     */
+    int registeredQueries() {
+        return meters.size();
+    }
+
+    private QueryMeters meters(String tool, String hql) {
+        String key = tool + '\n' + hql;
+        QueryMeters query = meters.get(key);
+        if (query != null) {
+            return query;
+        }
+        if (meters.size() >= maxQueries) {
+            return meters.computeIfAbsent(tool + '\n' + OTHER, k -> register(tool, OTHER));
+        }
+        return meters.computeIfAbsent(key, k -> {
+            String hash = String.format("%08x", hql.hashCode());
+            logger.debug("mcp.jpa.query tool={} query={}: {}", tool, hash, hql);
+            return register(tool, hash);
+        });
+    }
+
+    private QueryMeters register(String tool, String query) {
+        return new QueryMeters(
+                Timer.builder("mcp.jpa.query")
+                        .description("Tiempo de ejecución de consultas JPQL/HQL/SQL")
+                        .tag("tool", tool)
+                        .tag("query", query)
+                        .register(registry),
+                DistributionSummary.builder("mcp.jpa.query.rows")
+                        .description("Filas devueltas por consulta")
+                        .tag("tool", tool)
+                        .tag("query", query)
+                        .register(registry));
+    }
+
+    private record QueryMeters(Timer timer, DistributionSummary rows) {
+    }
+
+    // ========== DELEGACIÓN ==========
+
+    @Override
+    public void openSession() {
+        delegate.openSession();
+    }
+
+    @Override
+    public void closeSession() {
+        delegate.closeSession();
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void connect() {
+        delegate.connect();
+    }
+
+    @Override
+    public void prepareStatement() {
+        delegate.prepareStatement();
+    }
+
+    @Override
+    public void closeStatement() {
+        delegate.closeStatement();
+    }
+
+    @Override
+    public void endTransaction(boolean success) {
+        delegate.endTransaction(success);
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        delegate.loadEntity(entityName);
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        delegate.fetchEntity(entityName);
+    }
+
+    @Override
+    public void updateEntity(String entityName) {
+        delegate.updateEntity(entityName);
+    }
+
+    @Override
+    public void insertEntity(String entityName) {
+        delegate.insertEntity(entityName);
+    }
+
+    @Override
+    public void deleteEntity(String entityName) {
+        delegate.deleteEntity(entityName);
+    }
+
+    @Override
+    public void optimisticFailure(String entityName) {
+        delegate.optimisticFailure(entityName);
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        delegate.loadCollection(role);
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        delegate.fetchCollection(role);
+    }
+
+    @Override
+    public void updateCollection(String role) {
+        delegate.updateCollection(role);
+    }
+
+    @Override
+    public void recreateCollection(String role) {
+        delegate.recreateCollection(role);
+    }
+
+    @Override
+    public void removeCollection(String role) {
+        delegate.removeCollection(role);
+    }
+
+    @Override
+    public void entityCachePut(NavigableRole role, String regionName) {
+        delegate.entityCachePut(role, regionName);
+    }
+
+    @Override
+    public void entityCacheHit(NavigableRole role, String regionName) {
+        delegate.entityCacheHit(role, regionName);
+    }
+
+    @Override
+    public void entityCacheMiss(NavigableRole role, String regionName) {
+        delegate.entityCacheMiss(role, regionName);
+    }
+
+    @Override
+    public void collectionCachePut(NavigableRole role, String regionName) {
+        delegate.collectionCachePut(role, regionName);
+    }
+
+    @Override
+    public void collectionCacheHit(NavigableRole role, String regionName) {
+        delegate.collectionCacheHit(role, regionName);
+    }
+
+    @Override
+    public void collectionCacheMiss(NavigableRole role, String regionName) {
+        delegate.collectionCacheMiss(role, regionName);
+    }
+
+    @Override
+    public void naturalIdCachePut(NavigableRole role, String regionName) {
+        delegate.naturalIdCachePut(role, regionName);
+    }
+
+    @Override
+    public void naturalIdCacheHit(NavigableRole role, String regionName) {
+        delegate.naturalIdCacheHit(role, regionName);
+    }
+
+    @Override
+    public void naturalIdCacheMiss(NavigableRole role, String regionName) {
+        delegate.naturalIdCacheMiss(role, regionName);
+    }
+
+    @Override
+    public void naturalIdQueryExecuted(String rootEntityName, long time) {
+        delegate.naturalIdQueryExecuted(rootEntityName, time);
+    }
+
+    @Override
+    public void queryCachePut(String hql, String regionName) {
+        delegate.queryCachePut(hql, regionName);
+    }
+
+    @Override
+    public void queryCacheHit(String hql, String regionName) {
+        delegate.queryCacheHit(hql, regionName);
+    }
+
+    @Override
+    public void queryCacheMiss(String hql, String regionName) {
+        delegate.queryCacheMiss(hql, regionName);
+    }
+
+    @Override
+    public void updateTimestampsCacheHit() {
+        delegate.updateTimestampsCacheHit();
+    }
+
+    @Override
+    public void updateTimestampsCacheMiss() {
+        delegate.updateTimestampsCacheMiss();
+    }
+
+    @Override
+    public void updateTimestampsCachePut() {
+        delegate.updateTimestampsCachePut();
+    }
+
+    @Override
+    public void queryPlanCacheHit(String query) {
+        delegate.queryPlanCacheHit(query);
+    }
+
+    @Override
+    public void queryPlanCacheMiss(String query) {
+        delegate.queryPlanCacheMiss(query);
+    }
+
+    @Override
+    public void queryCompiled(String hql, long microseconds) {
+        delegate.queryCompiled(hql, microseconds);
+    }
+
+    @Override
+    public void slowQuery(String sql, long executionTime) {
+        delegate.slowQuery(sql, executionTime);
+    }
+
+    @Override
+    public Map<String, Long> getSlowQueries() {
+        return delegate.getSlowQueries();
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return delegate.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        delegate.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void logSummary() {
+        delegate.logSummary();
+    }
+
+    @Override
+    public EntityStatistics getEntityStatistics(String entityName) {
+        return delegate.getEntityStatistics(entityName);
+    }
+
+    @Override
+    public CollectionStatistics getCollectionStatistics(String role) {
+        return delegate.getCollectionStatistics(role);
+    }
+
+    @Override
+    public NaturalIdStatistics getNaturalIdStatistics(String entityName) {
+        return delegate.getNaturalIdStatistics(entityName);
+    }
+
+    @Override
+    public QueryStatistics getQueryStatistics(String queryString) {
+        return delegate.getQueryStatistics(queryString);
+    }
+
+    @Override
+    public CacheRegionStatistics getDomainDataRegionStatistics(String regionName) {
+        return delegate.getDomainDataRegionStatistics(regionName);
+    }
+
+    @Override
+    public CacheRegionStatistics getQueryRegionStatistics(String regionName) {
+        return delegate.getQueryRegionStatistics(regionName);
+    }
+
+    @Override
+    public CacheRegionStatistics getCacheRegionStatistics(String regionName) {
+        return delegate.getCacheRegionStatistics(regionName);
+    }
+
+    @Override
+    public long getEntityDeleteCount() {
+        return delegate.getEntityDeleteCount();
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return delegate.getEntityInsertCount();
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return delegate.getEntityLoadCount();
+    }
+
+    @Override
+    public long getEntityFetchCount() {
+        return delegate.getEntityFetchCount();
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return delegate.getEntityUpdateCount();
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return delegate.getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return delegate.getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString() {
+        return delegate.getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return delegate.getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return delegate.getQueryCacheMissCount();
+    }
+
+    @Override
+    public long getQueryCachePutCount() {
+        return delegate.getQueryCachePutCount();
+    }
+
+    @Override
+    public long getNaturalIdQueryExecutionCount() {
+        return delegate.getNaturalIdQueryExecutionCount();
+    }
+
+    @Override
+    public long getNaturalIdQueryExecutionMaxTime() {
+        return delegate.getNaturalIdQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getNaturalIdQueryExecutionMaxTimeRegion() {
+        return delegate.getNaturalIdQueryExecutionMaxTimeRegion();
+    }
+
+    @Override
+    public String getNaturalIdQueryExecutionMaxTimeEntity() {
+        return delegate.getNaturalIdQueryExecutionMaxTimeEntity();
+    }
+
+    @Override
+    public long getNaturalIdCacheHitCount() {
+        return delegate.getNaturalIdCacheHitCount();
+    }
+
+    @Override
+    public long getNaturalIdCacheMissCount() {
+        return delegate.getNaturalIdCacheMissCount();
+    }
+
+    @Override
+    public long getNaturalIdCachePutCount() {
+        return delegate.getNaturalIdCachePutCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCacheHitCount() {
+        return delegate.getUpdateTimestampsCacheHitCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCacheMissCount() {
+        return delegate.getUpdateTimestampsCacheMissCount();
+    }
+
+    @Override
+    public long getUpdateTimestampsCachePutCount() {
+        return delegate.getUpdateTimestampsCachePutCount();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return delegate.getFlushCount();
+    }
+
+    @Override
+    public long getConnectCount() {
+        return delegate.getConnectCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return delegate.getSecondLevelCacheHitCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return delegate.getSecondLevelCacheMissCount();
+    }
+
+    @Override
+    public long getSecondLevelCachePutCount() {
+        return delegate.getSecondLevelCachePutCount();
+    }
+
+    @Override
+    public long getSessionCloseCount() {
+        return delegate.getSessionCloseCount();
+    }
+
+    @Override
+    public long getSessionOpenCount() {
+        return delegate.getSessionOpenCount();
+    }
+
+    @Override
+    public long getCollectionLoadCount() {
+        return delegate.getCollectionLoadCount();
+    }
+
+    @Override
+    public long getCollectionFetchCount() {
+        return delegate.getCollectionFetchCount();
+    }
+
+    @Override
+    public long getCollectionUpdateCount() {
+        return delegate.getCollectionUpdateCount();
+    }
+
+    @Override
+    public long getCollectionRemoveCount() {
+        return delegate.getCollectionRemoveCount();
+    }
+
+    @Override
+    public long getCollectionRecreateCount() {
+        return delegate.getCollectionRecreateCount();
+    }
+
+    @Override
+    public Instant getStart() {
+        return delegate.getStart();
+    }
+
+    /**
+     * Obsoleto en Hibernate: se deriva de getStart() en lugar de delegar.
+     */
+    @Override
+    @Deprecated
+    public long getStartTime() {
+        return delegate.getStart().toEpochMilli();
+    }
+
+    @Override
+    public String[] getQueries() {
+        return delegate.getQueries();
+    }
+
+    @Override
+    public String[] getEntityNames() {
+        return delegate.getEntityNames();
+    }
+
+    @Override
+    public String[] getCollectionRoleNames() {
+        return delegate.getCollectionRoleNames();
+    }
+
+    @Override
+    public String[] getSecondLevelCacheRegionNames() {
+        return delegate.getSecondLevelCacheRegionNames();
+    }
+
+    @Override
+    public long getSuccessfulTransactionCount() {
+        return delegate.getSuccessfulTransactionCount();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return delegate.getTransactionCount();
+    }
+
+    @Override
+    public long getPrepareStatementCount() {
+        return delegate.getPrepareStatementCount();
+    }
+
+    @Override
+    public long getCloseStatementCount() {
+        return delegate.getCloseStatementCount();
+    }
+
+    @Override
+    public long getOptimisticFailureCount() {
+        return delegate.getOptimisticFailureCount();
+    }
+
+    @Override
+    public long getQueryPlanCacheHitCount() {
+        return delegate.getQueryPlanCacheHitCount();
+    }
+
+    @Override
+    public long getQueryPlanCacheMissCount() {
+        return delegate.getQueryPlanCacheMissCount();
+    }
+}
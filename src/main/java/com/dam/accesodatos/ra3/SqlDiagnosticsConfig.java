@@ -0,0 +1,120 @@
+package com.dam.accesodatos.ra3;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.JdbcSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Diagnóstico de SQL:
+ * - SqlStatementInspector: sentencias por llamada y detección de N+1
+ * - Registro de sentencias lentas CON sus parámetros (logger
+ * com.dam.accesodatos.sql.slow). StatementInspector solo ve el SQL antes
+ * de ejecutarlo, así que el tiempo y los valores se obtienen envolviendo el
+ * DataSource con datasource-proxy.
+ * - Registro por muestreo (logger com.dam.accesodatos.sql.sampled): una de
+ * cada N sentencias, de media. Sustituye a show-sql / org.hibernate.SQL en
+ * el perfil prod, donde registrar todas las sentencias domina el coste.
+ *
+ * Configuración (mcp.sql.*):
+ * - slow-threshold: a partir de cuánto una sentencia es lenta (0 = no
+ * registrar)
+ * - sample-rate: registrar 1 de cada N sentencias (0 = no registrar)
+ * - n-plus-one-threshold: repeticiones del mismo SELECT permitidas por
+ * llamada
+ * - fail-fast: lanzar NPlusOneQueryException en lugar de avisar (tests)
+ */
+@Configuration
+public class SqlDiagnosticsConfig {
+
+    private static final Logger slowLogger = LoggerFactory.getLogger("com.dam.accesodatos.sql.slow");
+    private static final Logger sampledLogger = LoggerFactory.getLogger("com.dam.accesodatos.sql.sampled");
+
+    @Bean
+    public SqlStatementInspector sqlStatementInspector(
+            @Value("${mcp.sql.n-plus-one-threshold:5}") int nPlusOneThreshold,
+            @Value("${mcp.sql.fail-fast:false}") boolean failFast) {
+        return new SqlStatementInspector(nPlusOneThreshold, failFast);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementInspector inspector) {
+        return properties -> properties.put(JdbcSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    /**
+     * Envuelve el pool con datasource-proxy. Se ejecuta antes que el límite
+     * de concurrencia (DataSourceGuardConfig), que queda por fuera:
+     * Hikari ← datasource-proxy ← ConcurrencyLimitingDataSource.
+     *
+     * NOTA: el tipo devuelto debe ser la clase concreta; con
+     * BeanPostProcessor Spring no ve que es Ordered y no respeta el orden.
+     */
+    @Bean
+    static StatementLoggingPostProcessor statementLogging(Environment environment) {
+        Duration threshold = environment.getProperty("mcp.sql.slow-threshold", Duration.class, Duration.ZERO);
+        int sampleRate = environment.getProperty("mcp.sql.sample-rate", Integer.class, 0);
+        return new StatementLoggingPostProcessor(threshold.toMillis(), sampleRate);
+    }
+
+    static final class StatementLoggingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final long thresholdMillis;
+        private final int sampleRate;
+        private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+        private StatementLoggingPostProcessor(long thresholdMillis, int sampleRate) {
+            this.thresholdMillis = thresholdMillis;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ((thresholdMillis <= 0 && sampleRate <= 0) || !(bean instanceof DataSource dataSource)
+                    || bean instanceof ConcurrencyLimitingDataSource) {
+                return bean;
+            }
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .afterQuery(this::log)
+                    .build();
+        }
+
+        /**
+         * La entrada del log (SQL + parámetros) solo se construye si se va a
+         * escribir: el resto de sentencias no reserva memoria.
+         */
+        private void log(ExecutionInfo execution, List<QueryInfo> queries) {
+            if (thresholdMillis > 0 && execution.getElapsedTime() >= thresholdMillis) {
+                if (slowLogger.isWarnEnabled()) {
+                    slowLogger.warn("Sentencia lenta ({} ms): {}", execution.getElapsedTime(),
+                            logEntryCreator.getLogEntry(execution, queries, false, false, false));
+                }
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextInt(sampleRate) == 0
+                    && sampledLogger.isInfoEnabled()) {
+                sampledLogger.info("Sentencia (muestra 1/{}, {} ms): {}", sampleRate, execution.getElapsedTime(),
+                        logEntryCreator.getLogEntry(execution, queries, false, false, false));
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.dam.accesodatos.ra3;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * StatementInspector de Hibernate que cuenta las sentencias SQL de cada
+ * llamada y detecta consultas N+1.
+ *
+ * Hibernate llama a inspect() con el SQL de cada sentencia antes de
+ * prepararla. Las sentencias se cuentan en el ámbito (Scope) activo en el
+ * hilo:
+ * - Ámbito explícito: lo abren los puntos de entrada de las herramientas
+ * MCP (McpToolMetricsFilter y McpJsonRpcController) con openScope()
+ * - Ámbito implícito: si no hay ninguno, la transacción Spring en curso
+ * (así también se vigilan los tests y las llamadas directas al servicio)
+ *
+ * DETECCIÓN N+1:
+ * Si el mismo SELECT (mismo SQL, los parámetros son "?") se ejecuta más de
+ * mcp.sql.n-plus-one-threshold veces en un ámbito, casi seguro es una
+ * relación LAZY cargada elemento a elemento (p. ej. el proxy Pedido.npc;
+ * Npc.pedidos y Pedido.ingredientes llevan @BatchSize y se cargan por
+ * bloques). Se avisa una vez por consulta y ámbito; con mcp.sql.fail-fast
+ * se lanza NPlusOneQueryException en la sentencia que supera el límite.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementInspector.class);
+
+    private final int nPlusOneThreshold;
+    private final boolean failFast;
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public SqlStatementInspector(int nPlusOneThreshold, boolean failFast) {
+        if (nPlusOneThreshold < 1) {
+            throw new IllegalArgumentException("n-plus-one-threshold debe ser al menos 1");
+        }
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Abre un ámbito con nombre (normalmente la herramienta MCP). Se debe
+     * cerrar en el mismo hilo, con try-with-resources.
+     */
+    public Scope openScope(String name) {
+        Scope scope = new Scope(name, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * Nombre del ámbito activo en el hilo (null si no hay ninguno).
+     */
+    public String currentScopeName() {
+        Scope scope = current.get();
+        return scope != null ? scope.name : null;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = current.get();
+        if (scope == null) {
+            scope = openTransactionScope();
+            if (scope == null) {
+                return sql;
+            }
+        }
+        scope.statements++;
+        if (isSelectFromTable(sql)) {
+            int executions = scope.selects.merge(sql, 1, Integer::sum);
+            if (executions == nPlusOneThreshold + 1) {
+                reportNPlusOne(scope, sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Ámbito implícito ligado a la transacción Spring del hilo (si la hay).
+     */
+    private Scope openTransactionScope() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        Scope scope = openScope(name != null ? name : "transacción");
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                scope.close();
+            }
+        });
+        return scope;
+    }
+
+    private void reportNPlusOne(Scope scope, String sql) {
+        String message = "Posible N+1 en " + scope.name + ": la misma consulta se ha ejecutado más de "
+                + nPlusOneThreshold + " veces: " + sql;
+        if (failFast) {
+            throw new NPlusOneQueryException(message);
+        }
+        logger.warn(message);
+    }
+
+    /**
+     * SELECT sobre tablas. Se excluyen los de secuencias ("select next value
+     * for npcs_seq"), que se repiten legítimamente al reservar IDs.
+     */
+    private static boolean isSelectFromTable(String sql) {
+        String normalized = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return normalized.startsWith("select") && normalized.contains(" from ");
+    }
+
+    /**
+     * Sentencias ejecutadas en una llamada.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope parent;
+        private final Map<String, Integer> selects = new HashMap<>();
+        private int statements;
+        private boolean closed;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        /**
+         * Sentencias SQL ejecutadas hasta ahora en el ámbito.
+         */
+        public int statements() {
+            return statements;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (current.get() == this) {
+                if (parent != null) {
+                    current.set(parent);
+                } else {
+                    current.remove();
+                }
+            }
+            logger.debug("{}: {} sentencias SQL", name, statements);
+        }
+    }
+}
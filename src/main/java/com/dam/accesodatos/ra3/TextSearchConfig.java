@@ -0,0 +1,151 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.Ingrediente;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sincronización del índice de texto completo (TextSearchIndex) con la BD.
+ *
+ * - Listeners POST_INSERT/UPDATE/DELETE de Hibernate para Npc, Pedido e
+ * Ingrediente: apuntan cada cambio en un TextSearchIndex.Batch por sesión
+ * y registran en su ActionQueue un proceso de fin de transacción que lo
+ * aplica de una vez si hubo commit (un solo refresco del lector por
+ * transacción; una transacción revertida no toca el índice)
+ * - Al arrancar se reconstruye el índice: data.sql inserta con SQL y no
+ * pasa por los listeners
+ *
+ * NOTA: StatelessSession no dispara estos eventos; NpcBulkImporter indexa
+ * a mano lo que inserta por esa vía.
+ */
+@Configuration
+public class TextSearchConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextSearchConfig.class);
+
+    private static final Set<Class<?>> INDEXED_ENTITIES = Set.of(Npc.class, Pedido.class, Ingrediente.class);
+
+    @Bean
+    public IndexSyncListener textSearchIndexSyncListener(EntityManagerFactory entityManagerFactory,
+            TextSearchIndex textSearchIndex) {
+        IndexSyncListener listener = new IndexSyncListener(textSearchIndex);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return listener;
+    }
+
+    @Bean
+    public ApplicationRunner textSearchIndexLoader(HibernateNpcService hibernateNpcService) {
+        return args -> logger.info("Índice de texto completo cargado: {} documentos",
+                hibernateNpcService.rebuildSearchIndex());
+    }
+
+    /**
+     * Junta los cambios de cada transacción y los aplica al índice después
+     * del commit.
+     *
+     * Un fallo del índice no debe afectar a la transacción (ya confirmada):
+     * se registra y el índice se puede reconstruir con rebuild_search_index.
+     */
+    static final class IndexSyncListener implements PostInsertEventListener,
+            PostUpdateEventListener, PostDeleteEventListener {
+
+        private final TextSearchIndex textSearchIndex;
+
+        /**
+         * Cambios pendientes por sesión (cada sesión, de un solo hilo, tiene
+         * como mucho una transacción en curso).
+         */
+        private final Map<SharedSessionContractImplementor, TextSearchIndex.Batch> batches =
+                new ConcurrentHashMap<>();
+
+        IndexSyncListener(TextSearchIndex textSearchIndex) {
+            this.textSearchIndex = textSearchIndex;
+        }
+
+        // El commit se espera aquí, con el proceso de fin de transacción
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (indexed(event.getPersister())) {
+                batch(event.getSession()).index(event.getEntity());
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (indexed(event.getPersister())) {
+                batch(event.getSession()).index(event.getEntity());
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (indexed(event.getPersister())) {
+                batch(event.getSession()).delete(event.getEntity());
+            }
+        }
+
+        private static boolean indexed(EntityPersister persister) {
+            return INDEXED_ENTITIES.contains(persister.getMappedClass());
+        }
+
+        /**
+         * Batch de la transacción en curso de la sesión; el primero registra
+         * el proceso que lo aplica al terminar.
+         */
+        private TextSearchIndex.Batch batch(EventSource session) {
+            TextSearchIndex.Batch batch = batches.get(session);
+            if (batch == null) {
+                batch = new TextSearchIndex.Batch();
+                batches.put(session, batch);
+                session.getActionQueue().registerProcess(
+                        (AfterTransactionCompletionProcess) (success, completed) -> complete(session, success));
+            }
+            return batch;
+        }
+
+        private void complete(SharedSessionContractImplementor session, boolean success) {
+            TextSearchIndex.Batch batch = batches.remove(session);
+            if (!success || batch == null || batch.isEmpty()) {
+                return;
+            }
+            try {
+                textSearchIndex.apply(batch);
+            } catch (RuntimeException e) {
+                logger.error("No se pudo actualizar el índice de texto completo", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.Ingrediente;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.ResultadoBusquedaDto;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice de texto completo (Lucene, en memoria) sobre los nombres de NPCs e
+ * ingredientes y los comentarios de pedidos.
+ *
+ * NOTA PEDAGÓGICA:
+ * LIKE '%tomate%' recorre todas las filas y no ordena por relevancia. Un
+ * índice invertido guarda, para cada palabra, los documentos que la
+ * contienen: buscar "tomate" es leer esa lista, y Lucene ordena los
+ * resultados por relevancia (BM25: palabras raras y textos cortos puntúan
+ * más).
+ *
+ * DOCUMENTOS:
+ * - Uno por entidad, con clave "tipo:id" (npc:1, pedido:7, ingrediente:42)
+ * - El texto pasa por StandardTokenizer + minúsculas + sin tildes, así que
+ * "Limón" se encuentra buscando "limon"
+ *
+ * SINCRONIZACIÓN:
+ * - TextSearchConfig registra listeners de Hibernate que juntan en un Batch
+ * los cambios de cada transacción y lo aplican con apply() cuando se
+ * confirma (una transacción revertida no toca el índice)
+ * - Lo que no pasa por Hibernate (SQL directo, data.sql) no se ve hasta
+ * rebuild() (herramienta rebuild_search_index, y al arrancar)
+ *
+ * CONCURRENCIA:
+ * IndexWriter admite escrituras en paralelo. rebuild() llena un índice
+ * nuevo sin bloquear búsquedas ni escrituras, repite sobre él los cambios
+ * confirmados durante la carga y lo pone en uso de una vez (solo esa
+ * sustitución, muy corta, espera a las búsquedas y escrituras en curso).
+ *
+ * VISIBILIDAD:
+ * Cada llamada a index()/delete()/indexAll()/apply() abre un lector nuevo
+ * al terminar (SearcherManager.maybeRefreshBlocking()), así que los cambios
+ * se ven en la siguiente búsqueda. Reabrir el lector cuesta: por eso una
+ * transacción (TextSearchConfig) o un bloque de NpcBulkImporter se aplican
+ * juntos, con un solo refresco. search() solo toma el lector vigente: no
+ * paga la comprobación de cambios en cada consulta.
+ */
+@Component
+public class TextSearchIndex {
+
+    public static final String NPC = "npc";
+    public static final String PEDIDO = "pedido";
+    public static final String INGREDIENTE = "ingrediente";
+
+    private static final Set<String> TIPOS = Set.of(NPC, PEDIDO, INGREDIENTE);
+
+    /**
+     * Resultados por defecto y máximo de search().
+     */
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    // Campos de cada documento
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_TIPO = "tipo";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_NPC_ID = "npcId";
+    private static final String FIELD_PEDIDO_ID = "pedidoId";
+    private static final String FIELD_TEXTO = "texto";
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+
+    /**
+     * Índice en uso. rebuild() llena otro aparte y lo sustituye entero.
+     */
+    private volatile Generation live;
+
+    /**
+     * Escrituras y búsquedas toman la parte de lectura (en paralelo); solo
+     * la sustitución del índice al final de rebuild() toma la de escritura.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /**
+     * Una reconstrucción a la vez.
+     */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    /**
+     * Cambios aplicados durante una reconstrucción (null si no hay
+     * ninguna), para repetirlos sobre el índice nuevo.
+     */
+    private volatile Queue<Change> pending;
+
+    public TextSearchIndex() {
+        try {
+            live = Generation.open(analyzer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        swapLock.writeLock().lock();
+        try {
+            live.close();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    // ========== ACTUALIZACIÓN ==========
+
+    /**
+     * Añade o sustituye el documento de una entidad (Npc, Pedido o
+     * Ingrediente; las demás se ignoran).
+     *
+     * NOTA: getNpc().getId() y getPedido().getId() no inicializan el proxy
+     * perezoso: el ID ya está en él.
+     */
+    public void index(Object entity) {
+        Change change = indexChange(entity);
+        if (change != null) {
+            apply(List.of(change));
+        }
+    }
+
+    /**
+     * Como index(), para un bloque de entidades: un solo refresco al final
+     * (NpcBulkImporter).
+     */
+    public void indexAll(Collection<?> entities) {
+        Batch batch = new Batch();
+        entities.forEach(batch::index);
+        apply(batch);
+    }
+
+    /**
+     * Elimina el documento de una entidad borrada.
+     */
+    public void delete(Object entity) {
+        Change change = deleteChange(entity);
+        if (change != null) {
+            apply(List.of(change));
+        }
+    }
+
+    /**
+     * Aplica de una vez los cambios juntados en batch, con un solo refresco.
+     */
+    public void apply(Batch batch) {
+        apply(batch.changes);
+    }
+
+    /**
+     * Reconstruye el índice desde cero con loader, que recorre la BD y
+     * llama a indexNpc()/indexPedido()/indexIngrediente() del Loader.
+     *
+     * El índice nuevo se llena aparte: las búsquedas y los listeners
+     * post-commit siguen usando el índice actual mientras tanto. Los cambios
+     * que llegan durante la carga se aplican al índice actual y además se
+     * apuntan en pending; al terminar se repiten sobre el nuevo y este
+     * sustituye al actual de una vez. Si loader falla, el índice actual no
+     * cambia.
+     *
+     * @return Documentos en el índice nuevo
+     */
+    public long rebuild(Consumer<Loader> loader) {
+        rebuildLock.lock();
+        Generation fresh = null;
+        try {
+            fresh = Generation.open(analyzer);
+            Queue<Change> queued = new ConcurrentLinkedQueue<>();
+            pending = queued;
+            loader.accept(new Loader(fresh.writer()));
+
+            // Casi todo lo apuntado se repite sin bloquear a nadie; bajo el
+            // cerrojo solo lo que llegue mientras tanto
+            replay(queued, fresh.writer());
+            Generation old;
+            swapLock.writeLock().lock();
+            try {
+                replay(queued, fresh.writer());
+                fresh.searcherManager().maybeRefreshBlocking();
+                old = live;
+                live = fresh;
+                pending = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            long documents = fresh.writer().getDocStats().numDocs;
+            fresh = null;
+            // Ya no lo usa nadie: las búsquedas y escrituras en curso
+            // terminaron antes de la sustitución
+            old.close();
+            return documents;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending = null;
+            if (fresh != null) {
+                try {
+                    fresh.close();
+                } catch (IOException e) {
+                    // Índice a medio llenar que se descarta: no hay nada que hacer
+                }
+            }
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Aplica los cambios al índice en uso (y los apunta si hay una
+     * reconstrucción en marcha) y abre un lector nuevo con ellos.
+     */
+    private void apply(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            Generation generation = live;
+            for (Change change : changes) {
+                change.applyTo(generation.writer());
+            }
+            Queue<Change> queued = pending;
+            if (queued != null) {
+                queued.addAll(changes);
+            }
+            // Si otro hilo está refrescando, espera y vuelve a comprobar: el
+            // cambio de quien llama nunca se queda sin ver
+            generation.searcherManager().maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void replay(Queue<Change> queued, IndexWriter writer) throws IOException {
+        for (Change change = queued.poll(); change != null; change = queued.poll()) {
+            change.applyTo(writer);
+        }
+    }
+
+    private static Change deleteChange(Object entity) {
+        return switch (entity) {
+            case Npc npc -> deleteChange(NPC, npc.getId());
+            case Pedido pedido -> deleteChange(PEDIDO, pedido.getId());
+            case Ingrediente ingrediente -> deleteChange(INGREDIENTE, ingrediente.getId());
+            default -> null;
+        };
+    }
+
+    private static Change indexChange(Object entity) {
+        return switch (entity) {
+            case Npc npc -> updateChange(NPC, npc.getId(), null, null, npc.getNombre());
+            case Pedido pedido -> updateChange(PEDIDO, pedido.getId(),
+                    pedido.getNpc() == null ? null : pedido.getNpc().getId(), null, pedido.getComentario());
+            case Ingrediente ingrediente -> updateChange(INGREDIENTE, ingrediente.getId(), null,
+                    ingrediente.getPedido() == null ? null : ingrediente.getPedido().getId(), ingrediente.getNombre());
+            default -> null;
+        };
+    }
+
+    private static Change updateChange(String tipo, Long id, Long npcId, Long pedidoId, String texto) {
+        if (id == null) {
+            return null;
+        }
+        if (texto == null || texto.isBlank()) {
+            // Sin texto no hay nada que buscar (p. ej. comentario borrado)
+            return deleteChange(tipo, id);
+        }
+
+        Document document = new Document();
+        document.add(new StringField(FIELD_KEY, key(tipo, id), Field.Store.NO));
+        document.add(new StringField(FIELD_TIPO, tipo, Field.Store.YES));
+        document.add(new StoredField(FIELD_ID, id));
+        if (npcId != null) {
+            document.add(new StoredField(FIELD_NPC_ID, npcId));
+        }
+        if (pedidoId != null) {
+            document.add(new StoredField(FIELD_PEDIDO_ID, pedidoId));
+        }
+        document.add(new TextField(FIELD_TEXTO, texto, Field.Store.YES));
+
+        Term key = new Term(FIELD_KEY, key(tipo, id));
+        return writer -> writer.updateDocument(key, document);
+    }
+
+    private static Change deleteChange(String tipo, Long id) {
+        if (id == null) {
+            return null;
+        }
+        Term key = new Term(FIELD_KEY, key(tipo, id));
+        return writer -> writer.deleteDocuments(key);
+    }
+
+    private static String key(String tipo, Long id) {
+        return tipo + ":" + id;
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    /**
+     * Busca en el índice con la sintaxis de Lucene: palabras (todas
+     * obligatorias), "frases exactas", OR, -excluir, prefijo*.
+     *
+     * @param query Consulta
+     * @param tipo  npc, pedido o ingrediente (null = todos)
+     * @param limit Máximo de resultados (por defecto 20, máximo 100)
+     * @return Resultados ordenados por relevancia
+     * @throws IllegalArgumentException si la consulta o el tipo no son válidos
+     */
+    public List<ResultadoBusquedaDto> search(String query, String tipo, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("La consulta no puede estar vacía");
+        }
+        if (tipo != null && !TIPOS.contains(tipo)) {
+            throw new IllegalArgumentException("tipo no válido: " + tipo + " (admitidos: npc, pedido, ingrediente)");
+        }
+        int maxResults = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        Query parsed = parse(query);
+        if (tipo != null) {
+            parsed = new BooleanQuery.Builder()
+                    .add(parsed, BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(FIELD_TIPO, tipo)), BooleanClause.Occur.FILTER)
+                    .build();
+        }
+
+        swapLock.readLock().lock();
+        try {
+            SearcherManager searcherManager = live.searcherManager();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(parsed, maxResults);
+                StoredFields storedFields = searcher.storedFields();
+                List<ResultadoBusquedaDto> result = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    Document document = storedFields.document(hit.doc);
+                    result.add(new ResultadoBusquedaDto(
+                            document.get(FIELD_TIPO),
+                            longValue(document, FIELD_ID),
+                            longValue(document, FIELD_NPC_ID),
+                            longValue(document, FIELD_PEDIDO_ID),
+                            document.get(FIELD_TEXTO),
+                            hit.score));
+                }
+                return result;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private Query parse(String query) {
+        // QueryParser no es thread-safe: uno por búsqueda
+        QueryParser parser = new QueryParser(FIELD_TEXTO, analyzer);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(query);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Consulta no válida: " + query, e);
+        }
+    }
+
+    private static Long longValue(Document document, String field) {
+        IndexableField value = document.getField(field);
+        return value == null ? null : value.numericValue().longValue();
+    }
+
+    /**
+     * Escribe en el índice que está llenando rebuild() (sin refrescos: el
+     * índice no se ve hasta que rebuild() lo pone en uso).
+     */
+    public static final class Loader {
+
+        private final IndexWriter writer;
+
+        private Loader(IndexWriter writer) {
+            this.writer = writer;
+        }
+
+        public void indexNpc(Long id, String nombre) {
+            write(updateChange(NPC, id, null, null, nombre));
+        }
+
+        public void indexPedido(Long id, Long npcId, String comentario) {
+            write(updateChange(PEDIDO, id, npcId, null, comentario));
+        }
+
+        public void indexIngrediente(Long id, Long pedidoId, String nombre) {
+            write(updateChange(INGREDIENTE, id, null, pedidoId, nombre));
+        }
+
+        private void write(Change change) {
+            if (change == null) {
+                return;
+            }
+            try {
+                change.applyTo(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Cambios que se aplican juntos con apply(Batch), en el orden en que se
+     * apuntan. El documento se prepara al apuntar: refleja la entidad en
+     * ese momento y no la retiene.
+     *
+     * NOTA: no es thread-safe (uno por transacción).
+     */
+    public static final class Batch {
+
+        private final List<Change> changes = new ArrayList<>();
+
+        public void index(Object entity) {
+            add(indexChange(entity));
+        }
+
+        public void delete(Object entity) {
+            add(deleteChange(entity));
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+
+        private void add(Change change) {
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+    }
+
+    /**
+     * Una escritura en un IndexWriter; se guarda para poder repetirla sobre
+     * el índice nuevo de rebuild().
+     */
+    @FunctionalInterface
+    private interface Change {
+        void applyTo(IndexWriter writer) throws IOException;
+    }
+
+    /**
+     * Un índice completo: directorio en memoria, escritor y lectores.
+     */
+    private record Generation(ByteBuffersDirectory directory, IndexWriter writer, SearcherManager searcherManager) {
+
+        static Generation open(Analyzer analyzer) throws IOException {
+            ByteBuffersDirectory directory = new ByteBuffersDirectory();
+            // En memoria y reconstruible al arrancar: no hace falta commit
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setCommitOnClose(false));
+            return new Generation(directory, writer, new SearcherManager(writer, null));
+        }
+
+        void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+
+    /**
+     * StandardTokenizer + minúsculas + sin tildes (ASCIIFoldingFilter).
+     * normalize() aplica lo mismo a los términos de prefijo*, que no pasan
+     * por el tokenizer.
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -44,7 +45,7 @@ public interface IngredienteRepository extends JpaRepository<Ingrediente, Long>
      * @param nombre Texto a buscar
      * @return Lista de ingredientes que coinciden
      */
-    @Query("SELECT i FROM Ingrediente i WHERE LOWER(i.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
+    @Query("SELECT i FROM Ingrediente i WHERE i.nombreNormalizado LIKE CONCAT('%', LOWER(:nombre), '%')")
     List<Ingrediente> findByNombreContainingIgnoreCase(@Param("nombre") String nombre);
 
     /**
@@ -55,4 +56,19 @@ public interface IngredienteRepository extends JpaRepository<Ingrediente, Long>
      */
     @Query("SELECT COUNT(i) FROM Ingrediente i WHERE i.pedido.id = :pedidoId")
     long countByPedidoId(@Param("pedidoId") Long pedidoId);
+
+    // ===== PROYECCIONES DE LECTURA (DTOs) =====
+
+    /**
+     * Ingredientes de varios pedidos en una sola consulta.
+     *
+     * Cada fila es [pedidoId, id, nombre, cantidad]; el servicio agrupa por
+     * pedidoId. Evita una consulta por pedido (problema N+1).
+     *
+     * @param pedidoIds IDs de los pedidos
+     * @return Filas de ingredientes ordenadas por id
+     */
+    @Query("SELECT i.pedido.id, i.id, i.nombre, i.cantidad FROM Ingrediente i "
+            + "WHERE i.pedido.id IN :pedidoIds ORDER BY i.id")
+    List<Object[]> findDetalleByPedidoIds(@Param("pedidoIds") Collection<Long> pedidoIds);
 }
@@ -1,11 +1,17 @@
 package com.dam.accesodatos.repository;
 
 import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcSummaryDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,6 +44,13 @@ import java.util.List;
  * CONSULTAS JPQL PERSONALIZADAS:
  * Se pueden definir consultas JPQL con @Query cuando la convención de nombres
  * no es suficiente.
+ *
+ * PROYECCIONES DE SOLO LECTURA:
+ * Los listados de las herramientas MCP (find_all_npcs) no necesitan
+ * entidades: usan una "constructor expression" a NpcDto. Los
+ * métodos que sí devuelven entidades Npc llevan la pista
+ * org.hibernate.readOnly: Hibernate no guarda la copia (snapshot) de cada
+ * entidad para el dirty checking ni la revisa al hacer flush.
  */
 @Repository
 public interface NpcRepository extends JpaRepository<Npc, Long> {
@@ -51,6 +64,7 @@ public interface NpcRepository extends JpaRepository<Npc, Long> {
      * @param nombre Nombre del NPC
      * @return Lista de NPCs con ese nombre
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Npc> findByNombre(String nombre);
 
     /**
@@ -60,6 +74,7 @@ public interface NpcRepository extends JpaRepository<Npc, Long> {
      * @param activo Estado activo
      * @return Lista de NPCs activos/inactivos
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Npc> findByActivo(Boolean activo);
 
     // ===== CONSULTAS JPQL PERSONALIZADAS =====
@@ -74,6 +89,7 @@ public interface NpcRepository extends JpaRepository<Npc, Long> {
      *
      * @return Lista de NPCs activos ordenados
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT n FROM Npc n WHERE n.activo = true ORDER BY n.nombre")
     List<Npc> findActiveNpcsOrderedByName();
 
@@ -92,9 +108,62 @@ public interface NpcRepository extends JpaRepository<Npc, Long> {
      *
      * Ejemplo de búsqueda con LIKE en JPQL.
      *
+     * NOTA: compara con nombreNormalizado (ya en minúsculas) en lugar de
+     * LOWER(n.nombre). Con '%' delante sigue recorriendo todas las filas;
+     * para autocompletar está autocomplete_npcs (LIKE 'texto%' escapado).
+     *
      * @param nombre Texto a buscar en el nombre
      * @return Lista de NPCs que coinciden
      */
-    @Query("SELECT n FROM Npc n WHERE LOWER(n.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT n FROM Npc n WHERE n.nombreNormalizado LIKE CONCAT('%', LOWER(:nombre), '%')")
     List<Npc> findByNombreContainingIgnoreCase(@Param("nombre") String nombre);
+
+
+    // ===== PROYECCIONES A DTO (solo lectura) =====
+
+    /**
+     * Todos los NPCs como NpcDto, ordenados por ID.
+     *
+     * NOTA PEDAGÓGICA:
+     * A diferencia de findAll(), Hibernate no crea entidades: ni contexto de
+     * persistencia, ni snapshot para el dirty checking, ni colección
+     * perezosa de pedidos, ni copia en la caché de segundo nivel. Solo lee
+     * las 5 columnas y llama al constructor del record.
+     *
+     * @return Lista de NPCs proyectados a DTO
+     */
+    @Query("SELECT new com.dam.accesodatos.model.NpcDto(n.id, n.nombre, n.activo, n.createdAt, n.updatedAt) "
+            + "FROM Npc n ORDER BY n.id")
+    List<NpcDto> findAllDtos();
+
+    // ===== AGREGACIONES (sin cargar colecciones) =====
+
+    /**
+     * Pedidos e ingredientes de cada NPC en una sola consulta.
+     *
+     * NOTA PEDAGÓGICA:
+     * npc.getPedidos().size() cargaría todos los pedidos de cada NPC (y
+     * getIngredientes().size() todos sus ingredientes), aunque @BatchSize
+     * los traiga en bloques de 50 NPCs o pedidos. Aquí la BD cuenta con LEFT JOIN + GROUP BY y devuelve una
+     * fila por NPC. COUNT(DISTINCT p.id) porque el JOIN con ingredientes
+     * repite cada pedido una vez por ingrediente.
+     *
+     * @return Un resumen por NPC, ordenados por ID
+     */
+    @Query("SELECT new com.dam.accesodatos.model.NpcSummaryDto(n.id, n.nombre, COUNT(DISTINCT p.id), COUNT(i.id)) "
+            + "FROM Npc n LEFT JOIN n.pedidos p LEFT JOIN p.ingredientes i "
+            + "GROUP BY n.id, n.nombre ORDER BY n.id")
+    List<NpcSummaryDto> findSummaries();
+
+    /**
+     * Igual que findSummaries(), solo para los NPCs indicados.
+     *
+     * @param ids IDs de los NPCs
+     * @return Un resumen por NPC existente, ordenados por ID
+     */
+    @Query("SELECT new com.dam.accesodatos.model.NpcSummaryDto(n.id, n.nombre, COUNT(DISTINCT p.id), COUNT(i.id)) "
+            + "FROM Npc n LEFT JOIN n.pedidos p LEFT JOIN p.ingredientes i "
+            + "WHERE n.id IN :ids GROUP BY n.id, n.nombre ORDER BY n.id")
+    List<NpcSummaryDto> findSummariesByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,6 +1,7 @@
 package com.dam.accesodatos.repository;
 
 import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.PedidoDetalleDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -36,6 +37,10 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     /**
      * Busca pedidos por comentario que contenga texto.
      *
+     * NOTA: LIKE '%texto%' recorre toda la tabla y distingue mayúsculas;
+     * para buscar por palabras o frases con relevancia, usar search_text
+     * (HibernateNpcService.searchText).
+     *
      * @param texto Texto a buscar en el comentario
      * @return Lista de pedidos que coinciden
      */
@@ -76,4 +81,22 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
      */
     @Query("SELECT p FROM Pedido p LEFT JOIN FETCH p.ingredientes WHERE p.id = :pedidoId")
     Pedido findByIdWithIngredientes(@Param("pedidoId") Long pedidoId);
+
+    // ===== PROYECCIONES DE LECTURA (DTOs) =====
+
+    /**
+     * Pedidos de un NPC proyectados a DTO (sin ingredientes).
+     *
+     * NOTA PEDAGÓGICA:
+     * "SELECT new ..." crea los DTOs directamente desde las columnas: no hay
+     * entidades gestionadas ni colecciones perezosas. Los ingredientes se
+     * cargan después con UNA consulta IN (ver
+     * IngredienteRepository.findDetalleByPedidoIds).
+     *
+     * @param npcId ID del NPC
+     * @return Pedidos del NPC ordenados por id
+     */
+    @Query("SELECT new com.dam.accesodatos.model.PedidoDetalleDto(p.id, p.comentario, p.createdAt) "
+            + "FROM Pedido p WHERE p.npc.id = :npcId ORDER BY p.id")
+    List<PedidoDetalleDto> findDetalleByNpcId(@Param("npcId") Long npcId);
 }
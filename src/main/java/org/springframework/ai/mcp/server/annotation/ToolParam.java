@@ -0,0 +1,38 @@
+package org.springframework.ai.mcp.server.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Anotación para describir los parámetros de una herramienta MCP.
+ *
+ * NOTA PEDAGÓGICA:
+ * Igual que @Tool, es una implementación temporal. El despachador de
+ * herramientas la usa para saber de qué clave del JSON de entrada sale
+ * cada argumento del método.
+ *
+ * Si no se indica nombre, se usa el nombre del parámetro Java (requiere
+ * compilar con -parameters, que el plugin de Spring Boot activa por defecto).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ToolParam {
+
+    /**
+     * Nombre del argumento en el JSON de entrada.
+     * Si está vacío, se usa el nombre del parámetro.
+     */
+    String name() default "";
+
+    /**
+     * Descripción del argumento para mostrar al LLM.
+     */
+    String description() default "";
+
+    /**
+     * Indica si el argumento es obligatorio.
+     */
+    boolean required() default true;
+}
@@ -74,6 +74,7 @@ INSERT INTO ingredientes (id, pedido_id, nombre, cantidad) VALUES
 
 -- Resetear las secuencias de IDs para que el próximo ID sea 100
 -- Esto permite que los tests inserten con IDs predecibles
-ALTER TABLE npcs ALTER COLUMN id RESTART WITH 100;
-ALTER TABLE pedidos ALTER COLUMN id RESTART WITH 100;
-ALTER TABLE ingredientes ALTER COLUMN id RESTART WITH 100;
+-- (con pooled-lo el primer bloque asignado será 100..149)
+ALTER SEQUENCE npcs_seq RESTART WITH 100;
+ALTER SEQUENCE pedidos_seq RESTART WITH 100;
+ALTER SEQUENCE ingredientes_seq RESTART WITH 100;
@@ -7,12 +7,25 @@
 DROP TABLE IF EXISTS ingredientes CASCADE;
 DROP TABLE IF EXISTS pedidos CASCADE;
 DROP TABLE IF EXISTS npcs CASCADE;
+DROP SEQUENCE IF EXISTS npcs_seq;
+DROP SEQUENCE IF EXISTS pedidos_seq;
+DROP SEQUENCE IF EXISTS ingredientes_seq;
+
+-- ===== SECUENCIAS DE IDs =====
+-- Hibernate reserva bloques de 50 IDs por cada llamada (optimizador pooled-lo):
+-- el valor de la secuencia es el primer ID del bloque. INCREMENT BY debe
+-- coincidir con allocationSize de @SequenceGenerator.
+CREATE SEQUENCE npcs_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE ingredientes_seq START WITH 1 INCREMENT BY 50;
 
 -- ===== TABLA PRINCIPAL: npcs =====
 -- Representa los personajes no jugables (NPCs) del juego
 CREATE TABLE npcs (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     nombre VARCHAR(50) NOT NULL,
+    -- Nombre en minúsculas calculado por la BD (búsquedas sin distinguir mayúsculas)
+    nombre_normalizado VARCHAR(50) GENERATED ALWAYS AS (LOWER(nombre)),
     activo BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
@@ -20,13 +33,14 @@ CREATE TABLE npcs (
 
 -- Índices para mejorar rendimiento de consultas
 CREATE INDEX idx_npcs_nombre ON npcs(nombre);
+CREATE INDEX idx_npcs_nombre_normalizado ON npcs(nombre_normalizado);
 CREATE INDEX idx_npcs_activo ON npcs(activo);
 
 -- ===== TABLA: pedidos =====
 -- Cada NPC puede tener múltiples pedidos
 -- Relación: NPC (1) → Pedidos (N)
 CREATE TABLE pedidos (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     npc_id BIGINT NOT NULL,
     comentario VARCHAR(255),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -40,9 +54,10 @@ CREATE INDEX idx_pedidos_npc_id ON pedidos(npc_id);
 -- Cada pedido puede tener múltiples ingredientes
 -- Relación: Pedido (1) → Ingredientes (N)
 CREATE TABLE ingredientes (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     pedido_id BIGINT NOT NULL,
     nombre VARCHAR(100) NOT NULL,
+    nombre_normalizado VARCHAR(100) GENERATED ALWAYS AS (LOWER(nombre)),
     cantidad INTEGER DEFAULT 1,
     FOREIGN KEY (pedido_id) REFERENCES pedidos(id) ON DELETE CASCADE
 );
@@ -50,6 +65,7 @@ CREATE TABLE ingredientes (
 -- Índices para ingredientes
 CREATE INDEX idx_ingredientes_pedido_id ON ingredientes(pedido_id);
 CREATE INDEX idx_ingredientes_nombre ON ingredientes(nombre);
+CREATE INDEX idx_ingredientes_nombre_normalizado ON ingredientes(nombre_normalizado);
 
 -- ===== NOTAS PEDAGÓGICAS =====
 -- 
@@ -61,6 +77,18 @@ CREATE INDEX idx_ingredientes_nombre ON ingredientes(nombre);
 -- - Si se elimina un NPC, se eliminan automáticamente sus pedidos
 -- - Si se elimina un pedido, se eliminan automáticamente sus ingredientes
 --
+-- IDs CON SECUENCIA (en lugar de IDENTITY):
+-- - Con IDENTITY cada INSERT se ejecuta por separado para obtener el ID
+-- - Con secuencias Hibernate asigna los IDs antes del INSERT y puede agrupar
+--   las inserciones en lotes (hibernate.jdbc.batch_size)
+--
+-- COLUMNAS nombre_normalizado:
+-- - H2 no tiene índices sobre expresiones (CREATE INDEX ... (LOWER(nombre))):
+--   la expresión se guarda en una columna generada y se indexa esa columna
+-- - WHERE nombre_normalizado LIKE 'chef%' recorre solo el rango del índice;
+--   WHERE LOWER(nombre) LIKE '%chef%' recorre la tabla entera
+-- - Los INSERT no la incluyen: la calcula la BD
+--
 -- DIFERENCIAS vs RA2 (JDBC):
 -- - RA2: Los estudiantes escribían JOINs manualmente
 -- - RA3: Hibernate genera los JOINs automáticamente con @OneToMany/@ManyToOne
@@ -0,0 +1,73 @@
+package com.dam.accesodatos.mcp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios del executor de hilos virtuales con límite de concurrencia.
+ */
+@DisplayName("Tests Unitarios - LimitedVirtualThreadExecutor")
+class LimitedVirtualThreadExecutorTest {
+
+    private LimitedVirtualThreadExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Modo espera: nunca más de maxConcurrency tareas a la vez")
+    void waitingMode_BoundsConcurrency() throws Exception {
+        // Given
+        executor = new LimitedVirtualThreadExecutor("test-vt-", 2, false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When - 20 tareas que se solapan
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("Modo rechazo: sin permisos libres lanza RejectedExecutionException")
+    void rejectMode_RejectsWhenBusy() throws Exception {
+        // Given - La única tarea permitida se queda esperando
+        executor = new LimitedVirtualThreadExecutor("test-vt-", 1, true);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> {
+            release.await();
+            return null;
+        });
+
+        // When / Then
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> { }));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+}
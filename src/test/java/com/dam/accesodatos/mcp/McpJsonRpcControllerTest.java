@@ -0,0 +1,169 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests del endpoint JSON-RPC 2.0 (/mcp/rpc).
+ *
+ * NOTA: no es @Transactional porque los lotes se ejecutan en otros hilos;
+ * los datos se confirman en la BD y se limpian al terminar cada test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Endpoint JSON-RPC MCP")
+class McpJsonRpcControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @SpyBean
+    private McpToolMetrics toolMetrics;
+
+    private Npc npc;
+
+    @BeforeEach
+    void setUp() {
+        npc = npcRepository.save(new Npc("Chef RPC"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Petición individual tools/call devuelve el resultado con su id")
+    void singleCall_ReturnsResult() throws Exception {
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(call(7, "find_npc_by_id", "{\"npcId\": " + npc.getId() + "}")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jsonrpc").value("2.0"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.result.result.nombre").value("Chef RPC"));
+    }
+
+    @Test
+    @DisplayName("Lote concurrente: una respuesta por id, errores por petición")
+    void batch_ReturnsOneResponsePerId() throws Exception {
+        String batch = "[" + call(1, "find_npc_by_id", "{\"npcId\": " + npc.getId() + "}") + ","
+                + call(2, "find_pedidos_by_npc", "{\"npcId\": " + npc.getId() + "}") + ","
+                + call(3, "no_existe", "{}") + ","
+                + "{\"jsonrpc\": \"2.0\", \"method\": \"tools/call\", \"params\": {\"name\": \"count_active_npcs\"}},"
+                + "{\"jsonrpc\": \"2.0\", \"id\": 4, \"method\": \"otro/metodo\"}]";
+
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(1, 2, 3, 4)))
+                .andExpect(jsonPath("$[?(@.id == 1)].result.result.nombre").value(contains("Chef RPC")))
+                .andExpect(jsonPath("$[?(@.id == 2)].result.count").value(contains(0)))
+                .andExpect(jsonPath("$[?(@.id == 3)].error.code").value(contains(McpJsonRpcController.INVALID_PARAMS)))
+                .andExpect(jsonPath("$[?(@.id == 4)].error.code").value(contains(McpJsonRpcController.METHOD_NOT_FOUND)));
+    }
+
+    @Test
+    @DisplayName("Lote concurrente: un fallo fuera de la herramienta responde -32603 con su id")
+    void batch_UnexpectedFailure_InternalErrorWithId() throws Exception {
+        // El registro de métricas se ejecuta en el finally de callTool()
+        doThrow(new IllegalStateException("métricas caídas"))
+                .when(toolMetrics).recordStatements(eq("count_active_npcs"), anyString(), anyInt());
+
+        String batch = "[" + call(1, "find_npc_by_id", "{\"npcId\": " + npc.getId() + "}") + ","
+                + call(2, "count_active_npcs", "{}") + "]";
+
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[?(@.id == 1)].result.result.nombre").value(contains("Chef RPC")))
+                .andExpect(jsonPath("$[?(@.id == 2)].error.code").value(contains(McpJsonRpcController.INTERNAL_ERROR)));
+    }
+
+    @Test
+    @DisplayName("Transacción compartida de solo lectura rechaza herramientas de escritura, no las NOT_SUPPORTED")
+    void sharedTransaction_RejectsWriteTools() throws Exception {
+        String batch = "[" + call(1, "count_active_npcs", "{}") + ","
+                + call(2, "create_npc", "{\"nombre\": \"No permitido\"}") + ","
+                + call(3, "search_text", "{\"query\": \"chef\"}") + "]";
+
+        MvcResult async = mockMvc.perform(post("/mcp/rpc?sharedTransaction=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].result.result").value(1))
+                .andExpect(jsonPath("$[1].error.code").value(McpJsonRpcController.READ_ONLY_VIOLATION))
+                .andExpect(jsonPath("$[2].id").value(3))
+                .andExpect(jsonPath("$[2].error").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("JSON mal formado devuelve Parse error")
+    void invalidJson_ReturnsParseError() throws Exception {
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"jsonrpc\": "))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error.code").value(McpJsonRpcController.PARSE_ERROR));
+    }
+
+    private String call(int id, String tool, String arguments) {
+        return "{\"jsonrpc\": \"2.0\", \"id\": " + id + ", \"method\": \"tools/call\", "
+                + "\"params\": {\"name\": \"" + tool + "\", \"arguments\": " + arguments + "}}";
+    }
+}
@@ -0,0 +1,274 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.Ingrediente;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests del sobre de respuesta (McpToolResponse) de los endpoints REST.
+ *
+ * NOTA: no es @Transactional porque las respuestas en streaming se escriben
+ * en otro hilo; los datos se confirman en la BD y se limpian al terminar
+ * cada test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Respuestas de McpServerController")
+class McpServerControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Respuesta correcta: campos en orden fijo y sin error")
+    void success_FixedFieldOrderWithoutError() throws Exception {
+        Npc npc = npcRepository.save(new Npc("Chef Sobre"));
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"npcId\": " + npc.getId() + "}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"tool\":\"find_npc_by_id\",\"result\":{")))
+                .andExpect(jsonPath("$.result.nombre").value("Chef Sobre"))
+                .andExpect(jsonPath("$.status").value("success"))
+                .andExpect(jsonPath("$.count").doesNotExist())
+                .andExpect(jsonPath("$.error").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("find_npc_by_id sin open-in-view: pedidos e ingredientes ya cargados en la respuesta")
+    void findNpcById_MaterializedWithoutOpenSessionInView() throws Exception {
+        Npc npc = new Npc("Chef Detalle");
+        Pedido pedido = new Pedido();
+        pedido.setComentario("Sopa");
+        pedido.setCreatedAt(LocalDateTime.now());
+        pedido.addIngrediente(new Ingrediente("Sal", 2));
+        npc.addPedido(pedido);
+        npc = npcRepository.save(npc);
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"npcId\": " + npc.getId() + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.pedidos", hasSize(1)))
+                .andExpect(jsonPath("$.result.pedidos[0].comentario").value("Sopa"))
+                .andExpect(jsonPath("$.result.pedidos[0].ingredientes[0].nombre").value("Sal"));
+    }
+
+    @Test
+    @DisplayName("find_npc_by_id con include no válido o sin npcId: 400 con el sobre de error")
+    void findNpcById_InvalidArguments() throws Exception {
+        Npc npc = npcRepository.save(new Npc("Chef Exigente"));
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"npcId\": " + npc.getId() + ", \"include\": \"todo\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.error", containsString("include no válido")));
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("npcId es obligatorio")));
+    }
+
+    @Test
+    @DisplayName("Jackson (Hibernate6Module) no inicializa colecciones perezosas fuera de la sesión")
+    void objectMapper_DoesNotInitializeLazyCollections() throws Exception {
+        Npc saved = npcRepository.save(new Npc("Chef Perezoso"));
+        Npc detached = npcRepository.findById(saved.getId()).orElseThrow();
+
+        String json = objectMapper.writeValueAsString(detached);
+
+        assertFalse(Hibernate.isInitialized(detached.getPedidos()));
+        assertTrue(json.contains("\"pedidos\":null"), json);
+    }
+
+    @Test
+    @DisplayName("Listas en streaming: mismo sobre, con count al final")
+    void streamedList_SameEnvelopeWithCount() throws Exception {
+        npcRepository.save(new Npc("Chef Uno"));
+        npcRepository.save(new Npc("Chef Dos"));
+
+        MvcResult async = mockMvc.perform(post("/mcp/find_all_npcs"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(startsWith("{\"tool\":\"find_all_npcs\",\"result\":[")))
+                .andExpect(jsonPath("$.result", hasSize(2)))
+                .andExpect(jsonPath("$.result[*].nombre", containsInAnyOrder("Chef Uno", "Chef Dos")))
+                .andExpect(jsonPath("$.result[0].pedidos").doesNotExist())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.status").value("success"));
+    }
+
+    @Test
+    @DisplayName("find_all_npcs con include: NPCs con pedidos e ingredientes en el mismo sobre")
+    void streamedList_WithInclude() throws Exception {
+        Npc npc = new Npc("Chef Completo");
+        Pedido pedido = new Pedido("Sopa");
+        pedido.addIngrediente(new Ingrediente("Sal", 2));
+        npc.addPedido(pedido);
+        npcRepository.save(npc);
+
+        MvcResult async = mockMvc.perform(post("/mcp/find_all_npcs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"include\": \"pedidos.ingredientes\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result[0].pedidos[0].comentario").value("Sopa"))
+                .andExpect(jsonPath("$.result[0].pedidos[0].ingredientes[0].nombre").value("Sal"))
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.status").value("success"));
+    }
+
+    @Test
+    @DisplayName("find_all_npcs con fields: cada NPC solo con los campos pedidos")
+    void streamedList_WithFields() throws Exception {
+        npcRepository.save(new Npc("Chef Ligero"));
+
+        MvcResult async = mockMvc.perform(post("/mcp/find_all_npcs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fields\": [\"id\", \"nombre\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"result\":[{\"id\":")))
+                .andExpect(jsonPath("$.result[0].nombre").value("Chef Ligero"))
+                .andExpect(jsonPath("$.result[0].activo").doesNotExist())
+                .andExpect(jsonPath("$.result[0].createdAt").doesNotExist())
+                .andExpect(jsonPath("$.count").value(1));
+    }
+
+    @Test
+    @DisplayName("find_active_npcs con include no válido: 400 con el sobre de error")
+    void streamedList_InvalidInclude() throws Exception {
+        MvcResult async = mockMvc.perform(post("/mcp/find_active_npcs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"include\": \"todo\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.error", containsString("include no válido")));
+    }
+
+    @Test
+    @DisplayName("find_all_npcs con include que no es texto: 400 con el sobre de error")
+    void streamedList_NonTextInclude() throws Exception {
+        assertStreamingBadRequest("{\"include\": 5}", "include debe ser un texto");
+    }
+
+    @Test
+    @DisplayName("find_all_npcs con fields que no es una lista: 400 con el sobre de error")
+    void streamedList_FieldsNotAList() throws Exception {
+        assertStreamingBadRequest("{\"fields\": \"id,nombre\"}", "fields debe ser una lista de textos");
+    }
+
+    @Test
+    @DisplayName("find_all_npcs con un campo de fields que no es texto: 400 con el sobre de error")
+    void streamedList_NonTextField() throws Exception {
+        assertStreamingBadRequest("{\"fields\": [\"id\", 7]}", "fields debe ser una lista de textos");
+    }
+
+    @Test
+    @DisplayName("find_pedidos_by_npc sin npcId: 400 con el sobre de error")
+    void streamedPedidos_MissingNpcId() throws Exception {
+        MvcResult async = mockMvc.perform(post("/mcp/find_pedidos_by_npc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.result").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Error: sin result y con el mensaje en error")
+    void error_WithoutResult() throws Exception {
+        mockMvc.perform(post("/mcp/tools/no_existe/invoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(
+                        "{\"tool\":\"no_existe\",\"status\":\"error\",\"error\":\"Herramienta MCP desconocida: no_existe\"}"));
+    }
+
+    @Test
+    @DisplayName("GET /tools: lista de herramientas con nombre y descripción")
+    void tools_ListedWithCount() throws Exception {
+        mockMvc.perform(get("/mcp/tools"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tools[*].name", hasItem("find_all_npcs")))
+                .andExpect(jsonPath("$.count").value(greaterThan(0)))
+                .andExpect(jsonPath("$.version").value("2.0.0"));
+    }
+
+    private void assertStreamingBadRequest(String body, String message) throws Exception {
+        MvcResult async = mockMvc.perform(post("/mcp/find_all_npcs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.error").value(message));
+    }
+}
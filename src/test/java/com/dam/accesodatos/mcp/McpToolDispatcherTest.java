@@ -0,0 +1,116 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.PedidoDetalleDto;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de integración del despachador genérico de herramientas MCP.
+ *
+ * Verifica que las herramientas sin endpoint propio (update_npc, delete_npc,
+ * search_npcs, count_active_npcs, transfer_data) son accesibles y que los
+ * argumentos JSON se enlazan correctamente a los parámetros del servicio.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("Tests Integración - Despachador de herramientas MCP")
+class McpToolDispatcherTest {
+
+    @Autowired
+    private McpToolDispatcher dispatcher;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("create_npc + update_npc - DTO enlazado desde el JSON completo")
+    void createAndUpdate_BindsDtoFromWholeArguments() {
+        NpcDto created = (NpcDto) dispatcher.invoke("create_npc", Map.of("nombre", "Chef Despachado"));
+        assertNotNull(created.id());
+
+        NpcDto updated = (NpcDto) dispatcher.invoke("update_npc",
+                Map.of("npcId", created.id().intValue(), "nombre", "Chef Renombrado", "activo", false));
+
+        assertEquals("Chef Renombrado", updated.nombre());
+        assertFalse(updated.activo());
+    }
+
+    @Test
+    @DisplayName("add_pedido_to_npc - npcId por clave y PedidoCreateDto con ingredientes")
+    void addPedido_BindsNestedIngredientes() {
+        NpcDto npc = (NpcDto) dispatcher.invoke("create_npc", Map.of("nombre", "Chef Pedidos"));
+
+        PedidoDetalleDto pedido = (PedidoDetalleDto) dispatcher.invoke("add_pedido_to_npc", Map.of(
+                "npcId", npc.id(),
+                "comentario", "Sopa",
+                "ingredientes", List.of(Map.of("nombre", "Zanahoria", "cantidad", 3))));
+
+        assertEquals("Sopa", pedido.comentario());
+        assertEquals(1, pedido.ingredientes().size());
+        assertEquals(3, pedido.ingredientes().get(0).cantidad());
+    }
+
+    @Test
+    @DisplayName("transfer_data + count_active_npcs + search_npcs + delete_npc")
+    void previouslyUnreachableTools_AreInvokable() {
+        Object transferred = dispatcher.invoke("transfer_data", Map.of("npcs", List.of(
+                Map.of("nombre", "Chef Uno"),
+                Map.of("nombre", "Chef Dos"),
+                Map.of("nombre", "Pastelero"))));
+        assertEquals(Boolean.TRUE, transferred);
+
+        assertEquals(3L, dispatcher.invoke("count_active_npcs", null));
+
+        List<?> chefs = (List<?>) dispatcher.invoke("search_npcs", Map.of("nombre", "chef"));
+        assertEquals(2, chefs.size());
+
+        Long id = ((NpcDto) chefs.get(0)).id();
+        assertEquals(Boolean.TRUE, dispatcher.invoke("delete_npc", Map.of("npcId", id)));
+        assertEquals(Boolean.FALSE, dispatcher.invoke("delete_npc", Map.of("npcId", id)));
+    }
+
+    @Test
+    @DisplayName("Herramienta desconocida o argumento obligatorio ausente")
+    void invalidInvocations_ThrowIllegalArgument() {
+        assertFalse(dispatcher.hasTool("no_existe"));
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.invoke("no_existe", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.invoke("find_npc_by_id", Map.of()));
+    }
+
+    @Test
+    @DisplayName("Modo transaccional: readOnly y propagación del @Transactional")
+    void transactionMode_FromTransactionalAnnotation() {
+        assertTrue(dispatcher.isReadOnly("find_npc_by_id"));
+        assertFalse(dispatcher.isReadOnly("create_npc"));
+        assertEquals(Propagation.REQUIRED, dispatcher.getPropagation("create_npc"));
+
+        // NOT_SUPPORTED: no escriben en la transacción del llamante
+        assertTrue(dispatcher.isReadOnly("search_text"));
+        assertTrue(dispatcher.isReadOnly("transfer_data_bulk"));
+        assertEquals(Propagation.NOT_SUPPORTED, dispatcher.getPropagation("transfer_data_bulk"));
+    }
+}
@@ -0,0 +1,170 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests de las métricas Micrometer (herramientas MCP y consultas JPA).
+ *
+ * NOTA: el MeterRegistry se comparte entre los tests de la clase, por eso se
+ * comparan incrementos y no valores absolutos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Métricas MCP")
+class McpToolMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Npc npc;
+
+    @BeforeEach
+    void setUp() {
+        npc = npcRepository.save(new Npc("Chef Métricas"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Llamada REST: tiempo y tamaño de respuesta por herramienta")
+    void restCall_RecordsTimerAndResponseSize() throws Exception {
+        long before = count("find_npc_by_id", "rest", "success");
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"npcId\": " + npc.getId() + "}"))
+                .andExpect(status().isOk());
+
+        assertEquals(before + 1, count("find_npc_by_id", "rest", "success"));
+        DistributionSummary size = registry.get("mcp.tool.response.size")
+                .tags("tool", "find_npc_by_id", "transport", "rest")
+                .summary();
+        assertTrue(size.max() > 0);
+    }
+
+    @Test
+    @DisplayName("Llamada REST fallida: se cuenta con outcome=error")
+    void failingRestCall_RecordsError() throws Exception {
+        long before = count("find_npc_by_id", "rest", "error");
+
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(before + 1, count("find_npc_by_id", "rest", "error"));
+    }
+
+    @Test
+    @DisplayName("Respuesta en streaming: se mide al completarse")
+    void streamingCall_RecordedOnCompletion() throws Exception {
+        long before = count("find_all_npcs", "rest", "success");
+
+        MvcResult async = mockMvc.perform(post("/mcp/find_all_npcs/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(async)).andExpect(status().isOk());
+
+        assertEquals(before + 1, count("find_all_npcs", "rest", "success"));
+        assertTrue(registry.get("mcp.tool.response.size")
+                .tags("tool", "find_all_npcs", "transport", "rest")
+                .summary().max() > 0);
+    }
+
+    @Test
+    @DisplayName("Llamada JSON-RPC: se mide con transport=rpc")
+    void rpcCall_RecordsTimer() throws Exception {
+        long before = count("count_active_npcs", "rpc", "success");
+
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"jsonrpc\": \"2.0\", \"id\": 1, \"method\": \"tools/call\","
+                        + " \"params\": {\"name\": \"count_active_npcs\"}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(async)).andExpect(status().isOk());
+
+        assertEquals(before + 1, count("count_active_npcs", "rpc", "success"));
+    }
+
+    @Test
+    @DisplayName("Consultas JPQL y flush: tiempo, filas y tamaño del contexto")
+    void jpaQueries_RecordTimerRowsAndFlushSize() throws Exception {
+        // NOTA: las consultas recorridas en streaming (find_active_npcs) no
+        // pasan por las estadísticas de Hibernate; count_active_npcs sí
+        mockMvc.perform(post("/mcp/tools/count_active_npcs/invoke"))
+                .andExpect(status().isOk());
+
+        // Etiquetas acotadas: herramienta y hash corto de la consulta
+        Timer query = registry.get("mcp.jpa.query").tag("tool", "count_active_npcs").timer();
+        assertTrue(query.count() > 0);
+        assertTrue(query.getId().getTag("query").matches("[0-9a-f]{8}"));
+        DistributionSummary rows = registry.get("mcp.jpa.query.rows")
+                .tag("tool", "count_active_npcs")
+                .tag("query", query.getId().getTag("query"))
+                .summary();
+        assertTrue(rows.max() >= 1);
+        assertTrue(registry.get("mcp.jpa.flush.entities").summary().count() > 0);
+    }
+
+    @Test
+    @DisplayName("/actuator/prometheus expone las métricas MCP y de Hikari")
+    void prometheusEndpoint_ExposesMetrics() throws Exception {
+        mockMvc.perform(post("/mcp/find_npc_by_id")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"npcId\": " + npc.getId() + "}"));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("mcp_tool_calls_seconds_count{")))
+                .andExpect(content().string(containsString("mcp_jpa_query_seconds_count{")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")))
+                .andExpect(content().string(containsString("mcp_datasource_connections_in_use")));
+    }
+
+    private long count(String tool, String transport, String outcome) {
+        Timer timer = registry.find("mcp.tool.calls")
+                .tags("tool", tool, "transport", transport, "outcome", outcome)
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
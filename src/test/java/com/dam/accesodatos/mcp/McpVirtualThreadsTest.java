@@ -0,0 +1,111 @@
+package com.dam.accesodatos.mcp;
+
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests del modo de hilos virtuales (spring.threads.virtual.enabled=true).
+ *
+ * NOTA: no es @Transactional porque los lotes se ejecutan en otros hilos.
+ */
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "mcp.datasource.max-concurrency=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Hilos virtuales")
+class McpVirtualThreadsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("mcpToolExecutor")
+    private ExecutorService toolExecutor;
+
+    @Autowired
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Las herramientas se ejecutan en hilos virtuales")
+    void toolExecutor_UsesVirtualThreads() throws Exception {
+        Thread thread = toolExecutor.submit(Thread::currentThread).get();
+
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("mcp-tool-vt-"));
+    }
+
+    @Test
+    @DisplayName("Lote mayor que el límite de conexiones: todas las llamadas responden")
+    void batchLargerThanConnectionLimit_AllSucceed() throws Exception {
+        // Given - 50 llamadas con solo 2 conexiones a la vez
+        Npc npc = npcRepository.save(new Npc("Chef virtual"));
+        String batch = IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> "{\"jsonrpc\":\"2.0\",\"id\":" + i + ",\"method\":\"tools/call\","
+                        + "\"params\":{\"name\":\"find_npc_by_id\",\"arguments\":{\"npcId\":" + npc.getId() + "}}}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        // When
+        MvcResult async = mockMvc.perform(post("/mcp/rpc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(50)))
+                .andExpect(jsonPath("$[*].error").doesNotExist())
+                .andExpect(jsonPath("$[*].result.result.nombre", everyItem(is("Chef virtual"))));
+    }
+
+    @Test
+    @DisplayName("Health muestra el límite de conexiones y el monitor de hilos clavados")
+    void health_ShowsGuardAndPinningMonitor() throws Exception {
+        mockMvc.perform(get("/mcp/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.datasource.maxConcurrency").value(2))
+                .andExpect(jsonPath("$.datasource.inUse").value(0))
+                .andExpect(jsonPath("$.virtualThreads.enabled").value(true))
+                .andExpect(jsonPath("$.virtualThreads.pinnedThresholdMillis").value(20));
+
+        assertNotNull(pinningMonitor.snapshot().get("pinnedEvents"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.dam.accesodatos.ra3;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios del límite de conexiones en uso delante del pool.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - ConcurrencyLimitingDataSource")
+class ConcurrencyLimitingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private ConcurrencyLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Sin permisos libres falla con SQLTransientConnectionException")
+    void limitReached_FailsFast() throws SQLException {
+        // Given
+        when(target.getConnection()).thenReturn(connection);
+        Connection first = dataSource.getConnection();
+
+        // When / Then
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Map<String, Object> snapshot = dataSource.snapshot();
+        assertEquals(1, snapshot.get("inUse"));
+        assertEquals(1L, snapshot.get("rejected"));
+        verify(target, times(1)).getConnection();
+        first.close();
+    }
+
+    @Test
+    @DisplayName("close() devuelve el permiso una sola vez")
+    void close_ReleasesPermitOnce() throws SQLException {
+        // Given
+        when(target.getConnection()).thenReturn(connection);
+
+        // When - Cerrar dos veces no debe liberar dos permisos
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+        Connection second = dataSource.getConnection();
+
+        // Then
+        verify(connection, times(2)).close();
+        assertEquals(1, dataSource.snapshot().get("inUse"));
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        second.close();
+        assertEquals(0, dataSource.snapshot().get("inUse"));
+    }
+
+    @Test
+    @DisplayName("Si el pool falla se devuelve el permiso")
+    void targetFailure_ReleasesPermit() throws SQLException {
+        // Given
+        when(target.getConnection()).thenThrow(new SQLException("pool agotado")).thenReturn(connection);
+
+        // When / Then
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.snapshot().get("inUse"));
+        assertNotNull(dataSource.getConnection());
+    }
+}
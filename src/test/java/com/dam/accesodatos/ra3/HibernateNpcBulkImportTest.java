@@ -0,0 +1,160 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.BulkTransferOptionsDto;
+import com.dam.accesodatos.model.BulkTransferResultDto;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la importación masiva por bloques (transfer_data_bulk).
+ *
+ * NOTA: no es @Transactional porque el importador abre sus propias
+ * transacciones; los datos se confirman y se limpian al terminar cada test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Importación masiva de NPCs")
+class HibernateNpcBulkImportTest {
+
+    @Autowired
+    private HibernateNpcService service;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Sin pedidos usa StatelessSession y confirma por bloques")
+    void withoutPedidos_StatelessCommitPerChunk() {
+        // Given
+        BulkTransferOptionsDto options = new BulkTransferOptionsDto(3, true);
+
+        // When
+        BulkTransferResultDto result = service.transferDataBulk(npcs(10), options);
+
+        // Then
+        assertEquals("stateless", result.mode());
+        assertEquals(10, result.inserted());
+        assertEquals(0, result.failed());
+        assertEquals(4, result.chunks());
+        assertEquals(10, result.nextIndex());
+        assertTrue(result.rowsPerSecond() > 0);
+        assertEquals(10L, npcRepository.count());
+    }
+
+    @Test
+    @DisplayName("Con pedidos usa EntityManager y persiste en cascada")
+    void withPedidos_StatefulCascade() {
+        // Given
+        List<Npc> npcs = npcs(5);
+        Pedido pedido = new Pedido();
+        pedido.setComentario("Pedido masivo");
+        npcs.get(0).addPedido(pedido);
+
+        // When
+        BulkTransferResultDto result = service.transferDataBulk(npcs, new BulkTransferOptionsDto(2, false));
+
+        // Then
+        assertEquals("stateful", result.mode());
+        assertEquals(5, result.inserted());
+        assertEquals(3, result.chunks());
+        assertEquals(5L, npcRepository.count());
+        assertEquals(1L, pedidoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Filas no válidas se rechazan y el resto se inserta")
+    void invalidRows_ReportedAsFailed() {
+        // Given - Posiciones 1 (nombre vacío) y 3 (nombre demasiado largo)
+        List<Npc> npcs = npcs(5);
+        npcs.get(1).setNombre("");
+        npcs.get(3).setNombre("X".repeat(60));
+
+        // When
+        BulkTransferResultDto result = service.transferDataBulk(npcs, new BulkTransferOptionsDto(2, true));
+
+        // Then
+        assertEquals(3, result.inserted());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(1, 3), result.failedRows().stream().map(BulkTransferResultDto.FailedRow::index).toList());
+        assertTrue(result.failedRows().get(0).error().contains("nombre"));
+        assertEquals(3L, npcRepository.count());
+    }
+
+    @Test
+    @DisplayName("Bloque con error de BD se reintenta fila a fila")
+    void failingChunk_RetriedRowByRow() {
+        // Given - Un pedido con comentario de más de 255 caracteres hace
+        // fallar el bloque al hacer flush
+        List<Npc> npcs = npcs(4);
+        Pedido invalid = new Pedido();
+        invalid.setComentario("C".repeat(300));
+        npcs.get(2).addPedido(invalid);
+
+        // When
+        BulkTransferResultDto result = service.transferDataBulk(npcs, new BulkTransferOptionsDto(4, true));
+
+        // Then - Solo se pierde el NPC del pedido no válido
+        assertEquals(3, result.inserted());
+        assertEquals(1, result.failed());
+        assertEquals(2, result.failedRows().get(0).index());
+        assertEquals(3L, npcRepository.count());
+    }
+
+    @Test
+    @DisplayName("resumeFrom continúa desde el punto de control")
+    void resumeFrom_SkipsAlreadyImportedRows() {
+        // Given
+        List<Npc> npcs = npcs(10);
+        BulkTransferOptionsDto options = new BulkTransferOptionsDto(4, true);
+        options.setResumeFrom(6);
+
+        // When
+        BulkTransferResultDto result = service.transferDataBulk(npcs, options);
+
+        // Then
+        assertEquals(4, result.inserted());
+        assertEquals(10, result.nextIndex());
+        assertEquals(4L, npcRepository.count());
+    }
+
+    @Test
+    @DisplayName("Opciones no válidas lanzan IllegalArgumentException")
+    void invalidOptions_Throw() {
+        BulkTransferOptionsDto options = new BulkTransferOptionsDto(0, false);
+        assertThrows(IllegalArgumentException.class, () -> service.transferDataBulk(npcs(1), options));
+
+        BulkTransferOptionsDto resume = new BulkTransferOptionsDto(10, false);
+        resume.setResumeFrom(5);
+        assertThrows(IllegalArgumentException.class, () -> service.transferDataBulk(npcs(1), resume));
+    }
+
+    private List<Npc> npcs(int count) {
+        List<Npc> npcs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            npcs.add(new Npc("Masivo " + i));
+        }
+        return npcs;
+    }
+}
@@ -0,0 +1,230 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.BulkTransferResultDto;
+import com.dam.accesodatos.repository.IngredienteRepository;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests de la importación NDJSON en streaming (NpcStreamImporter).
+ *
+ * NOTA: no es @Transactional porque cada bloque se confirma en su propia
+ * transacción desde el hilo escritor.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Importación NDJSON en streaming")
+class HibernateNpcNdjsonImportTest {
+
+    @Autowired
+    private HibernateNpcService service;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private IngredienteRepository ingredienteRepository;
+
+    @Autowired
+    private NpcBulkImporter bulkImporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Importa el grafo NPC -> pedidos -> ingredientes por bloques")
+    void importsFullGraphsInChunks() {
+        // Given - 25 líneas generadas bajo demanda (la entrada nunca está completa en memoria)
+        InputStream input = new SequenceInputStream(Collections.enumeration(
+                IntStream.range(0, 25).mapToObj(this::line).toList()));
+
+        // When
+        BulkTransferResultDto result = service.importNpcsNdjson(input, 10);
+
+        // Then
+        assertNull(result.error());
+        assertEquals(25, result.total());
+        assertEquals(25, result.inserted());
+        assertEquals(3, result.chunks());
+        assertEquals(25, result.nextIndex());
+        assertEquals(25L, npcRepository.count());
+        assertEquals(25L, pedidoRepository.count());
+        assertEquals(50L, ingredienteRepository.count());
+    }
+
+    @Test
+    @DisplayName("Línea no válida detiene la importación conservando lo anterior")
+    void malformedLine_StopsWithCheckpoint() {
+        // Given - Línea 5 rota; bloques de 2 líneas
+        String ndjson = """
+                {"nombre": "NPC 0"}
+                {"nombre": "NPC 1"}
+                {"nombre": "NPC 2"}
+                {"nombre": "NPC 3"}
+                {"nombre": "NPC 4
+                {"nombre": "NPC 5"}
+                """;
+
+        // When
+        BulkTransferResultDto result = service.importNpcsNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), 2);
+
+        // Then
+        assertNotNull(result.error());
+        assertTrue(result.error().startsWith("Línea 5"));
+        assertEquals(4, result.inserted());
+        assertEquals(4, result.nextIndex());
+        assertEquals(4L, npcRepository.count());
+    }
+
+    @Test
+    @DisplayName("Filas no válidas se informan con su número de línea")
+    void invalidRows_ReportedWithLineIndex() {
+        // Given
+        String ndjson = "{\"nombre\": \"Bueno\"}\n{\"nombre\": \"\"}\n{\"nombre\": \"Otro bueno\"}\n";
+
+        // When
+        BulkTransferResultDto result = service.importNpcsNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), 2);
+
+        // Then
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.failed());
+        assertEquals(1, result.failedRows().get(0).index());
+    }
+
+    @Test
+    @DisplayName("POST /mcp/transfer_data_bulk/stream acepta application/x-ndjson")
+    void endpoint_AcceptsNdjson() throws Exception {
+        String ndjson = "{\"nombre\": \"Desde HTTP\", \"pedidos\": [{\"comentario\": \"Pedido\"}]}\n";
+
+        mockMvc.perform(post("/mcp/transfer_data_bulk/stream")
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("success"))
+                .andExpect(jsonPath("$.result.inserted").value(1));
+
+        assertEquals(1L, pedidoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Escritor sin hilo disponible: la importación falla sin quedarse esperando")
+    void writerNeverStarts_FailsAfterTimeout() throws Exception {
+        // Given - Executor de un hilo ocupado por otra tarea
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        busy.submit(() -> {
+            release.await();
+            return null;
+        });
+        try {
+            NpcStreamImporter importer = importer(busy, bulkImporter);
+
+            // When
+            BulkTransferResultDto result = importer.importNdjson(ndjson(3), 1);
+
+            // Then
+            assertTrue(result.error().contains("no ha arrancado"), result.error());
+            assertEquals(0, result.inserted());
+            assertEquals(0L, npcRepository.count());
+        } finally {
+            release.countDown();
+            busy.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Escritor atascado: el lector deja de esperar hueco en la cola al vencer el plazo")
+    void writerStalls_ProducerGivesUp() {
+        // Given - El escritor se queda bloqueado en el primer bloque
+        NpcBulkImporter stalled = mock(NpcBulkImporter.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(stalled.importNpcs(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return null;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            NpcStreamImporter importer = importer(executor, stalled);
+
+            // When - 1 bloque en escritura + QUEUE_CAPACITY en cola; el
+            // siguiente ya no cabe
+            long start = System.nanoTime();
+            BulkTransferResultDto result = importer.importNdjson(ndjson(NpcStreamImporter.QUEUE_CAPACITY + 3), 1);
+
+            // Then
+            assertTrue(result.error().contains("no ha avanzado"), result.error());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * NpcStreamImporter con executor, importador y plazos cortos propios.
+     */
+    private NpcStreamImporter importer(ExecutorService executor, NpcBulkImporter importer) {
+        NpcStreamImporter streamImporter = new NpcStreamImporter();
+        ReflectionTestUtils.setField(streamImporter, "bulkImporter", importer);
+        ReflectionTestUtils.setField(streamImporter, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(streamImporter, "writerExecutor", executor);
+        ReflectionTestUtils.setField(streamImporter, "writerStartTimeout", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(streamImporter, "enqueueTimeout", Duration.ofMillis(500));
+        return streamImporter;
+    }
+
+    private InputStream ndjson(int lines) {
+        return new SequenceInputStream(Collections.enumeration(
+                IntStream.range(0, lines).mapToObj(this::line).toList()));
+    }
+
+    private InputStream line(int i) {
+        String json = "{\"nombre\": \"NPC " + i + "\", \"pedidos\": [{\"comentario\": \"Pedido " + i
+                + "\", \"ingredientes\": [{\"nombre\": \"Sal\", \"cantidad\": 1}, {\"nombre\": \"Agua\"}]}]}\n";
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
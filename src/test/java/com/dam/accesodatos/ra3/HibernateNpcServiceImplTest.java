@@ -1,11 +1,14 @@
 package com.dam.accesodatos.ra3;
 
 import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.model.NpcDto;
 import com.dam.accesodatos.model.Pedido;
 import com.dam.accesodatos.model.NpcCreateDto;
 import com.dam.accesodatos.model.NpcUpdateDto;
 import com.dam.accesodatos.model.NpcQueryDto;
 import com.dam.accesodatos.model.PedidoCreateDto;
+import com.dam.accesodatos.model.PedidoDetalleDto;
 import com.dam.accesodatos.model.IngredienteDto;
 import com.dam.accesodatos.repository.NpcRepository;
 import com.dam.accesodatos.repository.PedidoRepository;
@@ -26,6 +29,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -129,14 +133,14 @@ class HibernateNpcServiceImplTest {
         doNothing().when(entityManager).persist(any(Npc.class));
 
         // When
-        Npc result = service.createNpc(createDto);
+        NpcDto result = service.createNpc(createDto);
 
         // Then
         assertNotNull(result);
-        assertEquals(createDto.getNombre(), result.getNombre());
-        assertTrue(result.getActivo());
-        assertNotNull(result.getCreatedAt());
-        assertNotNull(result.getUpdatedAt());
+        assertEquals(createDto.getNombre(), result.nombre());
+        assertTrue(result.activo());
+        assertNotNull(result.createdAt());
+        assertNotNull(result.updatedAt());
         verify(entityManager).persist(any(Npc.class));
     }
 
@@ -147,15 +151,18 @@ class HibernateNpcServiceImplTest {
     void findNpcById_Found() {
         // Given
         when(entityManager.find(Npc.class, 1L)).thenReturn(testNpc);
+        when(pedidoRepository.findDetalleByNpcId(1L)).thenReturn(List.of());
 
         // When
-        Npc result = service.findNpcById(1L);
+        NpcDetalleDto result = service.findNpcById(1L);
 
         // Then
         assertNotNull(result);
-        assertEquals(testNpc.getId(), result.getId());
-        assertEquals(testNpc.getNombre(), result.getNombre());
+        assertEquals(testNpc.getId(), result.id());
+        assertEquals(testNpc.getNombre(), result.nombre());
+        assertTrue(result.pedidos().isEmpty());
         verify(entityManager).find(Npc.class, 1L);
+        verify(pedidoRepository).findDetalleByNpcId(1L);
     }
 
     @Test
@@ -165,11 +172,12 @@ class HibernateNpcServiceImplTest {
         when(entityManager.find(Npc.class, 999L)).thenReturn(null);
 
         // When
-        Npc result = service.findNpcById(999L);
+        NpcDetalleDto result = service.findNpcById(999L);
 
         // Then
         assertNull(result);
         verify(entityManager).find(Npc.class, 999L);
+        verify(pedidoRepository, never()).findDetalleByNpcId(anyLong());
     }
 
     // ========== Tests para updateNpc() ==========
@@ -182,7 +190,7 @@ class HibernateNpcServiceImplTest {
         when(entityManager.merge(any(Npc.class))).thenReturn(testNpc);
 
         // When
-        Npc result = service.updateNpc(1L, updateDto);
+        NpcDto result = service.updateNpc(1L, updateDto);
 
         // Then
         assertNotNull(result);
@@ -210,17 +218,18 @@ class HibernateNpcServiceImplTest {
     @DisplayName("findAll() - Retorna todos los NPCs")
     void findAll_Success() {
         // Given
-        List<Npc> npcs = Arrays.asList(testNpc);
-        when(npcRepository.findAll()).thenReturn(npcs);
+        List<NpcDto> npcs = Arrays.asList(NpcDto.from(testNpc));
+        when(npcRepository.findAllDtos()).thenReturn(npcs);
 
         // When
-        List<Npc> result = service.findAll();
+        List<NpcDto> result = service.findAll();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(testNpc.getId(), result.get(0).getId());
-        verify(npcRepository).findAll();
+        assertEquals(testNpc.getId(), result.get(0).id());
+        verify(npcRepository).findAllDtos();
+        verify(npcRepository, never()).findAll();
     }
 
     // ========== Tests para addPedidoToNpc() ==========
@@ -230,7 +239,6 @@ class HibernateNpcServiceImplTest {
     void addPedidoToNpc_Success() {
         // Given
         when(entityManager.find(Npc.class, 1L)).thenReturn(testNpc);
-        when(entityManager.merge(any(Npc.class))).thenReturn(testNpc);
 
         PedidoCreateDto pedidoDto = new PedidoCreateDto("Pedido de prueba");
         pedidoDto.setIngredientes(Arrays.asList(
@@ -238,14 +246,17 @@ class HibernateNpcServiceImplTest {
                 new IngredienteDto("Cebolla", 1)));
 
         // When
-        Pedido result = service.addPedidoToNpc(1L, pedidoDto);
+        PedidoDetalleDto result = service.addPedidoToNpc(1L, pedidoDto);
 
         // Then
         assertNotNull(result);
-        assertEquals("Pedido de prueba", result.getComentario());
-        assertEquals(2, result.getIngredientes().size());
+        assertEquals("Pedido de prueba", result.comentario());
+        assertEquals(2, result.ingredientes().size());
+        assertEquals("Tomate", result.ingredientes().get(0).nombre());
+        assertEquals(1, testNpc.getPedidos().size());
         verify(entityManager).find(Npc.class, 1L);
-        verify(entityManager).merge(any(Npc.class));
+        verify(entityManager).persist(any(Pedido.class));
+        verify(entityManager, never()).merge(any());
     }
 
     @Test
@@ -267,18 +278,18 @@ class HibernateNpcServiceImplTest {
     void findActiveNpcs_Success() {
         // Given
         @SuppressWarnings("unchecked")
-        TypedQuery<Npc> query = mock(TypedQuery.class);
-        List<Npc> npcs = Arrays.asList(testNpc);
-        when(entityManager.createQuery(anyString(), eq(Npc.class))).thenReturn(query);
+        TypedQuery<NpcDto> query = mock(TypedQuery.class);
+        List<NpcDto> npcs = Arrays.asList(NpcDto.from(testNpc));
+        when(entityManager.createQuery(anyString(), eq(NpcDto.class))).thenReturn(query);
         when(query.getResultList()).thenReturn(npcs);
 
         // When
-        List<Npc> result = service.findActiveNpcs();
+        List<NpcDto> result = service.findActiveNpcs();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(entityManager).createQuery(anyString(), eq(Npc.class));
+        verify(entityManager).createQuery(anyString(), eq(NpcDto.class));
         verify(query).getResultList();
     }
 
@@ -287,12 +298,12 @@ class HibernateNpcServiceImplTest {
     void findActiveNpcs_EmptyResult() {
         // Given
         @SuppressWarnings("unchecked")
-        TypedQuery<Npc> query = mock(TypedQuery.class);
-        when(entityManager.createQuery(anyString(), eq(Npc.class))).thenReturn(query);
+        TypedQuery<NpcDto> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(NpcDto.class))).thenReturn(query);
         when(query.getResultList()).thenReturn(Arrays.asList());
 
         // When
-        List<Npc> result = service.findActiveNpcs();
+        List<NpcDto> result = service.findActiveNpcs();
 
         // Then
         assertNotNull(result);
@@ -345,21 +356,21 @@ class HibernateNpcServiceImplTest {
     void searchNpcs_WithFilters_BuildsDynamicJPQL() {
         // Given
         @SuppressWarnings("unchecked")
-        TypedQuery<Npc> query = mock(TypedQuery.class);
-        when(entityManager.createQuery(anyString(), eq(Npc.class))).thenReturn(query);
+        TypedQuery<NpcDto> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(NpcDto.class))).thenReturn(query);
         when(query.setParameter(anyString(), any())).thenReturn(query);
-        when(query.getResultList()).thenReturn(Arrays.asList(testNpc));
+        when(query.getResultList()).thenReturn(Arrays.asList(NpcDto.from(testNpc)));
 
         NpcQueryDto queryDto = new NpcQueryDto();
         queryDto.setNombre("Chef");
         queryDto.setActivo(true);
 
         // When
-        List<Npc> result = service.searchNpcs(queryDto);
+        List<NpcDto> result = service.searchNpcs(queryDto);
 
         // Then
         assertNotNull(result);
-        verify(entityManager).createQuery(anyString(), eq(Npc.class));
+        verify(entityManager).createQuery(anyString(), eq(NpcDto.class));
         verify(query).getResultList();
     }
 
@@ -3,6 +3,13 @@ package com.dam.accesodatos.ra3;
 import com.dam.accesodatos.model.*;
 import com.dam.accesodatos.repository.NpcRepository;
 import com.dam.accesodatos.repository.PedidoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,6 +18,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -34,8 +43,13 @@ import static org.junit.jupiter.api.Assertions.*;
  *                 5. findActiveNpcs() - 2 tests
  *                 6. Flujo CRUD completo - 1 test integrado
  *                 7. Relaciones NPC -> Pedidos -> Ingredientes - 1 test
+ *
+ *                 MODO FAIL-FAST DE SQL: mcp.sql.fail-fast=true hace que
+ *                 cualquier N+1 (mismo SELECT repetido más de
+ *                 mcp.sql.n-plus-one-threshold veces en una transacción)
+ *                 lance NPlusOneQueryException y el test falle.
  */
-@SpringBootTest
+@SpringBootTest(properties = "mcp.sql.fail-fast=true")
 @ActiveProfiles("test")
 @Transactional
 @DisplayName("Tests Integración - Métodos Implementados NPC")
@@ -50,6 +64,12 @@ class HibernateNpcServiceIntegrationTest {
     @Autowired
     private PedidoRepository pedidoRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SqlStatementInspector statementInspector;
+
     @BeforeEach
     void setUp() {
         // Limpiar BD antes de cada test
@@ -81,31 +101,31 @@ class HibernateNpcServiceIntegrationTest {
         NpcCreateDto createDto = new NpcCreateDto();
         createDto.setNombre("NPC de Integración");
 
-        Npc created = service.createNpc(createDto);
-        assertNotNull(created.getId());
-        assertEquals("NPC de Integración", created.getNombre());
-        assertTrue(created.getActivo());
+        NpcDto created = service.createNpc(createDto);
+        assertNotNull(created.id());
+        assertEquals("NPC de Integración", created.nombre());
+        assertTrue(created.activo());
 
         // 2. READ - Buscar NPC con findNpcById()
-        Npc found = service.findNpcById(created.getId());
+        NpcDetalleDto found = service.findNpcById(created.id());
         assertNotNull(found);
-        assertEquals(created.getId(), found.getId());
-        assertEquals("NPC de Integración", found.getNombre());
+        assertEquals(created.id(), found.id());
+        assertEquals("NPC de Integración", found.nombre());
 
         // 3. UPDATE - Actualizar NPC con updateNpc()
         NpcUpdateDto updateDto = new NpcUpdateDto();
         updateDto.setNombre("NPC Actualizado");
         updateDto.setActivo(false);
 
-        Npc updated = service.updateNpc(created.getId(), updateDto);
-        assertEquals("NPC Actualizado", updated.getNombre());
-        assertFalse(updated.getActivo());
-        assertEquals(created.getId(), updated.getId());
+        NpcDto updated = service.updateNpc(created.id(), updateDto);
+        assertEquals("NPC Actualizado", updated.nombre());
+        assertFalse(updated.activo());
+        assertEquals(created.id(), updated.id());
 
         // 4. VERIFY - Verificar que los cambios persisten
-        Npc verified = service.findNpcById(created.getId());
-        assertEquals("NPC Actualizado", verified.getNombre());
-        assertFalse(verified.getActivo());
+        NpcDetalleDto verified = service.findNpcById(created.id());
+        assertEquals("NPC Actualizado", verified.nombre());
+        assertFalse(verified.activo());
     }
 
     // ========== Tests de findAll() ==========
@@ -119,20 +139,59 @@ class HibernateNpcServiceIntegrationTest {
         createTestNpc("Pastelero Luis");
 
         // When
-        List<Npc> allNpcs = service.findAll();
+        List<NpcDto> allNpcs = service.findAll();
 
         // Then
         assertNotNull(allNpcs);
         assertEquals(3, allNpcs.size());
     }
 
+    @Test
+    @DisplayName("findAll() - Proyección a DTO: no añade entidades al contexto de persistencia")
+    void findAll_ProjectionDoesNotManageEntities() {
+        // Given
+        createTestNpc("Chef Proyectado");
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.unwrap(Session.class);
+
+        // When
+        List<NpcDto> allNpcs = service.findAll();
+
+        // Then
+        assertEquals("Chef Proyectado", allNpcs.get(0).nombre());
+        assertEquals(0, session.getStatistics().getEntityCount(),
+                "La proyección no debe crear entidades gestionadas");
+    }
+
+    @Test
+    @DisplayName("NpcRepository - Los métodos que devuelven entidades las cargan en solo lectura")
+    void repositoryEntityFinders_AreReadOnly() {
+        // Given - La transacción del test es de lectura/escritura
+        createTestNpc("Chef Lectura");
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.unwrap(Session.class);
+
+        // When
+        List<Npc> npcs = npcRepository.findByNombreContainingIgnoreCase("lectura");
+
+        // Then - Sin snapshot: los cambios no se vuelcan en la BD
+        assertEquals(1, npcs.size());
+        assertTrue(session.isReadOnly(npcs.get(0)));
+        npcs.get(0).setNombre("Modificado");
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals("Chef Lectura", service.findNpcById(npcs.get(0).getId()).nombre());
+    }
+
     // ========== Tests de addPedidoToNpc() ==========
 
     @Test
     @DisplayName("addPedidoToNpc() - Añade pedido con ingredientes correctamente")
     void addPedidoToNpc_WithIngredients_Success() {
         // Given - Crear NPC
-        Npc npc = createTestNpc("Chef de Prueba");
+        NpcDto npc = createTestNpc("Chef de Prueba");
 
         // Crear DTO de pedido con ingredientes
         PedidoCreateDto pedidoDto = new PedidoCreateDto("Sopa del día");
@@ -142,32 +201,33 @@ class HibernateNpcServiceIntegrationTest {
                 new IngredienteDto("Apio", 1)));
 
         // When
-        Pedido pedido = service.addPedidoToNpc(npc.getId(), pedidoDto);
+        PedidoDetalleDto pedido = service.addPedidoToNpc(npc.id(), pedidoDto);
 
         // Then
         assertNotNull(pedido);
-        assertEquals("Sopa del día", pedido.getComentario());
-        assertEquals(3, pedido.getIngredientes().size());
+        assertNotNull(pedido.id());
+        assertEquals("Sopa del día", pedido.comentario());
+        assertEquals(3, pedido.ingredientes().size());
 
         // Verificar que los ingredientes están correctos
-        assertTrue(pedido.getIngredientes().stream()
-                .anyMatch(i -> "Zanahoria".equals(i.getNombre()) && i.getCantidad() == 3));
+        assertTrue(pedido.ingredientes().stream()
+                .anyMatch(i -> "Zanahoria".equals(i.nombre()) && i.cantidad() == 3 && i.id() != null));
     }
 
     @Test
     @DisplayName("addPedidoToNpc() - Pedido sin ingredientes")
     void addPedidoToNpc_WithoutIngredients_Success() {
         // Given
-        Npc npc = createTestNpc("Chef Simple");
+        NpcDto npc = createTestNpc("Chef Simple");
         PedidoCreateDto pedidoDto = new PedidoCreateDto("Pedido básico");
 
         // When
-        Pedido pedido = service.addPedidoToNpc(npc.getId(), pedidoDto);
+        PedidoDetalleDto pedido = service.addPedidoToNpc(npc.id(), pedidoDto);
 
         // Then
         assertNotNull(pedido);
-        assertEquals("Pedido básico", pedido.getComentario());
-        assertTrue(pedido.getIngredientes().isEmpty());
+        assertEquals("Pedido básico", pedido.comentario());
+        assertTrue(pedido.ingredientes().isEmpty());
     }
 
     // ========== Tests de findActiveNpcs() ==========
@@ -176,35 +236,35 @@ class HibernateNpcServiceIntegrationTest {
     @DisplayName("findActiveNpcs() - Solo retorna NPCs activos")
     void findActiveNpcs_OnlyActiveNpcs() {
         // Given - Crear NPCs activos e inactivos
-        Npc active1 = createTestNpc("Activo 1");
-        Npc active2 = createTestNpc("Activo 2");
-        Npc inactive = createTestNpc("Inactivo");
+        NpcDto active1 = createTestNpc("Activo 1");
+        NpcDto active2 = createTestNpc("Activo 2");
+        NpcDto inactive = createTestNpc("Inactivo");
 
         // Desactivar uno
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(inactive.getId(), deactivate);
+        service.updateNpc(inactive.id(), deactivate);
 
         // When
-        List<Npc> activeNpcs = service.findActiveNpcs();
+        List<NpcDto> activeNpcs = service.findActiveNpcs();
 
         // Then
         assertNotNull(activeNpcs);
         assertEquals(2, activeNpcs.size());
-        assertTrue(activeNpcs.stream().allMatch(Npc::getActivo));
+        assertTrue(activeNpcs.stream().allMatch(NpcDto::activo));
     }
 
     @Test
     @DisplayName("findActiveNpcs() - Retorna lista vacía si no hay NPCs activos")
     void findActiveNpcs_NoActive_EmptyList() {
         // Given - Crear NPC y desactivarlo
-        Npc npc = createTestNpc("Único NPC");
+        NpcDto npc = createTestNpc("Único NPC");
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(npc.getId(), deactivate);
+        service.updateNpc(npc.id(), deactivate);
 
         // When
-        List<Npc> result = service.findActiveNpcs();
+        List<NpcDto> result = service.findActiveNpcs();
 
         // Then
         assertNotNull(result);
@@ -217,14 +277,14 @@ class HibernateNpcServiceIntegrationTest {
     @DisplayName("Relaciones completas NPC -> Pedidos -> Ingredientes")
     void fullRelationship_NpcWithMultiplePedidosAndIngredientes() {
         // Given - Crear NPC
-        Npc npc = createTestNpc("Chef Completo");
+        NpcDto npc = createTestNpc("Chef Completo");
 
         // Añadir primer pedido
         PedidoCreateDto pedido1 = new PedidoCreateDto("Primer plato");
         pedido1.setIngredientes(Arrays.asList(
                 new IngredienteDto("Tomate", 2),
                 new IngredienteDto("Lechuga", 1)));
-        service.addPedidoToNpc(npc.getId(), pedido1);
+        service.addPedidoToNpc(npc.id(), pedido1);
 
         // Añadir segundo pedido
         PedidoCreateDto pedido2 = new PedidoCreateDto("Segundo plato");
@@ -232,10 +292,10 @@ class HibernateNpcServiceIntegrationTest {
                 new IngredienteDto("Arroz", 1),
                 new IngredienteDto("Pollo", 1),
                 new IngredienteDto("Verduras", 3)));
-        service.addPedidoToNpc(npc.getId(), pedido2);
+        service.addPedidoToNpc(npc.id(), pedido2);
 
         // When - Obtener pedidos del NPC
-        List<Pedido> pedidos = service.findPedidosByNpc(npc.getId());
+        List<PedidoDetalleDto> pedidos = service.findPedidosByNpc(npc.id());
 
         // Then
         assertNotNull(pedidos);
@@ -243,18 +303,423 @@ class HibernateNpcServiceIntegrationTest {
 
         // Verificar totales de ingredientes
         int totalIngredientes = pedidos.stream()
-                .mapToInt(p -> p.getIngredientes().size())
+                .mapToInt(p -> p.ingredientes().size())
                 .sum();
         assertEquals(5, totalIngredientes);
     }
 
+    @Test
+    @DisplayName("findPedidosByNpc() - Carga pedidos e ingredientes con 2 consultas (sin N+1)")
+    void findPedidosByNpc_TwoStatementsRegardlessOfPedidos() {
+        // Given - Un NPC con 5 pedidos de 2 ingredientes cada uno
+        NpcDto npc = createTestNpc("Chef N+1");
+        for (int i = 1; i <= 5; i++) {
+            service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido " + i, Arrays.asList(
+                    new IngredienteDto("Sal", 1),
+                    new IngredienteDto("Aceite", 2))));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics stats = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        stats.clear();
+
+        // When
+        List<PedidoDetalleDto> pedidos = service.findPedidosByNpc(npc.id());
+
+        // Then - 1 consulta de pedidos + 1 consulta IN de ingredientes
+        assertEquals(5, pedidos.size());
+        assertTrue(pedidos.stream().allMatch(p -> p.ingredientes().size() == 2));
+        assertEquals(2L, stats.getPrepareStatementCount(), "Debe ejecutar exactamente 2 consultas");
+    }
+
+    @Test
+    @DisplayName("findNpcById() - Devuelve el NPC con pedidos e ingredientes en 3 consultas, sin cargar colecciones")
+    void findNpcById_MaterializedGraphWithExplicitFetchPlan() {
+        // Given - Un NPC con 3 pedidos de 2 ingredientes cada uno
+        NpcDto npc = createTestNpc("Chef Detalle");
+        for (int i = 1; i <= 3; i++) {
+            service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido " + i, Arrays.asList(
+                    new IngredienteDto("Sal", 1),
+                    new IngredienteDto("Aceite", 2))));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+
+        Statistics stats = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        stats.clear();
+
+        // When
+        NpcDetalleDto detalle = service.findNpcById(npc.id());
+
+        // Then - NPC + pedidos + ingredientes (IN), y la colección perezosa
+        // npc.pedidos sigue sin inicializar
+        assertEquals("Chef Detalle", detalle.nombre());
+        assertEquals(3, detalle.pedidos().size());
+        assertTrue(detalle.pedidos().stream().allMatch(p -> p.ingredientes().size() == 2));
+        assertEquals(3L, stats.getPrepareStatementCount(), "Debe ejecutar exactamente 3 consultas");
+        assertEquals(0L, stats.getCollectionFetchCount(), "No debe inicializar colecciones perezosas");
+    }
+
+    @Test
+    @DisplayName("findNpcById() - include=none y include=pedidos limitan lo que se carga")
+    void findNpcById_IncludeLimitsDepth() {
+        // Given
+        NpcDto npc = createTestNpc("Chef Parcial");
+        service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido", Arrays.asList(
+                new IngredienteDto("Sal", 1))));
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        NpcDetalleDto soloNpc = service.findNpcById(npc.id(), "none");
+        NpcDetalleDto conPedidos = service.findNpcById(npc.id(), "pedidos");
+
+        // Then - null (no se ha pedido), no lista vacía
+        assertNull(soloNpc.pedidos());
+        assertEquals(1, conPedidos.pedidos().size());
+        assertNull(conPedidos.pedidos().get(0).ingredientes());
+        assertThrows(IllegalArgumentException.class, () -> service.findNpcById(npc.id(), "ingredientes"));
+    }
+
+    @Test
+    @DisplayName("findAll(include) - 20 NPCs con pedidos e ingredientes en 2 consultas (grafos de entidad)")
+    void findAllWithInclude_ConstantStatementsWithEntityGraphs() {
+        // Given - 20 NPCs con 3 pedidos de 2 ingredientes cada uno
+        for (int n = 0; n < 20; n++) {
+            NpcDto npc = createTestNpc("Chef Grafo " + n);
+            for (int i = 1; i <= 3; i++) {
+                service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido " + i, Arrays.asList(
+                        new IngredienteDto("Sal", 1),
+                        new IngredienteDto("Aceite", 2))));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+
+        // When / Then - Sin N+1 (el modo fail-fast lanzaría NPlusOneQueryException)
+        int statements;
+        List<NpcDetalleDto> completos;
+        try (SqlStatementInspector.Scope scope = statementInspector.openScope("find_all_npcs")) {
+            completos = service.findAll("pedidos.ingredientes");
+            statements = scope.statements();
+        }
+        assertEquals(2, statements, "NPCs con pedidos + ingredientes de esos pedidos");
+        assertEquals(20, completos.size());
+        assertTrue(completos.stream().allMatch(npc -> npc.pedidos().size() == 3));
+        assertTrue(completos.stream()
+                .flatMap(npc -> npc.pedidos().stream())
+                .allMatch(pedido -> pedido.ingredientes().size() == 2));
+
+        entityManager.clear();
+        try (SqlStatementInspector.Scope scope = statementInspector.openScope("find_all_npcs")) {
+            List<NpcDetalleDto> conPedidos = service.findAll("pedidos");
+            statements = scope.statements();
+            assertNull(conPedidos.get(0).pedidos().get(0).ingredientes());
+        }
+        assertEquals(1, statements, "NPCs con pedidos en un solo JOIN");
+
+        List<NpcDetalleDto> soloNpcs = service.findAll(null);
+        assertEquals(20, soloNpcs.size());
+        assertTrue(soloNpcs.stream().allMatch(npc -> npc.pedidos() == null));
+    }
+
+    @Test
+    @DisplayName("findActiveNpcs(include) - Solo activos, ordenados por nombre y con sus pedidos")
+    void findActiveNpcsWithInclude_FiltersAndOrders() {
+        // Given
+        NpcDto beta = createTestNpc("Beta");
+        NpcDto alfa = createTestNpc("Alfa");
+        NpcDto inactivo = createTestNpc("Inactivo");
+        service.addPedidoToNpc(beta.id(), new PedidoCreateDto("Pedido Beta"));
+        service.addPedidoToNpc(inactivo.id(), new PedidoCreateDto("Pedido Inactivo"));
+        NpcUpdateDto deactivate = new NpcUpdateDto();
+        deactivate.setActivo(false);
+        service.updateNpc(inactivo.id(), deactivate);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        List<NpcDetalleDto> activos = service.findActiveNpcs("pedidos.ingredientes");
+
+        // Then
+        assertEquals(List.of("Alfa", "Beta"), activos.stream().map(NpcDetalleDto::nombre).toList());
+        assertEquals(alfa.id(), activos.get(0).id());
+        assertTrue(activos.get(0).pedidos().isEmpty());
+        assertEquals("Pedido Beta", activos.get(1).pedidos().get(0).comentario());
+        assertTrue(activos.get(1).pedidos().get(0).ingredientes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("findAll(include, fields) - Solo los campos pedidos, como Tuple y sin entidades")
+    void findAllWithFields_TuplesWithRequestedAttributes() {
+        // Given
+        createTestNpc("Chef Uno");
+        createTestNpc("Chef Dos");
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.unwrap(Session.class);
+
+        // When
+        List<?> result = service.findAll(null, List.of("nombre", "id", "nombre"));
+
+        // Then - Un elemento por campo (sin repetidos), en el orden pedido
+        assertEquals(2, result.size());
+        Tuple first = (Tuple) result.get(0);
+        assertEquals(List.of("nombre", "id"), first.getElements().stream().map(TupleElement::getAlias).toList());
+        assertEquals("Chef Uno", first.get("nombre"));
+        assertEquals(0, session.getStatistics().getEntityCount(), "No debe crear entidades gestionadas");
+
+        // Sin fields: NpcDetalleDto como siempre
+        assertInstanceOf(NpcDetalleDto.class, service.findAll(null, List.of()).get(0));
+    }
+
+    @Test
+    @DisplayName("findActiveNpcs(include, fields) - Filtra y ordena aunque activo/nombre no se pidan")
+    void findActiveNpcsWithFields_FiltersOnUnselectedAttributes() {
+        // Given
+        createTestNpc("Beta");
+        createTestNpc("Alfa");
+        NpcDto inactivo = createTestNpc("Inactivo");
+        NpcUpdateDto deactivate = new NpcUpdateDto();
+        deactivate.setActivo(false);
+        service.updateNpc(inactivo.id(), deactivate);
+
+        // When
+        List<?> result = service.findActiveNpcs(null, List.of("createdAt"));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(1, ((Tuple) result.get(0)).getElements().size());
+        assertNotNull(((Tuple) result.get(0)).get("createdAt"));
+    }
+
+    @Test
+    @DisplayName("fields - Campos validados contra el metamodelo de Npc")
+    void fields_ValidatedAgainstMetamodel() {
+        IllegalArgumentException noExiste = assertThrows(IllegalArgumentException.class,
+                () -> service.findAll(null, List.of("id", "password")));
+        assertTrue(noExiste.getMessage().contains("password"));
+        assertTrue(noExiste.getMessage().contains("nombre"), "Debe listar los campos admitidos");
+
+        // La colección de pedidos no es un atributo básico
+        assertThrows(IllegalArgumentException.class, () -> service.findAll(null, List.of("pedidos")));
+        assertThrows(IllegalArgumentException.class, () -> service.findAll("pedidos", List.of("id")));
+    }
+
+    @Test
+    @DisplayName("findPedidosByNpc() - NPC sin pedidos no consulta ingredientes")
+    void findPedidosByNpc_NoPedidos_SingleStatement() {
+        // Given
+        NpcDto npc = createTestNpc("Sin pedidos");
+        entityManager.flush();
+
+        Statistics stats = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        stats.clear();
+
+        // When
+        List<PedidoDetalleDto> pedidos = service.findPedidosByNpc(npc.id());
+
+        // Then
+        assertTrue(pedidos.isEmpty());
+        assertEquals(1L, stats.getPrepareStatementCount());
+    }
+
+    // ========== Conteos sin cargar colecciones ==========
+
+    @Test
+    @DisplayName("npcSummary() - Pedidos e ingredientes por NPC en una sola consulta")
+    void npcSummary_SingleAggregateQuery() {
+        // Given - Un NPC con 2 pedidos (3 + 0 ingredientes) y otro sin pedidos
+        NpcDto conPedidos = createTestNpc("Chef Resumen");
+        service.addPedidoToNpc(conPedidos.id(), new PedidoCreateDto("Pedido 1", Arrays.asList(
+                new IngredienteDto("Sal", 1),
+                new IngredienteDto("Aceite", 2),
+                new IngredienteDto("Ajo", 1))));
+        service.addPedidoToNpc(conPedidos.id(), new PedidoCreateDto("Pedido 2"));
+        NpcDto sinPedidos = createTestNpc("Chef Vacío");
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics stats = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        stats.clear();
+
+        // When
+        List<NpcSummaryDto> summaries = service.npcSummary(null);
+
+        // Then - 1 consulta y ninguna colección cargada
+        assertEquals(List.of(
+                new NpcSummaryDto(conPedidos.id(), "Chef Resumen", 2L, 3L),
+                new NpcSummaryDto(sinPedidos.id(), "Chef Vacío", 0L, 0L)), summaries);
+        assertEquals(1L, stats.getPrepareStatementCount(), "Debe ejecutar exactamente 1 consulta");
+        assertEquals(0L, stats.getCollectionLoadCount());
+
+        assertEquals(List.of(new NpcSummaryDto(sinPedidos.id(), "Chef Vacío", 0L, 0L)),
+                service.npcSummary(List.of(sinPedidos.id())));
+        assertEquals(2L, service.countPedidosByNpc(conPedidos.id()));
+    }
+
+    @Test
+    @DisplayName("ingredientDemand() - Suma cantidades por ingrediente con filtros y top-K")
+    void ingredientDemand_AggregatesWithFilters() {
+        // Given - Dos NPCs activos y uno inactivo con pedidos
+        NpcDto chef1 = createTestNpc("Chef Demanda 1");
+        NpcDto chef2 = createTestNpc("Chef Demanda 2");
+        NpcDto inactivo = createTestNpc("Chef Inactivo");
+        service.addPedidoToNpc(chef1.id(), new PedidoCreateDto("P1", Arrays.asList(
+                new IngredienteDto("Harina", 2),
+                new IngredienteDto("Sal", 1))));
+        service.addPedidoToNpc(chef2.id(), new PedidoCreateDto("P2", Arrays.asList(
+                new IngredienteDto("Harina", 3),
+                new IngredienteDto("Huevo", 4))));
+        service.addPedidoToNpc(inactivo.id(), new PedidoCreateDto("P3", Arrays.asList(
+                new IngredienteDto("Sal", 10))));
+        NpcUpdateDto deactivate = new NpcUpdateDto();
+        deactivate.setActivo(false);
+        service.updateNpc(inactivo.id(), deactivate);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When / Then - Todos los NPCs, ordenado por cantidad total
+        assertEquals(List.of(
+                new IngredienteDemandaDto("Sal", 11L, 2L),
+                new IngredienteDemandaDto("Harina", 5L, 2L),
+                new IngredienteDemandaDto("Huevo", 4L, 1L)), service.ingredientDemand(null));
+
+        // Solo NPCs activos, top 2
+        assertEquals(List.of(
+                new IngredienteDemandaDto("Harina", 5L, 2L),
+                new IngredienteDemandaDto("Huevo", 4L, 1L)),
+                service.ingredientDemand(new IngredienteDemandaQueryDto(true, null, null, 2)));
+
+        // Rango de fechas que no incluye ningún pedido
+        LocalDateTime manana = LocalDateTime.now().plusDays(1);
+        assertTrue(service.ingredientDemand(
+                new IngredienteDemandaQueryDto(null, manana, manana.plusDays(1), null)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.ingredientDemand(
+                new IngredienteDemandaQueryDto(null, manana, manana, null)));
+    }
+
+    @Test
+    @DisplayName("toString() - No inicializa las colecciones perezosas")
+    void toString_DoesNotInitializeLazyCollections() {
+        // Given
+        NpcDto npc = createTestNpc("Chef Log");
+        service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido log",
+                List.of(new IngredienteDto("Sal", 1))));
+        entityManager.flush();
+        Long pedidoId = pedidoRepository.findDetalleByNpcId(npc.id()).get(0).id();
+        entityManager.clear();
+
+        // When
+        Npc loaded = entityManager.find(Npc.class, npc.id());
+        Pedido loadedPedido = entityManager.find(Pedido.class, pedidoId);
+        String npcText = loaded.toString();
+        String pedidoText = loadedPedido.toString();
+
+        // Then
+        assertTrue(npcText.contains("numeroPedidos=?"), npcText);
+        assertTrue(pedidoText.contains("numeroIngredientes=?"), pedidoText);
+        assertFalse(Hibernate.isInitialized(loaded.getPedidos()));
+        assertFalse(Hibernate.isInitialized(loadedPedido.getIngredientes()));
+    }
+
+    // ========== Tests de findNpcsByIds() ==========
+
+    @Test
+    @DisplayName("findNpcsByIds() - Respeta el orden y devuelve null para IDs inexistentes")
+    void findNpcsByIds_OrderedWithNullSlots() {
+        // Given
+        NpcDto first = createTestNpc("Primero");
+        NpcDto second = createTestNpc("Segundo");
+
+        // When
+        List<NpcDto> result = service.findNpcsByIds(Arrays.asList(second.id(), 999L, first.id()));
+
+        // Then
+        assertEquals(3, result.size());
+        assertEquals("Segundo", result.get(0).nombre());
+        assertNull(result.get(1));
+        assertEquals("Primero", result.get(2).nombre());
+    }
+
+    @Test
+    @DisplayName("findNpcsByIds() - Lista vacía si no se pasan IDs")
+    void findNpcsByIds_EmptyInput_EmptyList() {
+        assertTrue(service.findNpcsByIds(List.of()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.findNpcsByIds(Arrays.asList(1L, null)));
+    }
+
+    // ========== Tests de paginación por cursor y streaming ==========
+
+    @Test
+    @DisplayName("findNpcsPage() - Recorre todas las páginas con el cursor")
+    void findNpcsPage_WalksAllPages() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            createTestNpc("NPC Página " + i);
+        }
+
+        // When
+        NpcPageDto first = service.findNpcsPage(null, 2);
+        NpcPageDto second = service.findNpcsPage(first.nextCursor(), 2);
+        NpcPageDto third = service.findNpcsPage(second.nextCursor(), 2);
+
+        // Then
+        assertEquals(2, first.items().size());
+        assertEquals(2, second.items().size());
+        assertEquals(1, third.items().size());
+        assertNull(third.nextCursor(), "La última página no tiene cursor");
+        assertTrue(first.items().get(1).id() < second.items().get(0).id(), "Orden por id ascendente");
+        assertEquals("NPC Página 5", third.items().get(0).nombre());
+    }
+
+    @Test
+    @DisplayName("findNpcsPage() - Cursor manipulado lanza excepción")
+    void findNpcsPage_InvalidCursor_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> service.findNpcsPage("no-es-un-cursor", 10));
+    }
+
+    @Test
+    @DisplayName("streamAllNpcs() - Entrega todos los NPCs en orden, sin crear entidades")
+    void streamAllNpcs_VisitsEveryNpc() {
+        // Given
+        createTestNpc("Stream 1");
+        createTestNpc("Stream 2");
+        createTestNpc("Stream 3");
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.unwrap(Session.class);
+
+        // When
+        List<NpcDto> received = new ArrayList<>();
+        long total = service.streamAllNpcs(received::add);
+
+        // Then
+        assertEquals(3L, total);
+        assertEquals(List.of("Stream 1", "Stream 2", "Stream 3"),
+                received.stream().map(NpcDto::nombre).toList());
+        assertEquals(0, session.getStatistics().getEntityCount(),
+                "La proyección no debe crear entidades gestionadas");
+    }
+
     // ========== Tests de casos límite ==========
 
     @Test
     @DisplayName("findNpcById() - Retorna null para ID inexistente")
     void findNpcById_NonExistent_ReturnsNull() {
         // When
-        Npc result = service.findNpcById(999L);
+        NpcDetalleDto result = service.findNpcById(999L);
 
         // Then
         assertNull(result);
@@ -286,8 +751,8 @@ class HibernateNpcServiceIntegrationTest {
     @DisplayName("TODO CE3.e: deleteNpc() - Elimina NPC correctamente")
     void deleteNpc_ExistingNpc_ReturnsTrue() {
         // Given - Crear NPC
-        Npc npc = createTestNpc("NPC a eliminar");
-        Long npcId = npc.getId();
+        NpcDto npc = createTestNpc("NPC a eliminar");
+        Long npcId = npc.id();
 
         // When - Eliminar NPC
         boolean result = service.deleteNpc(npcId);
@@ -311,14 +776,14 @@ class HibernateNpcServiceIntegrationTest {
     @DisplayName("TODO CE3.e: deleteNpc() - Elimina pedidos e ingredientes en cascada")
     void deleteNpc_WithPedidos_DeletesCascade() {
         // Given - Crear NPC con pedido e ingredientes
-        Npc npc = createTestNpc("NPC con pedidos");
+        NpcDto npc = createTestNpc("NPC con pedidos");
         PedidoCreateDto pedidoDto = new PedidoCreateDto("Pedido de prueba");
         pedidoDto.setIngredientes(Arrays.asList(
                 new IngredienteDto("Ingrediente 1", 1),
                 new IngredienteDto("Ingrediente 2", 2)));
-        service.addPedidoToNpc(npc.getId(), pedidoDto);
+        service.addPedidoToNpc(npc.id(), pedidoDto);
 
-        Long npcId = npc.getId();
+        Long npcId = npc.id();
 
         // When - Eliminar NPC
         boolean result = service.deleteNpc(npcId);
@@ -342,35 +807,35 @@ class HibernateNpcServiceIntegrationTest {
         query.setNombre("Chef");
 
         // When - Buscar NPCs
-        List<Npc> result = service.searchNpcs(query);
+        List<NpcDto> result = service.searchNpcs(query);
 
         // Then - Debe retornar los 2 Chefs
         assertNotNull(result);
         assertEquals(2, result.size(), "Debe encontrar 2 NPCs con 'Chef' en el nombre");
-        assertTrue(result.stream().allMatch(n -> n.getNombre().contains("Chef")));
+        assertTrue(result.stream().allMatch(n -> n.nombre().contains("Chef")));
     }
 
     @Test
     @DisplayName("TODO CE3.f: searchNpcs() - Busca por estado activo")
     void searchNpcs_ByActivo_ReturnsMatches() {
         // Given - Crear NPCs activos e inactivos
-        Npc active = createTestNpc("NPC Activo");
-        Npc inactive = createTestNpc("NPC Inactivo");
+        NpcDto active = createTestNpc("NPC Activo");
+        NpcDto inactive = createTestNpc("NPC Inactivo");
 
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(inactive.getId(), deactivate);
+        service.updateNpc(inactive.id(), deactivate);
 
         NpcQueryDto query = new NpcQueryDto();
         query.setActivo(true);
 
         // When - Buscar solo activos
-        List<Npc> result = service.searchNpcs(query);
+        List<NpcDto> result = service.searchNpcs(query);
 
         // Then - Solo debe retornar el activo
         assertNotNull(result);
         assertEquals(1, result.size(), "Debe encontrar 1 NPC activo");
-        assertTrue(result.get(0).getActivo());
+        assertTrue(result.get(0).activo());
     }
 
     @Test
@@ -378,24 +843,98 @@ class HibernateNpcServiceIntegrationTest {
     void searchNpcs_MultipleFilters_ReturnsMatches() {
         // Given - Crear NPCs variados
         createTestNpc("Chef Marco");
-        Npc chefInactivo = createTestNpc("Chef Inactivo");
+        NpcDto chefInactivo = createTestNpc("Chef Inactivo");
         createTestNpc("Pastelero Luis");
 
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(chefInactivo.getId(), deactivate);
+        service.updateNpc(chefInactivo.id(), deactivate);
 
         NpcQueryDto query = new NpcQueryDto();
         query.setNombre("Chef");
         query.setActivo(true);
 
         // When - Buscar Chefs activos
-        List<Npc> result = service.searchNpcs(query);
+        List<NpcDto> result = service.searchNpcs(query);
 
         // Then - Solo Chef Marco
         assertNotNull(result);
         assertEquals(1, result.size(), "Debe encontrar 1 Chef activo");
-        assertEquals("Chef Marco", result.get(0).getNombre());
+        assertEquals("Chef Marco", result.get(0).nombre());
+    }
+
+    @Test
+    @DisplayName("searchNpcs() - \"texto*\" busca por prefijo sin distinguir mayúsculas")
+    void searchNpcs_TrailingAsterisk_MatchesPrefixOnly() {
+        // Given
+        createTestNpc("Chef Marco");
+        createTestNpc("chef Elena");
+        createTestNpc("Sous Chef Luis");
+
+        NpcQueryDto query = new NpcQueryDto();
+        query.setNombre("CHEF*");
+
+        // When
+        List<NpcDto> result = service.searchNpcs(query);
+
+        // Then - "Sous Chef Luis" contiene "chef" pero no empieza por él
+        assertEquals(2, result.size());
+        assertTrue(result.stream().noneMatch(n -> n.nombre().startsWith("Sous")));
+
+        query.setNombre("CHEF");
+        assertEquals(3, service.searchNpcs(query).size(), "Sin * sigue buscando por contenido");
+    }
+
+    @Test
+    @DisplayName("searchNpcs() - % y _ del usuario se buscan literalmente")
+    void searchNpcs_LikeWildcardsAreLiteral() {
+        // Given
+        createTestNpc("Chef_Luis");
+        createTestNpc("ChefXLuis");
+        createTestNpc("Chef 100%");
+
+        NpcQueryDto query = new NpcQueryDto();
+
+        // When / Then - por contenido y por prefijo
+        query.setNombre("f_l");
+        assertEquals(List.of("Chef_Luis"), service.searchNpcs(query).stream().map(NpcDto::nombre).toList());
+        query.setNombre("chef_*");
+        assertEquals(List.of("Chef_Luis"), service.searchNpcs(query).stream().map(NpcDto::nombre).toList());
+        query.setNombre("%");
+        assertEquals(List.of("Chef 100%"), service.searchNpcs(query).stream().map(NpcDto::nombre).toList());
+    }
+
+    @Test
+    @DisplayName("autocompleteNpcs() - Por prefijo, ordenados, con límite y comodines literales")
+    void autocompleteNpcs_PrefixOrderedAndLimited() {
+        // Given
+        createTestNpc("Chef Zoe");
+        createTestNpc("chef Ana");
+        NpcDto renombrado = createTestNpc("Panadero");
+        createTestNpc("Chef_Luis");
+        createTestNpc("ChefXLuis");
+
+        NpcUpdateDto update = new NpcUpdateDto();
+        update.setNombre("Chef Bruno");
+        service.updateNpc(renombrado.id(), update);
+
+        // When / Then - nombre_normalizado se recalcula al actualizar
+        assertEquals(List.of("chef Ana", "Chef Bruno"),
+                service.autocompleteNpcs("CHEF ", 2).stream().map(NpcDto::nombre).toList());
+        assertEquals(List.of("Chef_Luis"),
+                service.autocompleteNpcs("chef_", null).stream().map(NpcDto::nombre).toList(),
+                "_ no debe actuar como comodín");
+        assertThrows(IllegalArgumentException.class, () -> service.autocompleteNpcs(" ", 5));
+    }
+
+    @Test
+    @DisplayName("nombre_normalizado - El LIKE por prefijo usa el índice")
+    void nombreNormalizado_PrefixLikeUsesIndex() {
+        String plan = (String) entityManager.createNativeQuery(
+                        "EXPLAIN SELECT id FROM npcs WHERE nombre_normalizado LIKE 'chef%'")
+                .getSingleResult();
+
+        assertTrue(plan.toUpperCase().contains("IDX_NPCS_NOMBRE_NORMALIZADO"), plan);
     }
 
     @Test
@@ -413,10 +952,33 @@ class HibernateNpcServiceIntegrationTest {
         // Then - Todos deben estar persistidos
         assertTrue(result, "transferData() debe retornar true si la transacción es exitosa");
 
-        List<Npc> allNpcs = service.findAll();
+        List<NpcDto> allNpcs = service.findAll();
         assertEquals(3, allNpcs.size(), "Deben haberse insertado 3 NPCs");
     }
 
+    @Test
+    @DisplayName("transferData() - Los INSERT se agrupan en lotes (IDs de secuencia)")
+    void transferData_InsertsAreBatched() {
+        // Given - 60 NPCs con batch_size = 20 y bloques de 50 IDs
+        List<Npc> npcsToInsert = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            npcsToInsert.add(new Npc("NPC Lote " + i));
+        }
+        Statistics stats = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        stats.clear();
+
+        // When
+        service.transferData(npcsToInsert);
+        entityManager.flush();
+
+        // Then - 2 llamadas a la secuencia + 3 lotes de INSERT (no 60 INSERT sueltos)
+        assertEquals(60L, stats.getEntityInsertCount());
+        assertTrue(stats.getPrepareStatementCount() <= 5,
+                "Se esperaban como mucho 5 sentencias y hubo " + stats.getPrepareStatementCount());
+    }
+
     @Test
     @DisplayName("TODO CE3.f: countActiveNpcs() - Cuenta NPCs activos")
     void countActiveNpcs_ReturnsCorrectCount() {
@@ -424,11 +986,11 @@ class HibernateNpcServiceIntegrationTest {
         createTestNpc("Activo 1");
         createTestNpc("Activo 2");
         createTestNpc("Activo 3");
-        Npc inactive = createTestNpc("Inactivo");
+        NpcDto inactive = createTestNpc("Inactivo");
 
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(inactive.getId(), deactivate);
+        service.updateNpc(inactive.id(), deactivate);
 
         // When - Contar activos
         long count = service.countActiveNpcs();
@@ -441,10 +1003,10 @@ class HibernateNpcServiceIntegrationTest {
     @DisplayName("TODO CE3.f: countActiveNpcs() - Retorna 0 si no hay activos")
     void countActiveNpcs_NoActive_ReturnsZero() {
         // Given - Crear NPC y desactivarlo
-        Npc npc = createTestNpc("Único NPC");
+        NpcDto npc = createTestNpc("Único NPC");
         NpcUpdateDto deactivate = new NpcUpdateDto();
         deactivate.setActivo(false);
-        service.updateNpc(npc.getId(), deactivate);
+        service.updateNpc(npc.id(), deactivate);
 
         // When
         long count = service.countActiveNpcs();
@@ -453,9 +1015,113 @@ class HibernateNpcServiceIntegrationTest {
         assertEquals(0L, count, "Debe retornar 0 cuando no hay NPCs activos");
     }
 
+    // ========== Detector de N+1 ==========
+
+    @Test
+    @DisplayName("Detector N+1: inicializar Pedido.npc pedido a pedido falla en modo fail-fast")
+    void lazyNpcPerPedido_FailsFast() {
+        // Given - 7 NPCs con un pedido cada uno, fuera de las cachés
+        for (int i = 0; i < 7; i++) {
+            NpcDto npc = createTestNpc("NPC N+1 " + i);
+            service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido " + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+
+        // When / Then - Pedido.npc es un proxy sin @BatchSize en Npc: una
+        // consulta por NPC, la 6ª supera el límite
+        List<Pedido> pedidos = pedidoRepository.findAll();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> pedidos.forEach(pedido -> pedido.getNpc().getNombre()));
+        assertInstanceOf(NPlusOneQueryException.class, rootCause(e));
+    }
+
+    @Test
+    @DisplayName("@BatchSize: Npc.pedidos de varios NPCs en una sola consulta")
+    void lazyPedidos_LoadedInBatches() {
+        // Given - 7 NPCs con un pedido cada uno, fuera de las cachés
+        for (int i = 0; i < 7; i++) {
+            NpcDto npc = createTestNpc("NPC lote " + i);
+            service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido lote " + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+
+        // When - Recorrer los pedidos NPC a NPC
+        List<Npc> npcs = npcRepository.findAll();
+        int statements;
+        try (SqlStatementInspector.Scope scope = statementInspector.openScope("lazy_pedidos")) {
+            npcs.forEach(npc -> npc.getPedidos().size());
+            statements = scope.statements();
+        }
+
+        // Then - Una consulta para los pedidos de los 7 NPCs
+        assertEquals(1, statements);
+    }
+
+    @Test
+    @DisplayName("Detector N+1: cuenta las sentencias de cada llamada")
+    void scope_CountsStatementsPerCall() {
+        // Given
+        NpcDto npc = createTestNpc("Chef contado");
+        service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido contado"));
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        int statements;
+        try (SqlStatementInspector.Scope scope = statementInspector.openScope("find_pedidos_by_npc")) {
+            service.findPedidosByNpc(npc.id());
+            statements = scope.statements();
+        }
+
+        // Then - Pedidos + ingredientes
+        assertEquals(2, statements);
+    }
+
+    @Test
+    @DisplayName("streamPedidosByNpc() - Ingredientes cargados por bloques de 100 pedidos")
+    void streamPedidosByNpc_LoadsIngredientesInBatches() {
+        // Given - 150 pedidos con un ingrediente cada uno
+        Npc npc = entityManager.find(Npc.class, createTestNpc("Chef en streaming").id());
+        for (int i = 0; i < 150; i++) {
+            Pedido pedido = new Pedido("Pedido " + i);
+            pedido.addIngrediente(new Ingrediente("Ingrediente " + i));
+            npc.addPedido(pedido);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        List<PedidoDetalleDto> recibidos = new ArrayList<>();
+        long count;
+        int statements;
+        try (SqlStatementInspector.Scope scope = statementInspector.openScope("find_pedidos_by_npc")) {
+            count = service.streamPedidosByNpc(npc.getId(), recibidos::add);
+            statements = scope.statements();
+        }
+
+        // Then - 1 consulta de pedidos + 2 bloques de ingredientes (100 + 50)
+        assertEquals(150, count);
+        assertEquals(150, recibidos.size());
+        assertTrue(recibidos.stream().allMatch(pedido -> pedido.ingredientes().size() == 1));
+        assertEquals("Ingrediente 149", recibidos.get(149).ingredientes().get(0).nombre());
+        assertEquals(3, statements);
+    }
+
     // ========== Métodos auxiliares ==========
 
-    private Npc createTestNpc(String nombre) {
+    private Throwable rootCause(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+
+    private NpcDto createTestNpc(String nombre) {
         NpcCreateDto dto = new NpcCreateDto();
         dto.setNombre(nombre);
         return service.createNpc(dto);
@@ -0,0 +1,189 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.IngredienteDemandaDto;
+import com.dam.accesodatos.model.IngredienteDemandaQueryDto;
+import com.dam.accesodatos.model.IngredienteDto;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.NpcCreateDto;
+import com.dam.accesodatos.model.NpcDetalleDto;
+import com.dam.accesodatos.model.NpcDto;
+import com.dam.accesodatos.model.NpcUpdateDto;
+import com.dam.accesodatos.model.PedidoCreateDto;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la caché de segundo nivel y de consultas.
+ *
+ * NOTA: no es @Transactional. Hibernate solo publica en caché lo que se
+ * confirma, y la caché de consultas no se usa dentro de una transacción
+ * que ha modificado las tablas implicadas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Caché de segundo nivel")
+class HibernateSecondLevelCacheTest {
+
+    @Autowired
+    private HibernateNpcService service;
+
+    @Autowired
+    private HibernateCacheMetrics cacheMetrics;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("findNpcById() - Segunda lectura del NPC sale de la caché sin ir a la BD")
+    void findNpcById_ServedFromSecondLevelCache() {
+        // Given - NPC confirmado y leído una vez
+        NpcDto npc = createTestNpc("Cacheado");
+        service.findNpcById(npc.id());
+        stats.clear();
+
+        // When - Nueva transacción (nuevo contexto de persistencia)
+        NpcDetalleDto found = service.findNpcById(npc.id());
+
+        // Then
+        assertEquals("Cacheado", found.nombre());
+        // Solo la consulta de pedidos del plan de carga (el NPC no tiene
+        // pedidos, así que no hay consulta de ingredientes)
+        assertEquals(1L, stats.getPrepareStatementCount(), "El NPC no debe leerse de la BD");
+        assertEquals(1L, stats.getCacheRegionStatistics(HibernateCacheConfig.NPC_REGION).getHitCount());
+    }
+
+    @Test
+    @DisplayName("findActiveNpcs()/countActiveNpcs() - Caché de consultas invalidada al modificar NPCs")
+    void activeNpcQueries_UseQueryCacheAndInvalidateOnUpdate() {
+        // Given
+        createTestNpc("Activo 1");
+        NpcDto second = createTestNpc("Activo 2");
+        service.findActiveNpcs();
+        service.countActiveNpcs();
+        stats.clear();
+
+        // When - Repetir las consultas
+        assertEquals(2, service.findActiveNpcs().size());
+        assertEquals(2L, service.countActiveNpcs());
+
+        // Then - Ambas salen de la caché
+        assertEquals(2L, stats.getQueryCacheHitCount());
+        assertEquals(0L, stats.getPrepareStatementCount());
+
+        // When - Desactivar un NPC invalida las consultas sobre npcs
+        NpcUpdateDto deactivate = new NpcUpdateDto();
+        deactivate.setActivo(false);
+        service.updateNpc(second.id(), deactivate);
+        stats.clear();
+
+        // Then - Resultados actualizados (fallo de caché)
+        assertEquals(1, service.findActiveNpcs().size());
+        assertEquals(1L, service.countActiveNpcs());
+        assertEquals(0L, stats.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("ingredientDemand() - Resultado cacheado e invalidado al añadir un pedido")
+    void ingredientDemand_UsesQueryCacheAndInvalidatesOnWrite() {
+        // Given
+        NpcDto npc = createTestNpc("Demanda");
+        service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido 1",
+                List.of(new IngredienteDto("Harina", 2))));
+        IngredienteDemandaQueryDto query = new IngredienteDemandaQueryDto(true, null, null, 10);
+        service.ingredientDemand(query);
+        stats.clear();
+
+        // When - Misma consulta: sale de la caché
+        assertEquals(List.of(new IngredienteDemandaDto("Harina", 2L, 1L)), service.ingredientDemand(query));
+        assertEquals(1L, stats.getQueryCacheHitCount());
+        assertEquals(0L, stats.getPrepareStatementCount());
+
+        // When - Un pedido nuevo invalida la consulta (tabla ingredientes)
+        service.addPedidoToNpc(npc.id(), new PedidoCreateDto("Pedido 2",
+                List.of(new IngredienteDto("Harina", 3))));
+        stats.clear();
+
+        // Then
+        assertEquals(List.of(new IngredienteDemandaDto("Harina", 5L, 2L)), service.ingredientDemand(query));
+        assertEquals(0L, stats.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("transferData() - La carga masiva no se vuelca en la caché")
+    void transferData_DoesNotPopulateCache() {
+        // Given
+        stats.clear();
+
+        // When
+        service.transferData(List.of(new Npc("Masivo 1"), new Npc("Masivo 2"), new Npc("Masivo 3")));
+
+        // Then
+        assertEquals(3L, stats.getEntityInsertCount());
+        assertEquals(0L, stats.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    @DisplayName("HibernateCacheMetrics - Expone aciertos y fallos por región")
+    @SuppressWarnings("unchecked")
+    void cacheMetrics_ExposeHitsAndMisses() {
+        // Given - Con IDs de secuencia, el INSERT confirmado ya deja el NPC
+        // en caché: las dos lecturas son aciertos
+        NpcDto npc = createTestNpc("Métricas");
+        stats.clear();
+        service.findNpcById(npc.id());
+        service.findNpcById(npc.id());
+
+        // When
+        Map<String, Object> snapshot = cacheMetrics.snapshot();
+
+        // Then
+        Map<String, Object> secondLevel = (Map<String, Object>) snapshot.get("secondLevel");
+        Map<String, Object> regions = (Map<String, Object>) snapshot.get("regions");
+        assertEquals(2L, secondLevel.get("hits"));
+        assertEquals(0L, secondLevel.get("misses"));
+        assertTrue(regions.containsKey(HibernateCacheConfig.NPC_REGION));
+        assertTrue(snapshot.containsKey("query"));
+    }
+
+    private NpcDto createTestNpc(String nombre) {
+        NpcCreateDto dto = new NpcCreateDto();
+        dto.setNombre(nombre);
+        return service.createNpc(dto);
+    }
+}
@@ -0,0 +1,57 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.mcp.McpServerController;
+import com.dam.accesodatos.model.NpcQueryDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del perfil prod: sin log de cada sentencia SQL y registro de SQL por
+ * muestreo.
+ *
+ * NOTAS:
+ * - sample-rate=1 registra todas las sentencias, para que el test no
+ * dependa del azar
+ * - El AsyncAppender de logback-spring.xml no se comprueba aquí: Spring Boot
+ * solo configura Logback con el primer contexto de la JVM de tests
+ */
+@SpringBootTest(properties = "mcp.sql.sample-rate=1")
+@ActiveProfiles({ "test", "prod" })
+@ExtendWith(OutputCaptureExtension.class)
+@DisplayName("Tests Integración - Perfil de log prod")
+class ProdLoggingProfileTest {
+
+    @Autowired
+    private HibernateNpcService service;
+
+    @Test
+    @DisplayName("El SQL de Hibernate y los parámetros no se registran")
+    void hibernateSqlLogging_Disabled() {
+        assertFalse(LoggerFactory.getLogger("org.hibernate.SQL").isDebugEnabled());
+        assertFalse(LoggerFactory.getLogger("org.hibernate.orm.jdbc.bind").isTraceEnabled());
+        assertFalse(LoggerFactory.getLogger(McpServerController.class).isDebugEnabled());
+    }
+
+    @Test
+    @DisplayName("Las sentencias muestreadas se registran con sus parámetros")
+    void sampledStatement_Logged(CapturedOutput output) throws InterruptedException {
+        // When
+        service.searchNpcs(new NpcQueryDto("muestra-prod", true));
+
+        // Then - Con el AsyncAppender la línea se escribe desde otro hilo
+        for (int i = 0; i < 50 && !output.getOut().contains("muestra-prod"); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(output.getOut().contains("Sentencia (muestra 1/1"));
+        assertTrue(output.getOut().contains("%muestra-prod%"));
+    }
+}
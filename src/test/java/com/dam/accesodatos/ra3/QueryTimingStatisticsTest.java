@@ -0,0 +1,69 @@
+package com.dam.accesodatos.ra3;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios de las etiquetas de mcp.jpa.query.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests Unitarios - QueryTimingStatistics")
+class QueryTimingStatisticsTest {
+
+    @Mock
+    private StatisticsImplementor delegate;
+
+    private MeterRegistry registry;
+    private SqlStatementInspector inspector;
+    private QueryTimingStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        inspector = new SqlStatementInspector(5, false);
+        statistics = new QueryTimingStatistics(delegate, registry, inspector, 3);
+    }
+
+    @Test
+    @DisplayName("Etiquetas: herramienta del ámbito y hash de la consulta; delega en Hibernate")
+    void queryExecuted_TagsToolAndHash() {
+        SqlStatementInspector.Scope scope = inspector.openScope("search_npcs");
+        try {
+            statistics.queryExecuted("select n from Npc n order by n.nombre", 7, 3);
+            statistics.queryExecuted("select n from Npc n order by n.nombre", 2, 5);
+        } finally {
+            scope.close();
+        }
+        statistics.queryExecuted("select count(n) from Npc n", 1, 1);
+
+        Timer timer = registry.get("mcp.jpa.query").tag("tool", "search_npcs").timer();
+        assertEquals(2, timer.count());
+        assertTrue(timer.getId().getTag("query").matches("[0-9a-f]{8}"));
+        assertEquals(9.0, registry.get("mcp.jpa.query.rows").tag("tool", "search_npcs").summary().totalAmount());
+        assertEquals(1, registry.get("mcp.jpa.query").tag("tool", "none").timer().count());
+        verify(delegate).queryExecuted("select count(n) from Npc n", 1, 1);
+    }
+
+    @Test
+    @DisplayName("JPQL dinámico: a partir del máximo, las consultas nuevas van a query=other")
+    void dynamicQueries_Capped() {
+        for (int i = 0; i < 50; i++) {
+            statistics.queryExecuted("select n from Npc n where n.id > " + i, 1, 1);
+        }
+
+        assertEquals(4, statistics.registeredQueries());
+        assertEquals(4, registry.find("mcp.jpa.query").timers().size());
+        assertEquals(47, registry.get("mcp.jpa.query").tag("query", QueryTimingStatistics.OTHER).timer().count());
+    }
+}
@@ -0,0 +1,208 @@
+package com.dam.accesodatos.ra3;
+
+import com.dam.accesodatos.model.BulkTransferOptionsDto;
+import com.dam.accesodatos.model.Ingrediente;
+import com.dam.accesodatos.model.Npc;
+import com.dam.accesodatos.model.Pedido;
+import com.dam.accesodatos.model.ResultadoBusquedaDto;
+import com.dam.accesodatos.repository.NpcRepository;
+import com.dam.accesodatos.repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la búsqueda de texto completo (search_text) y de su
+ * sincronización con la BD.
+ *
+ * NOTA: no es @Transactional porque el índice se actualiza después del
+ * commit; los datos se confirman y se limpian al terminar cada test (el
+ * borrado también quita los documentos del índice).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests Integración - Búsqueda de texto completo")
+class TextSearchIndexTest {
+
+    @Autowired
+    private HibernateNpcService service;
+
+    @Autowired
+    private NpcRepository npcRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        npcRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Palabras y frases, sin mayúsculas ni tildes, ordenadas por relevancia")
+    void search_TokensPhrasesAndRanking() {
+        // Given
+        Npc npc = new Npc("Cocinera Remedios");
+        npc.addPedido(new Pedido("Sopa de tomate con albahaca y un toque de limón"));
+        npc.addPedido(new Pedido("Tomate"));
+        npc.addPedido(new Pedido("Tomate asado con sopa fría"));
+        npcRepository.save(npc);
+
+        // Then - Todas las palabras: los tres pedidos con "tomate"; el más
+        // corto primero (BM25 favorece los textos cortos)
+        List<ResultadoBusquedaDto> tomate = service.searchText("TOMATE", null, null);
+        assertEquals(3, tomate.size());
+        assertEquals("Tomate", tomate.get(0).texto());
+        assertTrue(tomate.get(0).score() > tomate.get(2).score());
+        assertEquals(npc.getId(), tomate.get(0).npcId());
+
+        // Frase exacta frente a palabras sueltas
+        assertEquals(2, service.searchText("sopa tomate", null, null).size());
+        List<ResultadoBusquedaDto> frase = service.searchText("\"sopa de tomate\"", null, null);
+        assertEquals(1, frase.size());
+        assertTrue(frase.get(0).texto().startsWith("Sopa de tomate"));
+
+        // Sin tildes, prefijo y filtro por tipo
+        assertEquals(1, service.searchText("limon", "pedido", null).size());
+        assertEquals(1, service.searchText("remed*", TextSearchIndex.NPC, null).size());
+        assertTrue(service.searchText("remedios", TextSearchIndex.PEDIDO, null).isEmpty());
+        assertEquals(1, service.searchText("tomate", null, 1).size());
+    }
+
+    @Test
+    @DisplayName("Listeners post-commit: altas, cambios y bajas; el rollback no toca el índice")
+    void listeners_KeepIndexInSyncWithCommits() {
+        // Alta con cascada: NPC, pedido e ingrediente indexados
+        Npc npc = new Npc("Panadero Anselmo");
+        Pedido pedido = new Pedido("Hogaza de centeno");
+        pedido.addIngrediente(new Ingrediente("Harina de espelta", 2));
+        npc.addPedido(pedido);
+        npc = npcRepository.save(npc);
+        Long pedidoId = npc.getPedidos().get(0).getId();
+
+        ResultadoBusquedaDto ingrediente = service.searchText("espelta", null, null).get(0);
+        assertEquals(TextSearchIndex.INGREDIENTE, ingrediente.tipo());
+        assertEquals(pedidoId, ingrediente.pedidoId());
+
+        // Cambio: el texto anterior deja de encontrarse
+        Pedido cargado = pedidoRepository.findById(pedidoId).orElseThrow();
+        cargado.setComentario("Barra de maíz");
+        pedidoRepository.save(cargado);
+        assertTrue(service.searchText("centeno", null, null).isEmpty());
+        assertEquals(1, service.searchText("maiz", null, null).size());
+
+        // Rollback: ni el alta ni el cambio llegan al índice
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            npcRepository.save(new Npc("Repostero Fantasma"));
+            status.setRollbackOnly();
+        });
+        assertTrue(service.searchText("fantasma", null, null).isEmpty());
+
+        // Baja en cascada: desaparecen NPC, pedido e ingrediente
+        npcRepository.deleteById(npc.getId());
+        assertTrue(service.searchText("anselmo OR maiz OR espelta", null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("transfer_data_bulk con sesión normal: los NPCs se indexan al confirmar, aunque haya clear()")
+    void statefulBulkImport_Indexed() {
+        List<Npc> npcs = List.of(new Npc("Alfarera Uno"), new Npc("Alfarera Dos"), new Npc("Alfarera Tres"));
+        // Una sola transacción con clear() tras cada bloque de 2
+        BulkTransferOptionsDto options = new BulkTransferOptionsDto(2, false);
+        options.setStatelessSession(false);
+        service.transferDataBulk(npcs, options);
+
+        assertEquals(3, service.searchText("alfarera", TextSearchIndex.NPC, null).size());
+    }
+
+    @Test
+    @DisplayName("transfer_data_bulk con StatelessSession también indexa")
+    void statelessBulkImport_Indexed() {
+        service.transferDataBulk(List.of(new Npc("Quesera Sin Eventos")), new BulkTransferOptionsDto(10, true));
+
+        assertEquals(1, service.searchText("quesera", TextSearchIndex.NPC, null).size());
+    }
+
+    @Test
+    @DisplayName("rebuild_search_index recoge lo insertado con SQL directo")
+    void rebuild_PicksUpRowsWrittenOutsideHibernate() {
+        // Given - SQL directo: los listeners no se enteran
+        Long id = npcRepository.save(new Npc("Carnicero Indexado")).getId() + 1;
+        jdbcTemplate.update("INSERT INTO npcs (id, nombre, activo) VALUES (?, 'Pescadera Invisible', TRUE)", id);
+        assertTrue(service.searchText("pescadera", null, null).isEmpty());
+
+        // When
+        long documentos = service.rebuildSearchIndex();
+
+        // Then
+        assertTrue(documentos >= 2);
+        assertEquals(id, service.searchText("pescadera", null, null).get(0).id());
+        assertEquals(1, service.searchText("carnicero", null, null).size());
+    }
+
+    @Test
+    @DisplayName("rebuild no bloquea búsquedas ni cambios, y no pierde lo confirmado durante la carga")
+    void rebuild_DoesNotBlockAndReplaysConcurrentChanges() throws IOException {
+        // Índice propio: no toca el del contexto de Spring
+        TextSearchIndex index = new TextSearchIndex();
+        try {
+            index.rebuild(loader -> loader.indexNpc(1L, "Herrero Antiguo"));
+            Npc tardio = new Npc("Tejedor Tardío");
+            tardio.setId(3L);
+
+            long documentos = index.rebuild(loader -> {
+                loader.indexNpc(2L, "Herrera Nueva");
+                // Desde otro hilo, como un listener post-commit: ni la
+                // búsqueda ni el cambio esperan a que termine la carga
+                List<ResultadoBusquedaDto> durante = CompletableFuture.supplyAsync(() -> {
+                    index.index(tardio);
+                    return index.search("herrero OR tejedor", null, null);
+                }).orTimeout(5, TimeUnit.SECONDS).join();
+                assertEquals(2, durante.size());
+            });
+
+            // El índice nuevo: lo cargado más el cambio repetido
+            assertEquals(2, documentos);
+            assertTrue(index.search("herrero", null, null).isEmpty());
+            assertEquals(1, index.search("herrera", null, null).size());
+            assertEquals(3L, index.search("tejedor", null, null).get(0).id());
+
+            // Si la carga falla, el índice en uso no cambia
+            assertThrows(IllegalStateException.class, () -> index.rebuild(loader -> {
+                throw new IllegalStateException("BD caída");
+            }));
+            assertEquals(1, index.search("herrera", null, null).size());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Consulta vacía, mal formada o tipo desconocido: IllegalArgumentException")
+    void invalidQueries_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.searchText(" ", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchText("\"sin cerrar", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchText("sopa", "receta", null));
+    }
+}